@@ -0,0 +1,93 @@
+package com.viewnext.kidaprojects.apipersonajes.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.service.PersonajeService;
+
+/**
+ * Coste de listar los personajes activos completos, por páginas, proyectando solo algunos
+ * campos y recorriéndolos con un cursor, con y sin el índice {@code (activo, id_personaje)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ConsultaBenchmark {
+
+	private static final List<String> CAMPOS = List.of("idPersonaje", "nombre", "nivel", "vidaActual");
+
+	@Param({ "10000", "100000", "1000000" })
+	public int filas;
+
+	@Param({ "true", "false" })
+	public boolean indice;
+
+	private ContextoBenchmark contexto;
+	private PersonajeService service;
+
+	@Setup(Level.Trial)
+	public void arrancar() {
+		contexto = ContextoBenchmark.arrancar();
+		contexto.poblar(filas);
+		if (!indice) {
+			contexto.bean(JdbcTemplate.class).execute("DROP INDEX idx_personajes_activo_id");
+		}
+		service = contexto.bean(PersonajeService.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void parar() {
+		contexto.close();
+	}
+
+	@Benchmark
+	public List<Personaje> showActivos() {
+		return service.showActivos();
+	}
+
+	@Benchmark
+	public List<Map<String, Object>> showActivosProyectados() {
+		return service.showActivos(CAMPOS);
+	}
+
+	@Benchmark
+	public List<Personaje> showActivosPrimeraPagina() {
+		return service.showActivos(0, 100);
+	}
+
+	@Benchmark
+	public List<Personaje> showActivosPaginaIntermedia() {
+		return service.showActivos(filas / 2, 100);
+	}
+
+	@Benchmark
+	public List<Map<String, Object>> showActivosProyectadosPaginaIntermedia() {
+		return service.showActivos(CAMPOS, filas / 2, 100);
+	}
+
+	@Benchmark
+	public void recorrerActivos(Blackhole blackhole) {
+		service.recorrerPersonajes(true, blackhole::consume);
+	}
+}
@@ -0,0 +1,93 @@
+package com.viewnext.kidaprojects.apipersonajes.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.viewnext.kidaprojects.apipersonajes.ApiPersonajeApplication;
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.repository.AlmacenPersonajes;
+
+/**
+ * Arranca la aplicación sin servidor web contra una base de datos H2 en memoria, o con el
+ * motor de almacenamiento en memoria, y la rellena con personajes para los benchmarks.
+ */
+final class ContextoBenchmark implements AutoCloseable {
+
+	private final ConfigurableApplicationContext contexto;
+
+	private ContextoBenchmark(ConfigurableApplicationContext contexto) {
+		this.contexto = contexto;
+	}
+
+	/**
+	 * Arranca la aplicación con el perfil {@code test} y las propiedades adicionales indicadas.
+	 */
+	static ContextoBenchmark arrancar(String... propiedades) {
+		return arrancarConPerfil("test", propiedades);
+	}
+
+	/**
+	 * Arranca la aplicación con el perfil indicado ({@code test} para JPA sobre H2,
+	 * {@code memoria} para el motor en memoria) y las propiedades adicionales indicadas.
+	 */
+	static ContextoBenchmark arrancarConPerfil(String perfil, String... propiedades) {
+		List<String> todas = new ArrayList<>(List.of("logging.level.root=WARN",
+				"spring.datasource.hikari.maximum-pool-size=20"));
+		todas.addAll(List.of(propiedades));
+
+		return new ContextoBenchmark(new SpringApplicationBuilder(ApiPersonajeApplication.class)
+				.profiles(perfil)
+				.web(WebApplicationType.NONE)
+				.properties(todas.toArray(String[]::new))
+				.run());
+	}
+
+	<T> T bean(Class<T> tipo) {
+		return contexto.getBean(tipo);
+	}
+
+	/**
+	 * Inserta {@code filas} personajes con IDs consecutivos desde 1; los de ID par están activos.
+	 */
+	void poblar(int filas) {
+		JdbcTemplate jdbcTemplate = contexto.getBeanProvider(JdbcTemplate.class).getIfAvailable();
+		if (jdbcTemplate == null) {
+			poblarRepositorio(filas);
+			return;
+		}
+
+		jdbcTemplate.update("INSERT INTO personajes (nombre, fuerza_original, fuerza_actual, "
+				+ "defensa_original, defensa_actual, nivel, vida_original, vida_total, vida_actual, experiencia, activo) "
+				+ "SELECT CONCAT('Personaje ', X), 10, 10, 10, 10, 1, 1000000, 1000000, 1000000, 0, MOD(X, 2) = 0 "
+				+ "FROM SYSTEM_RANGE(1, ?)", filas);
+	}
+
+	/**
+	 * Inserta los mismos personajes que {@link #poblar(int)} a través del repositorio, para
+	 * los motores sin base de datos.
+	 */
+	private void poblarRepositorio(int filas) {
+		AlmacenPersonajes repositorio = bean(AlmacenPersonajes.class);
+		List<Personaje> lote = new ArrayList<>();
+
+		for (int x = 1; x <= filas; x++) {
+			Personaje personaje = new Personaje("Personaje " + x, 10, 10, 1_000_000);
+			personaje.setActivo(x % 2 == 0);
+			lote.add(personaje);
+			if (lote.size() == 1000 || x == filas) {
+				repositorio.insertarLote(lote);
+				lote.clear();
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		contexto.close();
+	}
+}
@@ -0,0 +1,120 @@
+package com.viewnext.kidaprojects.apipersonajes.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.viewnext.kidaprojects.apipersonajes.binario.PersonajeBinario;
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.service.PersonajeService;
+
+/**
+ * Tiempo y tamaño de exportar toda la tabla como lista JSON ({@code GET personaje}), como
+ * NDJSON y en el formato de {@code PersonajeBinario}. Los tamaños se imprimen al preparar
+ * el benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ExportacionBenchmark {
+
+	@Param({ "100000" })
+	public int filas;
+
+	private ContextoBenchmark contexto;
+	private PersonajeService service;
+	private ObjectMapper objectMapper;
+
+	@Setup(Level.Trial)
+	public void arrancar() throws IOException {
+		contexto = ContextoBenchmark.arrancar();
+		contexto.poblar(filas);
+		service = contexto.bean(PersonajeService.class);
+		objectMapper = contexto.bean(ObjectMapper.class);
+
+		System.out.printf("%nBytes para %d personajes: lista JSON %d, NDJSON %d, binario %d%n", filas, jsonLista(),
+				ndjson(), binario());
+	}
+
+	@TearDown(Level.Trial)
+	public void parar() {
+		contexto.close();
+	}
+
+	@Benchmark
+	public long jsonLista() throws IOException {
+		Contador salida = new Contador();
+		objectMapper.writeValue(salida, service.showAll());
+		return salida.bytes;
+	}
+
+	@Benchmark
+	public long ndjson() {
+		Contador salida = new Contador();
+		ObjectWriter writer = objectMapper.writerFor(Personaje.class);
+
+		service.recorrerPersonajes(false, personaje -> {
+			try {
+				salida.write(writer.writeValueAsBytes(personaje));
+				salida.write('\n');
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		return salida.bytes;
+	}
+
+	@Benchmark
+	public long binario() throws IOException {
+		Contador salida = new Contador();
+
+		try (PersonajeBinario.Escritor escritor = PersonajeBinario.escritor(salida)) {
+			service.recorrerPersonajes(false, personaje -> {
+				try {
+					escritor.escribir(personaje);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+		return salida.bytes;
+	}
+
+	/**
+	 * Salida que descarta los bytes y solo los cuenta.
+	 */
+	private static final class Contador extends OutputStream {
+
+		private long bytes;
+
+		@Override
+		public void write(int b) {
+			bytes++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			bytes += len;
+		}
+	}
+}
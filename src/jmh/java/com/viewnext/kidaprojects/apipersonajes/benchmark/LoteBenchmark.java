@@ -0,0 +1,72 @@
+package com.viewnext.kidaprojects.apipersonajes.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.viewnext.kidaprojects.apipersonajes.model.Golpe;
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.service.PersonajeService;
+
+/**
+ * N llamadas a {@code updateVida} frente a una única llamada a {@code updateVidaLote} con N golpes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LoteBenchmark {
+
+	@Param({ "10", "100", "1000" })
+	public int golpes;
+
+	private ContextoBenchmark contexto;
+	private PersonajeService service;
+	private List<Golpe> lote;
+
+	@Setup(Level.Trial)
+	public void arrancar() {
+		contexto = ContextoBenchmark.arrancar("personaje.cache.enabled=false");
+		contexto.poblar(10_000);
+		service = contexto.bean(PersonajeService.class);
+
+		lote = new ArrayList<>(golpes);
+		for (int i = 1; i <= golpes; i++) {
+			lote.add(new Golpe(i, 1));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void parar() {
+		contexto.close();
+	}
+
+	@Benchmark
+	public void llamadasIndividuales(Blackhole blackhole) {
+		for (Golpe golpe : lote) {
+			blackhole.consume(service.updateVida(golpe.idPersonaje(), golpe.damage()));
+		}
+	}
+
+	@Benchmark
+	public List<Personaje> unLote() {
+		return service.updateVidaLote(lote);
+	}
+}
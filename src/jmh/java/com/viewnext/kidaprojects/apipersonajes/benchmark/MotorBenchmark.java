@@ -0,0 +1,83 @@
+package com.viewnext.kidaprojects.apipersonajes.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.service.PersonajeService;
+
+/**
+ * Compara el motor JPA sobre H2 ({@code motor=test}) con el motor en memoria
+ * ({@code motor=memoria}) en las operaciones del servicio, sin caché de personajes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+public class MotorBenchmark {
+
+	@Param({ "test", "memoria" })
+	public String motor;
+
+	@Param({ "10000" })
+	public int filas;
+
+	private ContextoBenchmark contexto;
+	private PersonajeService service;
+
+	@Setup(Level.Trial)
+	public void arrancar() {
+		contexto = ContextoBenchmark.arrancarConPerfil(motor, "personaje.cache.enabled=false");
+		contexto.poblar(filas);
+		service = contexto.bean(PersonajeService.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void parar() {
+		contexto.close();
+	}
+
+	@Benchmark
+	public Personaje showPersonajeById() {
+		return service.showPersonajeById(idAleatorio());
+	}
+
+	@Benchmark
+	public Personaje updateVida() {
+		return service.updateVida(idAleatorio(), 1);
+	}
+
+	@Benchmark
+	public Personaje subirNivel() {
+		return service.subirNivel(idAleatorio());
+	}
+
+	@Benchmark
+	@Threads(1)
+	public List<Personaje> showActivos() {
+		return service.showActivos();
+	}
+
+	private int idAleatorio() {
+		return ThreadLocalRandom.current().nextInt(1, filas + 1);
+	}
+}
@@ -0,0 +1,60 @@
+package com.viewnext.kidaprojects.apipersonajes.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.viewnext.kidaprojects.apipersonajes.model.ResultadoReinicio;
+import com.viewnext.kidaprojects.apipersonajes.service.PersonajeService;
+
+/**
+ * Coste de reiniciar todos los personajes con una única sentencia y por bloques de IDs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ReinicioBenchmark {
+
+	@Param({ "10000", "100000", "1000000" })
+	public int filas;
+
+	private ContextoBenchmark contexto;
+	private PersonajeService service;
+
+	@Setup(Level.Trial)
+	public void arrancar() {
+		contexto = ContextoBenchmark.arrancar();
+		contexto.poblar(filas);
+		service = contexto.bean(PersonajeService.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void parar() {
+		contexto.close();
+	}
+
+	@Benchmark
+	public ResultadoReinicio reiniciarPersonajes() {
+		return service.reiniciarPersonajes();
+	}
+
+	@Benchmark
+	public ResultadoReinicio reiniciarPersonajesPorBloques() {
+		return service.reiniciarPersonajes(10_000);
+	}
+}
@@ -0,0 +1,57 @@
+package com.viewnext.kidaprojects.apipersonajes.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+
+/**
+ * Coste de serializar a JSON listas de personajes, como hacen los endpoints de listado.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SerializacionBenchmark {
+
+	@Param({ "100", "10000" })
+	public int tamano;
+
+	private ObjectWriter writer;
+	private List<Personaje> personajes;
+
+	@Setup
+	public void preparar() {
+		writer = new ObjectMapper().writerFor(List.class);
+		personajes = new ArrayList<>(tamano);
+
+		for (int i = 1; i <= tamano; i++) {
+			Personaje personaje = new Personaje("Personaje " + i, 10, 10, 1000);
+			personaje.setIdPersonaje(i);
+			personajes.add(personaje);
+		}
+	}
+
+	@Benchmark
+	public byte[] serializarLista() throws JsonProcessingException {
+		return writer.writeValueAsBytes(personajes);
+	}
+}
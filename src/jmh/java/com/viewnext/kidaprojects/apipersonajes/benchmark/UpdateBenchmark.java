@@ -0,0 +1,94 @@
+package com.viewnext.kidaprojects.apipersonajes.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.repository.AlmacenPersonajes;
+import com.viewnext.kidaprojects.apipersonajes.service.PersonajeService;
+
+/**
+ * Coste de aplicar daño y experiencia a un personaje aleatorio, incluida la subida de nivel,
+ * y de golpear todos los hilos al mismo personaje con el UPDATE atómico de
+ * {@code updateVida} frente a leerlo y guardarlo con {@code findById} y {@code save}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+public class UpdateBenchmark {
+
+	@Param({ "10000" })
+	public int filas;
+
+	private ContextoBenchmark contexto;
+	private PersonajeService service;
+	private AlmacenPersonajes personajeRepository;
+
+	@Setup(Level.Trial)
+	public void arrancar() {
+		contexto = ContextoBenchmark.arrancar("personaje.cache.enabled=false");
+		contexto.poblar(filas);
+		service = contexto.bean(PersonajeService.class);
+		personajeRepository = contexto.bean(AlmacenPersonajes.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void parar() {
+		contexto.close();
+	}
+
+	@Benchmark
+	public Personaje updateVida() {
+		return service.updateVida(idAleatorio(), 1);
+	}
+
+	@Benchmark
+	public Personaje updateExperienciaConSubidaDeNivel() {
+		return service.updateExperiencia(idAleatorio(), 1500);
+	}
+
+	@Benchmark
+	public Personaje updateVidaMismoPersonaje() {
+		return service.updateVida(1, 1);
+	}
+
+	/**
+	 * La implementación anterior de {@code updateVida}. Con bloqueo optimista los golpes que
+	 * chocan fallan en lugar de perderse; el fallo también cuenta como golpe.
+	 */
+	@Benchmark
+	public Personaje leerYGuardarMismoPersonaje() {
+		Personaje personaje = personajeRepository.findById(1).orElseThrow();
+		personaje.setVidaActual(personaje.getVidaActual() - 1);
+		try {
+			return personajeRepository.save(personaje);
+		} catch (OptimisticLockingFailureException e) {
+			return personaje;
+		}
+	}
+
+	private int idAleatorio() {
+		return ThreadLocalRandom.current().nextInt(1, filas + 1);
+	}
+}
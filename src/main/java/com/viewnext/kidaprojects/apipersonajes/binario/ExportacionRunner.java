@@ -0,0 +1,88 @@
+package com.viewnext.kidaprojects.apipersonajes.binario;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import com.viewnext.kidaprojects.apipersonajes.service.PersonajeService;
+
+/**
+ * Modo de línea de comandos que exporta los personajes a un fichero en el formato de
+ * {@code PersonajeBinario} y termina la aplicación. Se activa con la propiedad
+ * {@code personaje.exportar.fichero}, por ejemplo:
+ *
+ * <pre>
+ * java -jar ApiPersonaje.jar --spring.main.web-application-type=none \
+ *     --personaje.exportar.fichero=personajes.pjb [--personaje.exportar.solo-activos=true]
+ * </pre>
+ *
+ * @version 1.0
+ * @since 17 de octubre de 2026
+ */
+@Component
+@ConditionalOnProperty("personaje.exportar.fichero")
+public class ExportacionRunner implements ApplicationRunner {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ExportacionRunner.class);
+
+	private final PersonajeService service;
+	private final ConfigurableApplicationContext contexto;
+	private final Path fichero;
+	private final boolean soloActivos;
+
+	/**
+	 * Constructor de la clase {@code ExportacionRunner}.
+	 *
+	 * @param service     Servicio de personajes.
+	 * @param contexto    Contexto de la aplicación, que se cierra al terminar la exportación.
+	 * @param fichero     Fichero de destino.
+	 * @param soloActivos Indica si se exportan solo los personajes activos.
+	 */
+	public ExportacionRunner(PersonajeService service, ConfigurableApplicationContext contexto,
+			@Value("${personaje.exportar.fichero}") Path fichero,
+			@Value("${personaje.exportar.solo-activos:false}") boolean soloActivos) {
+		this.service = service;
+		this.contexto = contexto;
+		this.fichero = fichero;
+		this.soloActivos = soloActivos;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws IOException {
+		long inicio = System.currentTimeMillis();
+		long escritos;
+
+		try (OutputStream salida = Files.newOutputStream(fichero);
+				PersonajeBinario.Escritor escritor = PersonajeBinario.escritor(salida)) {
+			try {
+				service.recorrerPersonajes(soloActivos, personaje -> {
+					try {
+						escritor.escribir(personaje);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+			escritos = escritor.getEscritos();
+		}
+
+		LOGGER.info("Exportados {} personajes a {} ({} bytes, {} ms)", escritos, fichero, Files.size(fichero),
+				System.currentTimeMillis() - inicio);
+
+		System.exit(SpringApplication.exit(contexto, () -> 0));
+	}
+}
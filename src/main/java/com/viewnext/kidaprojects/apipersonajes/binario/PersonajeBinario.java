@@ -0,0 +1,256 @@
+package com.viewnext.kidaprojects.apipersonajes.binario;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+
+/**
+ * La clase {@code PersonajeBinario} escribe y lee personajes en un formato binario por
+ * filas, compacto y pensado para leerse en streaming.
+ *
+ * <p>
+ * Esquema (versión 1):
+ * </p>
+ * <pre>
+ * fichero  = cabecera registro* fin
+ * cabecera = "PJB" 0x01                       (4 bytes: firma y versión del formato)
+ * registro = 0x01
+ *            deltaId          varint zigzag    idPersonaje - idPersonaje del registro anterior (0 al inicio)
+ *            fuerzaOriginal   varint zigzag
+ *            fuerzaActual     varint zigzag
+ *            defensaOriginal  varint zigzag
+ *            defensaActual    varint zigzag
+ *            nivel            varint zigzag
+ *            vidaOriginal     varint zigzag
+ *            vidaTotal        varint zigzag
+ *            vidaActual       varint zigzag
+ *            experiencia      varint zigzag
+ *            version          varint zigzag de 64 bits
+ *            activo           1 byte (0 o 1)
+ *            nombre           varint zigzag con la longitud en bytes UTF-8 (-1 si es null) y los bytes
+ * fin      = 0x00
+ * </pre>
+ *
+ * <p>
+ * Un varint guarda 7 bits por byte, con el bit alto a 1 si quedan más bytes; la
+ * codificación zigzag ({@code (n << 1) ^ (n >> 31)}) hace que los números negativos
+ * pequeños también ocupen pocos bytes. Como los personajes se exportan ordenados por ID,
+ * el ID se guarda como diferencia con el anterior y casi siempre ocupa un byte.
+ * </p>
+ *
+ * @version 1.0
+ * @since 17 de octubre de 2026
+ */
+public final class PersonajeBinario {
+
+	/** Tipo de contenido HTTP del formato. */
+	public static final String MEDIA_TYPE = "application/vnd.personaje.binario";
+
+	private static final byte[] CABECERA = { 'P', 'J', 'B', 1 };
+	private static final int REGISTRO = 1;
+	private static final int FIN = 0;
+
+	private PersonajeBinario() {
+	}
+
+	/**
+	 * Crea un escritor que escribe la cabecera en la salida indicada.
+	 *
+	 * @param salida Salida en la que se escriben los personajes; no se cierra al cerrar el escritor.
+	 * @return Un escritor de personajes.
+	 * @throws IOException Si no se puede escribir la cabecera.
+	 */
+	public static Escritor escritor(OutputStream salida) throws IOException {
+		return new Escritor(salida);
+	}
+
+	/**
+	 * Crea un lector que comprueba la cabecera de la entrada indicada.
+	 *
+	 * @param entrada Entrada de la que se leen los personajes.
+	 * @return Un lector de personajes.
+	 * @throws IOException Si la entrada no empieza por una cabecera válida.
+	 */
+	public static Lector lector(InputStream entrada) throws IOException {
+		return new Lector(entrada);
+	}
+
+	/**
+	 * Escribe personajes de uno en uno. {@link #close()} escribe la marca de fin y vacía el
+	 * buffer, sin cerrar la salida subyacente.
+	 */
+	public static final class Escritor implements Flushable, AutoCloseable {
+
+		private final BufferedOutputStream salida;
+		private int ultimoId;
+		private long escritos;
+
+		private Escritor(OutputStream salida) throws IOException {
+			this.salida = new BufferedOutputStream(salida, 64 * 1024);
+			this.salida.write(CABECERA);
+		}
+
+		/**
+		 * Escribe un personaje.
+		 *
+		 * @param personaje El personaje a escribir.
+		 * @throws IOException Si no se puede escribir.
+		 */
+		public void escribir(Personaje personaje) throws IOException {
+			salida.write(REGISTRO);
+			escribirInt(personaje.getIdPersonaje() - ultimoId);
+			escribirInt(personaje.getFuerzaOriginal());
+			escribirInt(personaje.getFuerzaActual());
+			escribirInt(personaje.getDefensaOriginal());
+			escribirInt(personaje.getDefensaActual());
+			escribirInt(personaje.getNivel());
+			escribirInt(personaje.getVidaOriginal());
+			escribirInt(personaje.getVidaTotal());
+			escribirInt(personaje.getVidaActual());
+			escribirInt(personaje.getExperiencia());
+			escribirVarint((personaje.getVersion() << 1) ^ (personaje.getVersion() >> 63));
+			salida.write(personaje.isActivo() ? 1 : 0);
+
+			if (personaje.getNombre() == null) {
+				escribirInt(-1);
+			} else {
+				byte[] nombre = personaje.getNombre().getBytes(StandardCharsets.UTF_8);
+				escribirInt(nombre.length);
+				salida.write(nombre);
+			}
+
+			ultimoId = personaje.getIdPersonaje();
+			escritos++;
+		}
+
+		/**
+		 * @return Número de personajes escritos.
+		 */
+		public long getEscritos() {
+			return escritos;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			salida.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			salida.write(FIN);
+			salida.flush();
+		}
+
+		private void escribirInt(int valor) throws IOException {
+			escribirVarint(Integer.toUnsignedLong((valor << 1) ^ (valor >> 31)));
+		}
+
+		private void escribirVarint(long valor) throws IOException {
+			while ((valor & ~0x7FL) != 0) {
+				salida.write((int) ((valor & 0x7F) | 0x80));
+				valor >>>= 7;
+			}
+			salida.write((int) valor);
+		}
+	}
+
+	/**
+	 * Lee personajes de uno en uno hasta la marca de fin.
+	 */
+	public static final class Lector {
+
+		private final InputStream entrada;
+		private int ultimoId;
+		private boolean terminado;
+
+		private Lector(InputStream entrada) throws IOException {
+			this.entrada = new BufferedInputStream(entrada, 64 * 1024);
+
+			byte[] cabecera = this.entrada.readNBytes(CABECERA.length);
+			if (!Arrays.equals(cabecera, CABECERA)) {
+				throw new IOException("La entrada no está en el formato binario de personajes (versión 1)");
+			}
+		}
+
+		/**
+		 * Lee el siguiente personaje.
+		 *
+		 * @return El personaje leído, o {@code null} a partir de la marca de fin.
+		 * @throws IOException Si la entrada está truncada o dañada.
+		 */
+		public Personaje leer() throws IOException {
+			if (terminado) {
+				return null;
+			}
+
+			int marca = leerByte();
+			if (marca == FIN) {
+				terminado = true;
+				return null;
+			}
+			if (marca != REGISTRO) {
+				throw new IOException("Marca de registro no válida: " + marca);
+			}
+
+			Personaje personaje = new Personaje();
+			ultimoId += leerInt();
+			personaje.setIdPersonaje(ultimoId);
+			personaje.setFuerzaOriginal(leerInt());
+			personaje.setFuerzaActual(leerInt());
+			personaje.setDefensaOriginal(leerInt());
+			personaje.setDefensaActual(leerInt());
+			personaje.setNivel(leerInt());
+			personaje.setVidaOriginal(leerInt());
+			personaje.setVidaTotal(leerInt());
+			personaje.setVidaActual(leerInt());
+			personaje.setExperiencia(leerInt());
+			long version = leerVarint();
+			personaje.setVersion((version >>> 1) ^ -(version & 1));
+			personaje.setActivo(leerByte() == 1);
+
+			int longitud = leerInt();
+			if (longitud >= 0) {
+				byte[] nombre = entrada.readNBytes(longitud);
+				if (nombre.length != longitud) {
+					throw new EOFException("Nombre truncado");
+				}
+				personaje.setNombre(new String(nombre, StandardCharsets.UTF_8));
+			}
+
+			return personaje;
+		}
+
+		private int leerInt() throws IOException {
+			int valor = (int) leerVarint();
+			return (valor >>> 1) ^ -(valor & 1);
+		}
+
+		private long leerVarint() throws IOException {
+			long valor = 0;
+			for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+				int b = leerByte();
+				valor |= (long) (b & 0x7F) << desplazamiento;
+				if ((b & 0x80) == 0) {
+					return valor;
+				}
+			}
+			throw new IOException("Varint demasiado largo");
+		}
+
+		private int leerByte() throws IOException {
+			int b = entrada.read();
+			if (b < 0) {
+				throw new EOFException("Fin de la entrada antes de la marca de fin");
+			}
+			return b;
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package com.viewnext.kidaprojects.apipersonajes.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.IntFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * La clase {@code PersonajeCache} mantiene en memoria los personajes leídos por ID para
+ * no consultar la base de datos en cada lectura.
+ *
+ * <p>
+ * La caché está acotada por tamaño y por tiempo desde la última escritura, y los métodos
+ * que modifican personajes invalidan sus entradas. Una invalidación espera a que termine
+ * cualquier carga en curso de la misma clave, por lo que una lectura anterior a la
+ * escritura nunca queda guardada después de ella. Sus aciertos, fallos y expulsiones
+ * se publican con el nombre {@code personajes}. Se desactiva con la propiedad
+ * {@code personaje.cache.enabled=false}.
+ * </p>
+ *
+ * @version 1.0
+ * @since 17 de octubre de 2026
+ */
+@Component
+public class PersonajeCache {
+
+	private final boolean activa;
+	private final Cache<Integer, Personaje> cache;
+
+	/**
+	 * Constructor de la clase {@code PersonajeCache}.
+	 *
+	 * @param registry      Registro de métricas.
+	 * @param activa        Indica si la caché está activa.
+	 * @param tamanoMaximo  Número máximo de personajes en la caché.
+	 * @param ttl           Tiempo máximo que un personaje permanece en la caché desde que se escribió.
+	 */
+	public PersonajeCache(MeterRegistry registry,
+			@Value("${personaje.cache.enabled:true}") boolean activa,
+			@Value("${personaje.cache.max-size:10000}") long tamanoMaximo,
+			@Value("${personaje.cache.ttl:10s}") Duration ttl) {
+		this.activa = activa;
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(tamanoMaximo)
+				.expireAfterWrite(ttl)
+				.recordStats()
+				.build();
+
+		CaffeineCacheMetrics.monitor(registry, cache, "personajes");
+	}
+
+	/**
+	 * Obtiene un personaje de la caché o, si no está, lo carga y lo guarda en ella.
+	 *
+	 * @param idPersonaje El ID del personaje.
+	 * @param cargador    Función que carga el personaje de la base de datos.
+	 * @return El personaje, o vacío si no existe.
+	 */
+	public Optional<Personaje> obtener(int idPersonaje, IntFunction<Optional<Personaje>> cargador) {
+		if (!activa) {
+			return cargador.apply(idPersonaje);
+		}
+
+		return Optional.ofNullable(cache.get(idPersonaje, id -> cargador.apply(id).map(Personaje::new).orElse(null)));
+	}
+
+	/**
+	 * Consulta un personaje en la caché sin cargarlo si no está.
+	 *
+	 * @param idPersonaje El ID del personaje.
+	 * @return El personaje guardado en la caché, o vacío si no está o la caché está desactivada.
+	 */
+	public Optional<Personaje> consultar(int idPersonaje) {
+		return activa ? Optional.ofNullable(cache.getIfPresent(idPersonaje)) : Optional.empty();
+	}
+
+	/**
+	 * Elimina un personaje de la caché.
+	 *
+	 * @param idPersonaje El ID del personaje.
+	 */
+	public void invalidar(int idPersonaje) {
+		cache.invalidate(idPersonaje);
+	}
+
+	/**
+	 * Elimina todos los personajes de la caché.
+	 */
+	public void invalidarTodo() {
+		cache.invalidateAll();
+	}
+}
@@ -0,0 +1,125 @@
+package com.viewnext.kidaprojects.apipersonajes.cache;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.viewnext.kidaprojects.apipersonajes.model.OrigenRecompensa;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+/**
+ * La clase {@code RecompensaCache} guarda en memoria el valor de las recompensas de
+ * misiones y enemigos, que prácticamente nunca cambian, para no llamar al servicio
+ * remoto cada vez que un personaje reclama la misma recompensa.
+ *
+ * <p>
+ * Las peticiones concurrentes de una recompensa que no está en la caché comparten una
+ * única llamada remota. Las llamadas que fallan no se guardan. Además de las métricas de
+ * la caché ({@code recompensas}), se publica el número de peticiones, de llamadas remotas
+ * y de llamadas ahorradas por origen.
+ * </p>
+ *
+ * @version 1.0
+ * @since 17 de octubre de 2026
+ */
+public class RecompensaCache {
+
+	private final boolean activa;
+	private final AsyncCache<Clave, Integer> cache;
+	private final Map<OrigenRecompensa, IntFunction<Mono<Integer>>> cargadores;
+	private final Map<OrigenRecompensa, Counter> peticiones = new EnumMap<>(OrigenRecompensa.class);
+	private final Map<OrigenRecompensa, Counter> llamadasRemotas = new EnumMap<>(OrigenRecompensa.class);
+
+	/**
+	 * Constructor de la clase {@code RecompensaCache}.
+	 *
+	 * @param cargadores   Función que obtiene la recompensa del servicio remoto, por origen.
+	 * @param registry     Registro de métricas.
+	 * @param activa       Indica si la caché está activa.
+	 * @param tamanoMaximo Número máximo de recompensas en la caché.
+	 * @param ttl          Tiempo máximo que una recompensa permanece en la caché.
+	 */
+	public RecompensaCache(Map<OrigenRecompensa, IntFunction<Mono<Integer>>> cargadores, MeterRegistry registry,
+			boolean activa, long tamanoMaximo, Duration ttl) {
+		this.activa = activa;
+		this.cargadores = new EnumMap<>(cargadores);
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(tamanoMaximo)
+				.expireAfterWrite(ttl)
+				.recordStats()
+				.buildAsync();
+
+		CaffeineCacheMetrics.monitor(registry, cache, "recompensas");
+
+		for (OrigenRecompensa origen : OrigenRecompensa.values()) {
+			String tag = origen.name().toLowerCase();
+			Counter totalPeticiones = Counter.builder("personaje.recompensa.peticiones")
+					.tag("origen", tag)
+					.register(registry);
+			Counter totalLlamadas = Counter.builder("personaje.recompensa.llamadas.remotas")
+					.tag("origen", tag)
+					.register(registry);
+			FunctionCounter.builder("personaje.recompensa.llamadas.ahorradas", this,
+					c -> totalPeticiones.count() - totalLlamadas.count())
+					.tag("origen", tag)
+					.register(registry);
+
+			peticiones.put(origen, totalPeticiones);
+			llamadasRemotas.put(origen, totalLlamadas);
+		}
+	}
+
+	/**
+	 * Obtiene el valor de una recompensa, de la caché o del servicio remoto.
+	 *
+	 * @param origen El servicio del que procede la recompensa.
+	 * @param id     El ID de la misión o del enemigo.
+	 * @return Un {@code Mono} con la cantidad de experiencia de la recompensa.
+	 */
+	public Mono<Integer> obtener(OrigenRecompensa origen, int id) {
+		peticiones.get(origen).increment();
+
+		if (!activa) {
+			return cargar(origen, id);
+		}
+
+		// suppressCancel: cancelar una petición no debe cancelar la llamada que comparten otras
+		return Mono.fromFuture(() -> cache.get(new Clave(origen, id),
+				(clave, executor) -> cargar(clave.origen(), clave.id()).toFuture()), true);
+	}
+
+	/**
+	 * Elimina una recompensa de la caché.
+	 *
+	 * @param origen El servicio del que procede la recompensa.
+	 * @param id     El ID de la misión o del enemigo.
+	 */
+	public void invalidar(OrigenRecompensa origen, int id) {
+		cache.synchronous().invalidate(new Clave(origen, id));
+	}
+
+	/**
+	 * Elimina todas las recompensas de la caché.
+	 */
+	public void invalidarTodo() {
+		cache.synchronous().invalidateAll();
+	}
+
+	private Mono<Integer> cargar(OrigenRecompensa origen, int id) {
+		return Mono.defer(() -> {
+			llamadasRemotas.get(origen).increment();
+			return cargadores.get(origen).apply(id);
+		});
+	}
+
+	private record Clave(OrigenRecompensa origen, int id) {
+	}
+}
@@ -0,0 +1,32 @@
+package com.viewnext.kidaprojects.apipersonajes.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.viewnext.kidaprojects.apipersonajes.memoria.TransaccionesMemoria;
+
+/**
+ * La clase {@code MemoriaConfig} configura la aplicación para el perfil {@code memoria},
+ * en el que los personajes se guardan en {@code PersonajeRepositoryMemoria} en lugar de
+ * en MySQL. El perfil excluye la configuración automática del DataSource, JPA y Flyway
+ * ({@code application-memoria.properties}).
+ *
+ * @version 1.0
+ * @since 18 de octubre de 2026
+ */
+@Configuration
+@Profile("memoria")
+public class MemoriaConfig {
+
+    /**
+     * Gestor de transacciones sin recursos, para {@code TransactionTemplate}.
+     *
+     * @return Un gestor de transacciones del motor en memoria.
+     */
+    @Bean
+    PlatformTransactionManager transactionManager() {
+        return new TransaccionesMemoria();
+    }
+}
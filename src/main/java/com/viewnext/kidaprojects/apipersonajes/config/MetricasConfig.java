@@ -0,0 +1,47 @@
+package com.viewnext.kidaprojects.apipersonajes.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.reactivestreams.Publisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * La clase {@code MetricasConfig} activa la anotación {@code @Timed} de Micrometer.
+ *
+ * <p>
+ * Las peticiones a {@code PersonajeRestController} ({@code http.server.requests}), las
+ * consultas a {@code PersonajeRepository} ({@code spring.data.repository.invocations}) y
+ * las llamadas de {@code misionWebClient} y {@code enemigoWebClient}
+ * ({@code http.client.requests}) las mide Spring Boot; los métodos de
+ * {@code PersonajeService} se miden con {@code @Timed} ({@code personaje.service}). Todas
+ * las métricas se publican en {@code /actuator/prometheus}.
+ * </p>
+ *
+ * @version 1.0
+ * @since 17 de octubre de 2026
+ */
+@Configuration
+public class MetricasConfig {
+
+    /**
+     * Crea el aspecto que mide los métodos anotados con {@code @Timed}. Los métodos que
+     * devuelven un {@code Publisher} no se miden aquí, porque el aspecto solo vería el
+     * montaje del flujo y no su ejecución; se miden dentro del propio flujo.
+     *
+     * @param registry Registro de métricas.
+     * @return El aspecto de {@code @Timed}.
+     */
+    @Bean
+    TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry, MetricasConfig::devuelvePublisher);
+    }
+
+    private static boolean devuelvePublisher(ProceedingJoinPoint joinPoint) {
+        return joinPoint.getSignature() instanceof MethodSignature firma
+                && Publisher.class.isAssignableFrom(firma.getReturnType());
+    }
+}
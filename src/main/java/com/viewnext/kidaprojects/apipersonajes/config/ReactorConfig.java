@@ -0,0 +1,36 @@
+package com.viewnext.kidaprojects.apipersonajes.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * La clase {@code ReactorConfig} proporciona los planificadores de Reactor utilizados
+ * por los flujos reactivos del servicio.
+ *
+ * @version 1.0
+ * @since 17 de octubre de 2026
+ */
+@Configuration
+public class ReactorConfig {
+
+    /**
+     * Crea un planificador acotado en el que se ejecuta el trabajo bloqueante de JPA
+     * dentro de los flujos reactivos, para no ocupar los hilos de red de WebClient. Con
+     * hilos virtuales activos se usa en su lugar el de {@code VirtualThreadConfig}.
+     *
+     * @param hilos  Número máximo de hilos del planificador.
+     * @param cola   Número máximo de tareas en espera antes de rechazar nuevas tareas.
+     * @return Un planificador {@code boundedElastic} acotado.
+     */
+    @Bean(destroyMethod = "dispose")
+    @ConditionalOnProperty(name = "personaje.virtual-threads.enabled", havingValue = "false", matchIfMissing = true)
+    Scheduler jpaScheduler(@Value("${personaje.jpa-scheduler.hilos:20}") int hilos,
+            @Value("${personaje.jpa-scheduler.cola:10000}") int cola) {
+        return Schedulers.newBoundedElastic(hilos, cola, "personaje-jpa");
+    }
+}
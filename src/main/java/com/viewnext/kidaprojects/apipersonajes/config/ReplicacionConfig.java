@@ -0,0 +1,35 @@
+package com.viewnext.kidaprojects.apipersonajes.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * La clase {@code ReplicacionConfig} configura el DataSource de MySQL en el que
+ * {@code ReplicadorMySql} replica los personajes del motor en memoria. Se activa con los
+ * perfiles {@code memoria} y {@code replicacion} a la vez; como el perfil {@code memoria}
+ * excluye la configuración automática del DataSource, la conexión se define con las
+ * propiedades {@code personaje.replicacion.datasource.*} (las de Hikari).
+ *
+ * @version 1.0
+ * @since 18 de octubre de 2026
+ */
+@Configuration
+@Profile("memoria & replicacion")
+public class ReplicacionConfig {
+
+    /**
+     * DataSource de la base de datos de destino de la replicación.
+     *
+     * @return Un pool de conexiones Hikari.
+     */
+    @Bean
+    @ConfigurationProperties("personaje.replicacion.datasource")
+    DataSource replicacionDataSource() {
+        return DataSourceBuilder.create().build();
+    }
+}
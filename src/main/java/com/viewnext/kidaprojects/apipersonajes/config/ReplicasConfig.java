@@ -0,0 +1,100 @@
+package com.viewnext.kidaprojects.apipersonajes.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.viewnext.kidaprojects.apipersonajes.replicas.DataSourceEnrutado;
+import com.viewnext.kidaprojects.apipersonajes.replicas.LecturaPropiaFilter;
+import com.viewnext.kidaprojects.apipersonajes.replicas.LecturasPropias;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * La clase {@code ReplicasConfig} configura la aplicación para el perfil {@code replicas},
+ * en el que las transacciones de solo lectura se ejecutan en las réplicas de
+ * {@code personaje.replicas.datasources} y el resto en la base de datos principal de
+ * {@code spring.datasource}. JPA, Flyway y {@code JdbcTemplate} usan el DataSource
+ * enrutado sin saber que hay varias bases de datos; Flyway migra solo la principal.
+ *
+ * @version 1.0
+ * @since 18 de octubre de 2026
+ */
+@Configuration
+@Profile("replicas")
+@EnableConfigurationProperties(ReplicasProperties.class)
+public class ReplicasConfig {
+
+    /**
+     * Pool de conexiones de la base de datos principal, igual que el que crearía Spring Boot
+     * sin réplicas.
+     *
+     * @param propiedades Conexión de {@code spring.datasource}.
+     * @return El DataSource de la base de datos principal.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primariaDataSource(DataSourceProperties propiedades) {
+        return propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Escrituras recientes de cada cliente, para que lea sus propios cambios.
+     *
+     * @param replicas Configuración de las réplicas.
+     * @return El registro de escrituras recientes.
+     */
+    @Bean
+    LecturasPropias lecturasPropias(ReplicasProperties replicas) {
+        return new LecturasPropias(replicas.getLecturaPropia().getVentana(),
+                replicas.getLecturaPropia().getMaxClientes());
+    }
+
+    /**
+     * Filtro que identifica al cliente de cada petición.
+     *
+     * @param lecturasPropias Registro de escrituras recientes.
+     * @param replicas        Configuración de las réplicas.
+     * @return El filtro de peticiones.
+     */
+    @Bean
+    LecturaPropiaFilter lecturaPropiaFilter(LecturasPropias lecturasPropias, ReplicasProperties replicas) {
+        return new LecturaPropiaFilter(lecturasPropias, replicas.getLecturaPropia().getCabecera());
+    }
+
+    /**
+     * DataSource que elige la base de datos principal o una réplica para cada conexión.
+     *
+     * @param primariaDataSource DataSource de la base de datos principal.
+     * @param replicas           Configuración de las réplicas.
+     * @param lecturasPropias    Registro de escrituras recientes.
+     * @param registry           Registro de métricas.
+     * @return El DataSource enrutado.
+     */
+    @Bean
+    DataSourceEnrutado enrutadoDataSource(HikariDataSource primariaDataSource, ReplicasProperties replicas,
+            LecturasPropias lecturasPropias, MeterRegistry registry) {
+        return new DataSourceEnrutado(primariaDataSource, replicas.getDatasources(), lecturasPropias, registry);
+    }
+
+    /**
+     * DataSource de la aplicación, que retrasa la elección de la base de datos hasta la
+     * primera sentencia de cada transacción, cuando ya se sabe si es de solo lectura.
+     *
+     * @param enrutadoDataSource DataSource enrutado.
+     * @return El DataSource que usan JPA, Flyway y {@code JdbcTemplate}.
+     */
+    @Bean
+    @Primary
+    DataSource dataSource(DataSourceEnrutado enrutadoDataSource) {
+        return new LazyConnectionDataSourceProxy(enrutadoDataSource);
+    }
+}
@@ -0,0 +1,131 @@
+package com.viewnext.kidaprojects.apipersonajes.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * La clase {@code ReplicasProperties} agrupa la configuración del perfil {@code replicas},
+ * bajo el prefijo {@code personaje.replicas}. La base de datos principal es la de
+ * {@code spring.datasource}.
+ *
+ * @version 1.0
+ * @since 18 de octubre de 2026
+ */
+@ConfigurationProperties(prefix = "personaje.replicas")
+public class ReplicasProperties {
+
+    /** Conexión de cada réplica de lectura; las lecturas se reparten entre ellas por turnos. */
+    private List<Conexion> datasources = new ArrayList<>();
+
+    /** Lectura de las propias escrituras de cada cliente. */
+    private LecturaPropia lecturaPropia = new LecturaPropia();
+
+    public List<Conexion> getDatasources() {
+        return datasources;
+    }
+
+    public void setDatasources(List<Conexion> datasources) {
+        this.datasources = datasources;
+    }
+
+    public LecturaPropia getLecturaPropia() {
+        return lecturaPropia;
+    }
+
+    public void setLecturaPropia(LecturaPropia lecturaPropia) {
+        this.lecturaPropia = lecturaPropia;
+    }
+
+    /**
+     * Conexión con la base de datos de una réplica.
+     */
+    public static class Conexion {
+
+        /** URL JDBC de la base de datos. */
+        private String url;
+
+        /** Usuario de la base de datos. */
+        private String username;
+
+        /** Contraseña de la base de datos. */
+        private String password;
+
+        /** Número máximo de conexiones del pool. */
+        private int maxConexiones = 10;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaxConexiones() {
+            return maxConexiones;
+        }
+
+        public void setMaxConexiones(int maxConexiones) {
+            this.maxConexiones = maxConexiones;
+        }
+    }
+
+    /**
+     * Ventana en la que las lecturas de un cliente van a la base de datos principal después
+     * de que ese cliente escriba, para que vea sus cambios aunque las réplicas vayan con retraso.
+     */
+    public static class LecturaPropia {
+
+        /** Cabecera HTTP que identifica al cliente; sin ella no hay lectura propia. */
+        private String cabecera = "X-Cliente";
+
+        /** Duración de la ventana; 0 la desactiva. */
+        private Duration ventana = Duration.ofSeconds(2);
+
+        /** Número máximo de clientes recordados a la vez. */
+        private long maxClientes = 100_000;
+
+        public String getCabecera() {
+            return cabecera;
+        }
+
+        public void setCabecera(String cabecera) {
+            this.cabecera = cabecera;
+        }
+
+        public Duration getVentana() {
+            return ventana;
+        }
+
+        public void setVentana(Duration ventana) {
+            this.ventana = ventana;
+        }
+
+        public long getMaxClientes() {
+            return maxClientes;
+        }
+
+        public void setMaxClientes(long maxClientes) {
+            this.maxClientes = maxClientes;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.viewnext.kidaprojects.apipersonajes.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.viewnext.kidaprojects.apipersonajes.memoria.TransaccionesMemoria;
+
+/**
+ * La clase {@code ShardsConfig} configura la aplicación para el perfil {@code shards}, en
+ * el que los personajes se reparten entre varias bases de datos con
+ * {@code PersonajeRepositoryShards}. El perfil excluye la configuración automática del
+ * DataSource, JPA y Flyway ({@code application-shards.properties}): cada shard tiene su
+ * propio DataSource, sus migraciones y su {@code EntityManagerFactory}.
+ *
+ * @version 1.0
+ * @since 18 de octubre de 2026
+ */
+@Configuration
+@Profile("shards")
+@EnableConfigurationProperties(ShardsProperties.class)
+public class ShardsConfig {
+
+    /**
+     * Gestor de transacciones sin recursos, para {@code TransactionTemplate}. Igual que en
+     * el perfil {@code memoria}, las transacciones del servicio no enlazan recursos: cada
+     * operación de {@code PersonajeRepositoryShards} se ejecuta en una transacción de su
+     * shard.
+     *
+     * @return Un gestor de transacciones sin recursos.
+     */
+    @Bean
+    PlatformTransactionManager transactionManager() {
+        return new TransaccionesMemoria();
+    }
+}
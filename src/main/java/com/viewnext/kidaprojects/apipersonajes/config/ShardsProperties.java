@@ -0,0 +1,89 @@
+package com.viewnext.kidaprojects.apipersonajes.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * La clase {@code ShardsProperties} agrupa la configuración del perfil {@code shards},
+ * bajo el prefijo {@code personaje.shards}.
+ *
+ * @version 1.0
+ * @since 18 de octubre de 2026
+ */
+@ConfigurationProperties(prefix = "personaje.shards")
+public class ShardsProperties {
+
+    /** Conexión de cada shard; el shard de un personaje es su ID módulo el número de shards. */
+    private List<Conexion> datasources = new ArrayList<>();
+
+    /** Número de IDs que reserva de una vez cada shard en su tabla {@code personaje_secuencia}. */
+    private int tamanoBloqueIds = 100;
+
+    public List<Conexion> getDatasources() {
+        return datasources;
+    }
+
+    public void setDatasources(List<Conexion> datasources) {
+        this.datasources = datasources;
+    }
+
+    public int getTamanoBloqueIds() {
+        return tamanoBloqueIds;
+    }
+
+    public void setTamanoBloqueIds(int tamanoBloqueIds) {
+        this.tamanoBloqueIds = tamanoBloqueIds;
+    }
+
+    /**
+     * Conexión con la base de datos de un shard.
+     */
+    public static class Conexion {
+
+        /** URL JDBC de la base de datos. */
+        private String url;
+
+        /** Usuario de la base de datos. */
+        private String username;
+
+        /** Contraseña de la base de datos. */
+        private String password;
+
+        /** Número máximo de conexiones del pool. */
+        private int maxConexiones = 10;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaxConexiones() {
+            return maxConexiones;
+        }
+
+        public void setMaxConexiones(int maxConexiones) {
+            this.maxConexiones = maxConexiones;
+        }
+    }
+}
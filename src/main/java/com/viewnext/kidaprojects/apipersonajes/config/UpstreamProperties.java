@@ -0,0 +1,169 @@
+package com.viewnext.kidaprojects.apipersonajes.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * La clase {@code UpstreamProperties} agrupa la configuración de los servicios remotos
+ * de misiones y enemigos, bajo el prefijo {@code personaje.upstream}.
+ *
+ * @version 1.0
+ * @since 17 de octubre de 2026
+ */
+@ConfigurationProperties(prefix = "personaje.upstream")
+public class UpstreamProperties {
+
+    private Upstream mision = new Upstream("http://localhost:8084");
+    private Upstream enemigo = new Upstream("http://localhost:8083");
+
+    public Upstream getMision() {
+        return mision;
+    }
+
+    public void setMision(Upstream mision) {
+        this.mision = mision;
+    }
+
+    public Upstream getEnemigo() {
+        return enemigo;
+    }
+
+    public void setEnemigo(Upstream enemigo) {
+        this.enemigo = enemigo;
+    }
+
+    /**
+     * Configuración de la conexión con un servicio remoto.
+     */
+    public static class Upstream {
+
+        /** URL base del servicio. */
+        private String baseUrl;
+
+        /** Tiempo máximo para establecer la conexión. */
+        private Duration connectTimeout = Duration.ofSeconds(1);
+
+        /** Tiempo máximo de espera de la respuesta de cada intento. */
+        private Duration responseTimeout = Duration.ofSeconds(2);
+
+        /** Número máximo de conexiones del pool. */
+        private int maxConnections = 100;
+
+        /** Número máximo de peticiones esperando una conexión libre. */
+        private int pendingAcquireMaxCount = 1000;
+
+        /** Tiempo máximo de espera de una conexión libre. */
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(1);
+
+        /** Número de reintentos de las peticiones GET que fallan por un error transitorio. */
+        private int reintentos = 2;
+
+        /** Espera inicial entre reintentos, que crece exponencialmente con variación aleatoria. */
+        private Duration backoff = Duration.ofMillis(100);
+
+        /** Porcentaje de fallos a partir del cual se abre el circuito. */
+        private float umbralFallos = 50;
+
+        /** Número de llamadas recientes con las que se calcula el porcentaje de fallos. */
+        private int ventanaLlamadas = 20;
+
+        /** Tiempo que el circuito permanece abierto antes de dejar pasar llamadas de prueba. */
+        private Duration esperaCircuitoAbierto = Duration.ofSeconds(10);
+
+        public Upstream() {
+        }
+
+        public Upstream(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        public void setBaseUrl(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getResponseTimeout() {
+            return responseTimeout;
+        }
+
+        public void setResponseTimeout(Duration responseTimeout) {
+            this.responseTimeout = responseTimeout;
+        }
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public int getPendingAcquireMaxCount() {
+            return pendingAcquireMaxCount;
+        }
+
+        public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) {
+            this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+        }
+
+        public Duration getPendingAcquireTimeout() {
+            return pendingAcquireTimeout;
+        }
+
+        public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) {
+            this.pendingAcquireTimeout = pendingAcquireTimeout;
+        }
+
+        public int getReintentos() {
+            return reintentos;
+        }
+
+        public void setReintentos(int reintentos) {
+            this.reintentos = reintentos;
+        }
+
+        public Duration getBackoff() {
+            return backoff;
+        }
+
+        public void setBackoff(Duration backoff) {
+            this.backoff = backoff;
+        }
+
+        public float getUmbralFallos() {
+            return umbralFallos;
+        }
+
+        public void setUmbralFallos(float umbralFallos) {
+            this.umbralFallos = umbralFallos;
+        }
+
+        public int getVentanaLlamadas() {
+            return ventanaLlamadas;
+        }
+
+        public void setVentanaLlamadas(int ventanaLlamadas) {
+            this.ventanaLlamadas = ventanaLlamadas;
+        }
+
+        public Duration getEsperaCircuitoAbierto() {
+            return esperaCircuitoAbierto;
+        }
+
+        public void setEsperaCircuitoAbierto(Duration esperaCircuitoAbierto) {
+            this.esperaCircuitoAbierto = esperaCircuitoAbierto;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.viewnext.kidaprojects.apipersonajes.config;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * La clase {@code UpstreamResilienceFilter} protege las llamadas a un servicio remoto con
+ * un circuit breaker y reintenta las peticiones GET que fallan por un error transitorio.
+ *
+ * <p>
+ * Las respuestas 5xx y los errores de conexión o de timeout cuentan como fallos del
+ * circuito y se reintentan con espera exponencial y variación aleatoria. Las respuestas
+ * 4xx se devuelven tal cual. Con el circuito abierto las llamadas fallan inmediatamente
+ * con {@code CallNotPermittedException} y no se reintentan.
+ * </p>
+ *
+ * @version 1.0
+ * @since 17 de octubre de 2026
+ */
+public class UpstreamResilienceFilter implements ExchangeFilterFunction {
+
+    private static final double JITTER = 0.5;
+
+    private final CircuitBreaker circuitBreaker;
+    private final Retry reintentos;
+
+    /**
+     * Constructor de la clase {@code UpstreamResilienceFilter}.
+     *
+     * @param circuitBreaker Circuit breaker del servicio remoto.
+     * @param upstream       Configuración de reintentos del servicio remoto.
+     */
+    public UpstreamResilienceFilter(CircuitBreaker circuitBreaker, UpstreamProperties.Upstream upstream) {
+        this.circuitBreaker = circuitBreaker;
+        this.reintentos = Retry.backoff(upstream.getReintentos(), upstream.getBackoff())
+                .jitter(JITTER)
+                .filter(UpstreamResilienceFilter::esTransitorio)
+                .onRetryExhaustedThrow((spec, senal) -> senal.failure());
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        Mono<ClientResponse> llamada = next.exchange(request)
+                .flatMap(respuesta -> respuesta.statusCode().is5xxServerError()
+                        ? respuesta.createException().flatMap(Mono::error)
+                        : Mono.just(respuesta))
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+
+        return HttpMethod.GET.equals(request.method()) ? llamada.retryWhen(reintentos) : llamada;
+    }
+
+    private static boolean esTransitorio(Throwable error) {
+        return error instanceof WebClientRequestException
+                || (error instanceof WebClientResponseException respuesta && respuesta.getStatusCode().is5xxServerError());
+    }
+}
@@ -0,0 +1,77 @@
+package com.viewnext.kidaprojects.apipersonajes.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * La clase {@code VirtualThreadConfig} ejecuta las peticiones HTTP y el trabajo bloqueante
+ * del servicio en hilos virtuales de Java 21 en lugar de en el pool de hilos de plataforma
+ * de Tomcat.
+ *
+ * <p>
+ * Se activa con la propiedad {@code personaje.virtual-threads.enabled=true} y requiere
+ * ejecutar la aplicación en Java 21 o superior (perfil Maven {@code java21}). Las clases
+ * siguen compilándose para Java 17, por lo que el ejecutor de hilos virtuales se obtiene
+ * en tiempo de ejecución. Con hilos virtuales el límite de concurrencia pasa a ser el
+ * pool de conexiones de la base de datos ({@code spring.datasource.hikari.maximum-pool-size}).
+ * </p>
+ *
+ * @version 1.0
+ * @since 17 de octubre de 2026
+ */
+@Configuration
+@ConditionalOnProperty(name = "personaje.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    /**
+     * Hace que Tomcat atienda cada petición en un hilo virtual nuevo.
+     *
+     * @return Un personalizador del conector de Tomcat.
+     */
+    @Bean
+    TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(crearExecutorVirtual());
+    }
+
+    /**
+     * Ejecuta las respuestas asíncronas de Spring MVC (por ejemplo, {@code StreamingResponseBody})
+     * y las tareas {@code @Async} en hilos virtuales.
+     *
+     * @return Un ejecutor de tareas basado en hilos virtuales.
+     */
+    @Bean(name = "applicationTaskExecutor")
+    AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(crearExecutorVirtual());
+    }
+
+    /**
+     * Ejecuta el trabajo bloqueante de JPA de los flujos reactivos en hilos virtuales.
+     *
+     * @return Un planificador de Reactor basado en hilos virtuales.
+     */
+    @Bean(destroyMethod = "dispose")
+    Scheduler jpaScheduler() {
+        return Schedulers.fromExecutorService(crearExecutorVirtual(), "personaje-jpa-virtual");
+    }
+
+    /**
+     * Crea un ejecutor que lanza un hilo virtual por tarea.
+     */
+    private static ExecutorService crearExecutorVirtual() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Los hilos virtuales requieren Java 21 o superior", e);
+        }
+    }
+}
@@ -1,12 +1,41 @@
 package com.viewnext.kidaprojects.apipersonajes.config;
 
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import com.viewnext.kidaprojects.apipersonajes.cache.RecompensaCache;
+import com.viewnext.kidaprojects.apipersonajes.model.OrigenRecompensa;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
 /**
- * La clase {@code WebClientConfig} proporciona configuración para crear un WebClient utilizado
- * para realizar solicitudes HTTP a una API remota.
+ * La clase {@code WebClientConfig} proporciona configuración para crear los WebClient utilizados
+ * para realizar solicitudes HTTP a las APIs remotas de misiones y enemigos.
+ *
+ * <p>
+ * Cada cliente tiene su propio pool de conexiones de Reactor Netty, timeouts de conexión y
+ * de respuesta, reintentos acotados para las peticiones GET y un circuit breaker, todo ello
+ * configurable con las propiedades {@code personaje.upstream.mision.*} y
+ * {@code personaje.upstream.enemigo.*}. Los clientes se crean a partir del
+ * {@code WebClient.Builder} de Spring Boot para conservar su instrumentación, y tanto los
+ * pools como los circuit breakers publican sus métricas.
+ * </p>
  *
  * <p>
  * El autor de esta clase es Víctor Colorado "Kid A".
@@ -16,35 +45,114 @@ import org.springframework.web.reactive.function.client.WebClient;
  * @since 04 de Octubre de 2023
  */
 @Configuration
+@EnableConfigurationProperties(UpstreamProperties.class)
 public class WebClientConfig {
 
-    private static final String BASE_URL_MISION = "http://localhost:8084";
-    private static final String BASE_URL_ENEMIGO = "http://localhost:8083";
+    /**
+     * Crea el registro de circuit breakers de los servicios remotos y publica sus métricas.
+     *
+     * @param meterRegistry Registro de métricas.
+     * @return Un registro de circuit breakers.
+     */
+    @Bean
+    CircuitBreakerRegistry circuitBreakerRegistry(MeterRegistry meterRegistry) {
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.ofDefaults();
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
 
     /**
-     * Crea y configura un WebClient para interactuar con una API remota en la
-     * ubicación especificada por BASE_URL.
+     * Crea y configura un WebClient para interactuar con la API de misiones.
      *
+     * @param builder              Builder de WebClient de Spring Boot.
+     * @param properties           Configuración de los servicios remotos.
+     * @param circuitBreakers      Registro de circuit breakers.
      * @return Un objeto WebClient configurado.
      */
     @Bean
-    WebClient misionWebClient() {
-        String apiUrl = BASE_URL_MISION;
-        return WebClient.create(apiUrl);
+    WebClient misionWebClient(WebClient.Builder builder, UpstreamProperties properties,
+            CircuitBreakerRegistry circuitBreakers) {
+        return crearWebClient("mision", properties.getMision(), builder, circuitBreakers);
     }
-    
-    
 
     /**
-     * Crea y configura un WebClient para interactuar con una API remota en la
-     * ubicación especificada por BASE_URL.
+     * Crea y configura un WebClient para interactuar con la API de enemigos.
      *
+     * @param builder              Builder de WebClient de Spring Boot.
+     * @param properties           Configuración de los servicios remotos.
+     * @param circuitBreakers      Registro de circuit breakers.
      * @return Un objeto WebClient configurado.
      */
     @Bean
-    WebClient enemigoWebClient() {
-        String apiUrl = BASE_URL_ENEMIGO;
-        return WebClient.create(apiUrl);
+    WebClient enemigoWebClient(WebClient.Builder builder, UpstreamProperties properties,
+            CircuitBreakerRegistry circuitBreakers) {
+        return crearWebClient("enemigo", properties.getEnemigo(), builder, circuitBreakers);
+    }
+
+    /**
+     * Crea la caché de valores de recompensas de misiones y enemigos, que obtiene las
+     * recompensas que no tiene a través de {@code misionWebClient} y {@code enemigoWebClient}.
+     *
+     * @param misionWebClient   Cliente web del servicio de misiones.
+     * @param enemigoWebClient  Cliente web del servicio de enemigos.
+     * @param registry          Registro de métricas.
+     * @param activa            Indica si la caché está activa.
+     * @param tamanoMaximo      Número máximo de recompensas en la caché.
+     * @param ttl               Tiempo máximo que una recompensa permanece en la caché.
+     * @return Una caché de recompensas.
+     */
+    @Bean
+    RecompensaCache recompensaCache(WebClient misionWebClient, WebClient enemigoWebClient, MeterRegistry registry,
+            @Value("${personaje.recompensa.cache.enabled:true}") boolean activa,
+            @Value("${personaje.recompensa.cache.max-size:10000}") long tamanoMaximo,
+            @Value("${personaje.recompensa.cache.ttl:5m}") Duration ttl) {
+        IntFunction<Mono<Integer>> recompensaMision = idMision -> misionWebClient.get()
+                .uri("mision/recompensa/{idMision}", idMision)
+                .retrieve()
+                .bodyToMono(Integer.class);
+        IntFunction<Mono<Integer>> recompensaEnemigo = idEnemigo -> enemigoWebClient.get()
+                .uri("enemigo/recompensa/{idEnemigo}", idEnemigo)
+                .retrieve()
+                .bodyToMono(Integer.class);
+
+        return new RecompensaCache(Map.of(OrigenRecompensa.MISION, recompensaMision,
+                OrigenRecompensa.ENEMIGO, recompensaEnemigo), registry, activa, tamanoMaximo, ttl);
+    }
+
+    /**
+     * Crea un WebClient con pool de conexiones propio, timeouts, reintentos y circuit breaker.
+     *
+     * @param nombre           Nombre del servicio remoto, usado en el pool y el circuit breaker.
+     * @param upstream         Configuración del servicio remoto.
+     * @param builder          Builder de WebClient de Spring Boot.
+     * @param circuitBreakers  Registro de circuit breakers.
+     * @return Un objeto WebClient configurado.
+     */
+    static WebClient crearWebClient(String nombre, UpstreamProperties.Upstream upstream, WebClient.Builder builder,
+            CircuitBreakerRegistry circuitBreakers) {
+        ConnectionProvider pool = ConnectionProvider.builder(nombre)
+                .maxConnections(upstream.getMaxConnections())
+                .pendingAcquireMaxCount(upstream.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(upstream.getPendingAcquireTimeout())
+                .metrics(true)
+                .build();
+
+        HttpClient httpClient = HttpClient.create(pool)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) upstream.getConnectTimeout().toMillis())
+                .responseTimeout(upstream.getResponseTimeout());
+
+        CircuitBreaker circuitBreaker = circuitBreakers.circuitBreaker(nombre, CircuitBreakerConfig.custom()
+                .failureRateThreshold(upstream.getUmbralFallos())
+                .slidingWindowSize(upstream.getVentanaLlamadas())
+                .minimumNumberOfCalls(upstream.getVentanaLlamadas())
+                .waitDurationInOpenState(upstream.getEsperaCircuitoAbierto())
+                .build());
+
+        return builder.clone()
+                .baseUrl(upstream.getBaseUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(new UpstreamResilienceFilter(circuitBreaker, upstream))
+                .build();
     }
-    
+
 }
@@ -0,0 +1,27 @@
+package com.viewnext.kidaprojects.apipersonajes.memoria;
+
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+
+/**
+ * Recibe las escrituras del motor en memoria como imágenes completas de fila o borrados,
+ * en el orden en que se aplicaron a cada fila.
+ *
+ * @version 1.0
+ * @since 18 de octubre de 2026
+ */
+public interface OyenteEscrituras {
+
+	/**
+	 * Recibe la imagen de una fila.
+	 *
+	 * @param personaje El personaje, con su ID y su versión.
+	 */
+	void fila(Personaje personaje);
+
+	/**
+	 * Recibe el borrado de una fila.
+	 *
+	 * @param idPersonaje El ID del personaje eliminado.
+	 */
+	void borrado(int idPersonaje);
+}
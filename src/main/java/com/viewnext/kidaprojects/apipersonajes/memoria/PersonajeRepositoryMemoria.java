@@ -0,0 +1,868 @@
+package com.viewnext.kidaprojects.apipersonajes.memoria;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.unit.DataSize;
+
+import com.viewnext.kidaprojects.apipersonajes.binario.PersonajeBinario;
+import com.viewnext.kidaprojects.apipersonajes.model.HuellaPersonajes;
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.model.VersionPersonaje;
+import com.viewnext.kidaprojects.apipersonajes.repository.AlmacenPersonajes;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * La clase {@code PersonajeRepositoryMemoria} es un motor de almacenamiento en memoria
+ * para {@code Personaje}, alternativo a JPA, que se activa con el perfil {@code memoria}.
+ *
+ * <p>
+ * Los personajes no se guardan como objetos sino por columnas: cada campo es un array de
+ * tipos primitivos y el ID es directamente la posición en esos arrays. Los arrays se
+ * reparten en páginas de tamaño fijo que nunca se mueven, de modo que crecer no obliga a
+ * copiar ni a bloquear la tabla. Solo se crea un {@code Personaje} al devolverlo.
+ * </p>
+ *
+ * <p>
+ * Cada fila se protege con uno de los cerrojos de un array de cerrojos (striping). Toda
+ * lectura o escritura de una fila la hace con su cerrojo, por lo que nunca se ve una fila
+ * a medias; las operaciones de varias filas bloquean sus cerrojos en orden. Igual que las
+ * sentencias UPDATE de {@code PersonajeRepository}, cada escritura incrementa la versión
+ * de la fila, y {@code save} falla por bloqueo optimista si la versión del personaje no
+ * es la guardada.
+ * </p>
+ *
+ * <p>
+ * Al arrancar se cargan los personajes del fichero {@code personaje.memoria.snapshot}, en
+ * el formato de {@code PersonajeBinario}, si existe.
+ * </p>
+ *
+ * <p>
+ * Si se configura {@code personaje.memoria.wal.directorio}, los datos son durables: cada
+ * escritura añade la imagen de la fila a un {@code RegistroEscrituras} mientras tiene su
+ * cerrojo, y no se devuelve hasta que el registro está en disco. Cada
+ * {@code personaje.memoria.snapshot.intervalo} se hace un checkpoint que guarda todas las
+ * filas y descarta el registro anterior, de modo que arrancar es cargar el último snapshot
+ * y aplicar solo el registro posterior.
+ * </p>
+ *
+ * @version 1.0
+ * @since 18 de octubre de 2026
+ */
+@Repository
+@Profile("memoria")
+public class PersonajeRepositoryMemoria implements AlmacenPersonajes {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PersonajeRepositoryMemoria.class);
+
+	private static final int NUM_CERROJOS = 64;
+	private static final int BITS_PAGINA = 12;
+	private static final int TAMANO_PAGINA = 1 << BITS_PAGINA;
+
+	private final ReentrantLock[] cerrojos = new ReentrantLock[NUM_CERROJOS];
+	private final AtomicInteger ultimoId = new AtomicInteger();
+	private final AtomicInteger filas = new AtomicInteger();
+	private volatile Pagina[] paginas = new Pagina[0];
+
+	private final Object cerrojoCheckpoint = new Object();
+	private final Timer tiempoSnapshot;
+	private RegistroEscrituras registro;
+	private volatile OyenteEscrituras oyente;
+
+	/**
+	 * Constructor de la clase {@code PersonajeRepositoryMemoria}.
+	 *
+	 * @param snapshot       Fichero del que se cargan los personajes al arrancar; vacío para empezar sin personajes.
+	 *                       Si hay registro de escrituras, solo se usa mientras el registro no tenga snapshot propio.
+	 * @param directorioWal  Directorio del registro de escrituras; vacío para no guardar nada en disco.
+	 * @param tamanoSegmento Tamaño de cada segmento del registro de escrituras.
+	 * @param registry       Registro de métricas.
+	 */
+	public PersonajeRepositoryMemoria(@Value("${personaje.memoria.snapshot:}") String snapshot,
+			@Value("${personaje.memoria.wal.directorio:}") String directorioWal,
+			@Value("${personaje.memoria.wal.tamano-segmento:64MB}") DataSize tamanoSegmento,
+			MeterRegistry registry) {
+		for (int i = 0; i < NUM_CERROJOS; i++) {
+			cerrojos[i] = new ReentrantLock();
+		}
+		this.tiempoSnapshot = Timer.builder("personaje.wal.snapshot")
+				.description("Duración de cada checkpoint del motor en memoria")
+				.register(registry);
+
+		if (directorioWal.isBlank()) {
+			if (!snapshot.isBlank()) {
+				cargarSnapshot(Path.of(snapshot));
+			}
+			return;
+		}
+
+		long inicio = System.nanoTime();
+		RegistroEscrituras wal = new RegistroEscrituras(Path.of(directorioWal), (int) tamanoSegmento.toBytes(),
+				registry);
+		Optional<Path> ultimoSnapshot = wal.snapshot();
+
+		if (ultimoSnapshot.isPresent()) {
+			cargarSnapshot(ultimoSnapshot.get());
+		} else if (!snapshot.isBlank()) {
+			cargarSnapshot(Path.of(snapshot));
+		}
+
+		// Las filas recuperadas no se vuelven a registrar: el registro se asigna después
+		long aplicados = wal.recuperar(new OyenteEscrituras() {
+			@Override
+			public void fila(Personaje personaje) {
+				insertar(personaje.getIdPersonaje(), personaje, personaje.getVersion());
+				ultimoId.accumulateAndGet(personaje.getIdPersonaje(), Math::max);
+			}
+
+			@Override
+			public void borrado(int idPersonaje) {
+				deleteById(idPersonaje);
+			}
+		});
+		registro = wal;
+
+		long nanos = System.nanoTime() - inicio;
+		Timer.builder("personaje.wal.recuperacion")
+				.description("Duración de la recuperación del motor en memoria al arrancar")
+				.register(registry)
+				.record(nanos, TimeUnit.NANOSECONDS);
+		LOGGER.info("Recuperados {} personajes ({} registros de escrituras) en {} ms", filas.get(), aplicados,
+				TimeUnit.NANOSECONDS.toMillis(nanos));
+
+		// El primer arranque con registro guarda su propio snapshot y deja de depender del inicial
+		if (ultimoSnapshot.isEmpty()) {
+			checkpoint();
+		}
+	}
+
+	/**
+	 * Hace un checkpoint: empieza un segmento nuevo del registro de escrituras, guarda todas
+	 * las filas en un snapshot y, cuando el snapshot está en disco, elimina el registro
+	 * anterior. Las escrituras continúan mientras se guarda el snapshot; las que no llegue a
+	 * ver están en el segmento nuevo.
+	 *
+	 * @return El fichero del snapshot.
+	 * @throws IllegalStateException Si no hay registro de escrituras.
+	 */
+	public Path checkpoint() {
+		if (registro == null) {
+			throw new IllegalStateException("El registro de escrituras no está activado");
+		}
+
+		synchronized (cerrojoCheckpoint) {
+			return escribirCheckpoint();
+		}
+	}
+
+	private Path escribirCheckpoint() {
+		long inicio = System.nanoTime();
+		Path destino = registro.iniciarCheckpoint();
+		Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+
+		try (FileOutputStream salida = new FileOutputStream(temporal.toFile())) {
+			try (PersonajeBinario.Escritor escritor = PersonajeBinario.escritor(salida)) {
+				recorrer(false, personaje -> {
+					try {
+						escritor.escribir(personaje);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			}
+			salida.getFD().sync();
+			Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new UncheckedIOException("No se puede escribir el snapshot " + destino, e);
+		}
+
+		registro.completarCheckpoint(destino);
+		tiempoSnapshot.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+		return destino;
+	}
+
+	/**
+	 * Registra un oyente que recibe cada escritura, con el cerrojo de la fila, a partir de
+	 * este momento. Las filas recuperadas al arrancar no se le envían.
+	 *
+	 * @param oyente El oyente, o {@code null} para dejar de enviar escrituras.
+	 */
+	public void setOyente(OyenteEscrituras oyente) {
+		this.oyente = oyente;
+	}
+
+	/**
+	 * Envía al oyente el estado actual de un personaje, como imagen de fila si existe o como
+	 * borrado si no, con el cerrojo de la fila para que no se adelante a otra escritura.
+	 *
+	 * @param idPersonaje El ID del personaje.
+	 */
+	public void reenviar(int idPersonaje) {
+		OyenteEscrituras actual = oyente;
+		if (actual == null) {
+			return;
+		}
+
+		Pagina pagina = pagina(idPersonaje);
+		int fila = idPersonaje & (TAMANO_PAGINA - 1);
+		ReentrantLock cerrojo = cerrojo(idPersonaje);
+		cerrojo.lock();
+		try {
+			if (pagina != null && pagina.presente[fila]) {
+				actual.fila(pagina.leer(fila, idPersonaje));
+			} else {
+				actual.borrado(idPersonaje);
+			}
+		} finally {
+			cerrojo.unlock();
+		}
+	}
+
+	/**
+	 * Hace un checkpoint periódico si hay registro de escrituras.
+	 */
+	@Scheduled(fixedDelayString = "${personaje.memoria.snapshot.intervalo:PT5M}",
+			initialDelayString = "${personaje.memoria.snapshot.intervalo:PT5M}")
+	public void checkpointPeriodico() {
+		if (registro != null) {
+			checkpoint();
+		}
+	}
+
+	/**
+	 * Lleva a disco lo pendiente del registro de escrituras al parar.
+	 */
+	@PreDestroy
+	public void cerrar() {
+		if (registro != null) {
+			registro.close();
+		}
+	}
+
+	/**
+	 * Carga los personajes de un fichero de {@code PersonajeBinario} conservando sus IDs y versiones.
+	 *
+	 * @param fichero El fichero a cargar; si no existe no se carga nada.
+	 * @return Número de personajes cargados.
+	 */
+	public long cargarSnapshot(Path fichero) {
+		if (!Files.exists(fichero)) {
+			LOGGER.info("No existe el snapshot {}; se arranca sin personajes", fichero);
+			return 0;
+		}
+
+		long inicio = System.currentTimeMillis();
+		long cargados = 0;
+
+		try (InputStream entrada = Files.newInputStream(fichero)) {
+			PersonajeBinario.Lector lector = PersonajeBinario.lector(entrada);
+			for (Personaje personaje = lector.leer(); personaje != null; personaje = lector.leer()) {
+				insertar(personaje.getIdPersonaje(), personaje, personaje.getVersion());
+				ultimoId.accumulateAndGet(personaje.getIdPersonaje(), Math::max);
+				cargados++;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("No se puede cargar el snapshot " + fichero, e);
+		}
+
+		LOGGER.info("Cargados {} personajes de {} en {} ms", cargados, fichero, System.currentTimeMillis() - inicio);
+		return cargados;
+	}
+
+	// --- Consultas de AlmacenPersonajes ---
+
+	@Override
+	public Optional<Personaje> findById(Integer idPersonaje) {
+		return Optional.ofNullable(leer(idPersonaje));
+	}
+
+	/**
+	 * Indica si existe un personaje.
+	 *
+	 * @param idPersonaje El ID del personaje.
+	 * @return {@code true} si existe.
+	 */
+	public boolean existsById(Integer idPersonaje) {
+		return leer(idPersonaje) != null;
+	}
+
+	@Override
+	public List<Personaje> findAll() {
+		return buscar(0, Integer.MAX_VALUE, p -> true);
+	}
+
+	/**
+	 * Cuenta los personajes guardados.
+	 *
+	 * @return Número de personajes.
+	 */
+	public long count() {
+		return filas.get();
+	}
+
+	@Override
+	public List<Personaje> findPersonajesActivos() {
+		return buscar(0, Integer.MAX_VALUE, Personaje::isActivo);
+	}
+
+	@Override
+	public List<Personaje> findPersonajesDesde(int after, Pageable pageable) {
+		return buscar(after, pageable.getPageSize(), p -> true);
+	}
+
+	@Override
+	public List<Personaje> findPersonajesActivosDesde(int after, Pageable pageable) {
+		return buscar(after, pageable.getPageSize(), Personaje::isActivo);
+	}
+
+	@Override
+	public Optional<VersionPersonaje> findVersionPersonaje(int idPersonaje) {
+		Pagina pagina = pagina(idPersonaje);
+		if (pagina == null) {
+			return Optional.empty();
+		}
+
+		int fila = idPersonaje & (TAMANO_PAGINA - 1);
+		ReentrantLock cerrojo = cerrojo(idPersonaje);
+		cerrojo.lock();
+		try {
+			return pagina.presente[fila]
+					? Optional.of(new VersionPersonaje(pagina.version[fila], pagina.vidaActual[fila]))
+					: Optional.empty();
+		} finally {
+			cerrojo.unlock();
+		}
+	}
+
+	@Override
+	public int findMaxIdPersonaje() {
+		for (int id = ultimoId.get(); id > 0; id--) {
+			if (existsById(id)) {
+				return id;
+			}
+		}
+		return 0;
+	}
+
+	// --- Escrituras de AlmacenPersonajes ---
+
+	@Override
+	public int aplicarDamage(int idPersonaje, int damage) {
+		return modificar(idPersonaje, damage(damage));
+	}
+
+	@Override
+	public int aplicarExperiencia(int idPersonaje, int experiencia) {
+		return modificar(idPersonaje, (pagina, fila) -> {
+			int total = pagina.experiencia[fila] + experiencia;
+			int niveles = total / 1000;
+
+			pagina.nivel[fila] += niveles;
+			pagina.fuerzaActual[fila] += 10 * niveles;
+			pagina.defensaActual[fila] += 10 * niveles;
+			pagina.vidaTotal[fila] += 100 * niveles;
+			pagina.experiencia[fila] = total % 1000;
+		});
+	}
+
+	@Override
+	public int reiniciarTodos() {
+		return reiniciarRango(0, Integer.MAX_VALUE);
+	}
+
+	@Override
+	public int reiniciarRango(int desde, int hasta) {
+		int reiniciados = 0;
+		long posicion = 0;
+		int limite = (int) Math.min(hasta, (long) ultimoId.get());
+
+		for (long id = (long) desde + 1; id <= limite; id++) {
+			long escrita = modificarSinConfirmar((int) id, (pagina, fila) -> {
+				pagina.activo[fila] = true;
+				pagina.experiencia[fila] = 0;
+				pagina.nivel[fila] = 1;
+				pagina.vidaActual[fila] = pagina.vidaOriginal[fila];
+			});
+			if (escrita >= 0) {
+				reiniciados++;
+				posicion = Math.max(posicion, escrita);
+			}
+		}
+		confirmar(posicion);
+		return reiniciados;
+	}
+
+	/**
+	 * Guarda un personaje. Si no tiene ID, o su ID no existe, se inserta con un ID nuevo; si
+	 * existe, se sobrescribe solo si su versión es la guardada.
+	 *
+	 * @throws ObjectOptimisticLockingFailureException Si el personaje se ha modificado desde que se leyó.
+	 */
+	@Override
+	public <S extends Personaje> S save(S personaje) {
+		int idPersonaje = personaje.getIdPersonaje();
+		Pagina pagina = pagina(idPersonaje);
+
+		if (pagina != null) {
+			int fila = idPersonaje & (TAMANO_PAGINA - 1);
+			long posicion = -1;
+			ReentrantLock cerrojo = cerrojo(idPersonaje);
+			cerrojo.lock();
+			try {
+				if (pagina.presente[fila]) {
+					if (pagina.version[fila] != personaje.getVersion()) {
+						throw new ObjectOptimisticLockingFailureException(Personaje.class, idPersonaje);
+					}
+					pagina.escribir(fila, personaje, personaje.getVersion() + 1);
+					personaje.setVersion(personaje.getVersion() + 1);
+					posicion = registrar(pagina, fila, idPersonaje);
+				}
+			} finally {
+				cerrojo.unlock();
+			}
+
+			if (posicion >= 0) {
+				confirmar(posicion);
+				return personaje;
+			}
+		}
+
+		int nuevoId = ultimoId.incrementAndGet();
+		confirmar(insertar(nuevoId, personaje, 0));
+		personaje.setIdPersonaje(nuevoId);
+		personaje.setVersion(0);
+		return personaje;
+	}
+
+	@Override
+	public <S extends Personaje> List<S> saveAll(Iterable<S> personajes) {
+		List<S> guardados = new ArrayList<>();
+		personajes.forEach(p -> guardados.add(save(p)));
+		return guardados;
+	}
+
+	/**
+	 * Borra un personaje, si existe.
+	 *
+	 * @param idPersonaje El ID del personaje.
+	 */
+	public void deleteById(Integer idPersonaje) {
+		Pagina pagina = pagina(idPersonaje);
+		if (pagina == null) {
+			return;
+		}
+
+		int fila = idPersonaje & (TAMANO_PAGINA - 1);
+		long posicion = 0;
+		ReentrantLock cerrojo = cerrojo(idPersonaje);
+		cerrojo.lock();
+		try {
+			if (pagina.presente[fila]) {
+				pagina.presente[fila] = false;
+				pagina.nombre[fila] = null;
+				filas.decrementAndGet();
+				OyenteEscrituras actual = oyente;
+				if (actual != null) {
+					actual.borrado(idPersonaje);
+				}
+				if (registro != null) {
+					posicion = registro.anadirBorrado(idPersonaje);
+				}
+			}
+		} finally {
+			cerrojo.unlock();
+		}
+		confirmar(posicion);
+	}
+
+	// --- Operaciones de PersonajeRepositoryCustom ---
+
+	/**
+	 * Bloquea los cerrojos de todos los personajes afectados, en orden, y aplica el daño de
+	 * cada uno, de modo que el lote se ve entero o no se ve. Con registro de escrituras, se
+	 * espera una sola vez a que el lote entero esté en disco, después de liberar los cerrojos.
+	 */
+	@Override
+	public List<Personaje> aplicarDamageLote(Map<Integer, Integer> damagePorId) {
+		Set<Integer> indices = new TreeSet<>();
+		damagePorId.keySet().forEach(id -> indices.add(Math.floorMod(id, NUM_CERROJOS)));
+		List<Personaje> personajes = new ArrayList<>();
+		long posicion = 0;
+		indices.forEach(i -> cerrojos[i].lock());
+
+		try {
+			for (Map.Entry<Integer, Integer> golpe : damagePorId.entrySet()) {
+				long escrita = modificarSinConfirmar(golpe.getKey(), damage(golpe.getValue()));
+				if (escrita >= 0) {
+					posicion = Math.max(posicion, escrita);
+					personajes.add(leer(golpe.getKey()));
+				}
+			}
+		} finally {
+			indices.forEach(i -> cerrojos[i].unlock());
+		}
+
+		confirmar(posicion);
+		personajes.sort(Comparator.comparingInt(Personaje::getIdPersonaje));
+		return personajes;
+	}
+
+	@Override
+	public void recorrer(boolean soloActivos, Consumer<Personaje> consumidor) {
+		for (int id = 1; id <= ultimoId.get(); id++) {
+			Personaje personaje = leer(id);
+			if (personaje != null && (!soloActivos || personaje.isActivo())) {
+				consumidor.accept(personaje);
+			}
+		}
+	}
+
+	@Override
+	public int insertarLote(List<Personaje> personajes) {
+		long posicion = 0;
+		for (Personaje personaje : personajes) {
+			posicion = Math.max(posicion, insertar(ultimoId.incrementAndGet(), personaje, 0));
+		}
+		confirmar(posicion);
+		return personajes.size();
+	}
+
+	@Override
+	public List<Map<String, Object>> proyectarActivos(List<String> campos, int after, Pageable pageable) {
+		Set<String> seleccion = new LinkedHashSet<>();
+		seleccion.add("idPersonaje");
+
+		for (String campo : campos) {
+			if (!CAMPOS_PROYECTABLES.contains(campo)) {
+				throw new IllegalArgumentException("Campo no proyectable: " + campo);
+			}
+			seleccion.add(campo);
+		}
+
+		List<Map<String, Object>> resultado = new ArrayList<>();
+		for (Personaje personaje : buscar(after, pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE,
+				Personaje::isActivo)) {
+			Map<String, Object> fila = new LinkedHashMap<>();
+			for (String campo : seleccion) {
+				fila.put(campo, campo(personaje, campo));
+			}
+			resultado.add(fila);
+		}
+		return resultado;
+	}
+
+	@Override
+	public long huella(boolean soloActivos) {
+		long huella = HuellaPersonajes.INICIAL;
+
+		for (int id = 1; id <= ultimoId.get(); id++) {
+			Pagina pagina = pagina(id);
+			int fila = id & (TAMANO_PAGINA - 1);
+			ReentrantLock cerrojo = cerrojo(id);
+			cerrojo.lock();
+			try {
+				if (pagina == null || !pagina.presente[fila] || (soloActivos && !pagina.activo[fila])) {
+					continue;
+				}
+				huella = HuellaPersonajes.combinar(huella, id, pagina.version[fila]);
+			} finally {
+				cerrojo.unlock();
+			}
+		}
+		return huella;
+	}
+
+	// --- Almacenamiento por columnas ---
+
+	/**
+	 * Lee un personaje con su cerrojo.
+	 *
+	 * @return El personaje, o {@code null} si no existe.
+	 */
+	private Personaje leer(Integer idPersonaje) {
+		if (idPersonaje == null) {
+			return null;
+		}
+
+		Pagina pagina = pagina(idPersonaje);
+		if (pagina == null) {
+			return null;
+		}
+
+		int fila = idPersonaje & (TAMANO_PAGINA - 1);
+		ReentrantLock cerrojo = cerrojo(idPersonaje);
+		cerrojo.lock();
+		try {
+			return pagina.presente[fila] ? pagina.leer(fila, idPersonaje) : null;
+		} finally {
+			cerrojo.unlock();
+		}
+	}
+
+	/**
+	 * Recorre los personajes con ID mayor que {@code after}, en orden, hasta reunir
+	 * {@code limite} que cumplan el filtro.
+	 */
+	private List<Personaje> buscar(int after, int limite, Predicate<Personaje> filtro) {
+		List<Personaje> personajes = new ArrayList<>();
+
+		for (int id = Math.max(after, 0) + 1; id <= ultimoId.get() && personajes.size() < limite; id++) {
+			Personaje personaje = leer(id);
+			if (personaje != null && filtro.test(personaje)) {
+				personajes.add(personaje);
+			}
+		}
+		return personajes;
+	}
+
+	/**
+	 * Modifica una fila existente y espera a que la escritura sea durable.
+	 *
+	 * @return 1 si el personaje existe, 0 si no.
+	 */
+	private int modificar(int idPersonaje, Modificacion modificacion) {
+		long posicion = modificarSinConfirmar(idPersonaje, modificacion);
+		if (posicion < 0) {
+			return 0;
+		}
+
+		confirmar(posicion);
+		return 1;
+	}
+
+	/**
+	 * Modifica una fila existente con su cerrojo, incrementa su versión y la añade al
+	 * registro de escrituras sin esperar a que llegue a disco.
+	 *
+	 * @return Posición del registro que hay que confirmar, o -1 si el personaje no existe.
+	 */
+	private long modificarSinConfirmar(int idPersonaje, Modificacion modificacion) {
+		Pagina pagina = pagina(idPersonaje);
+		if (pagina == null) {
+			return -1;
+		}
+
+		int fila = idPersonaje & (TAMANO_PAGINA - 1);
+		ReentrantLock cerrojo = cerrojo(idPersonaje);
+		cerrojo.lock();
+		try {
+			if (!pagina.presente[fila]) {
+				return -1;
+			}
+			pagina.version[fila]++;
+			modificacion.aplicar(pagina, fila);
+			return registrar(pagina, fila, idPersonaje);
+		} finally {
+			cerrojo.unlock();
+		}
+	}
+
+	/**
+	 * Añade la imagen de una fila al registro de escrituras y la envía al oyente. Se llama
+	 * con el cerrojo de la fila, así que el orden en que se registran es el orden en que se
+	 * modificó la fila.
+	 *
+	 * @return Posición del registro que hay que confirmar, o 0 si no hay registro.
+	 */
+	private long registrar(Pagina pagina, int fila, int idPersonaje) {
+		OyenteEscrituras actual = oyente;
+		if (registro == null && actual == null) {
+			return 0;
+		}
+
+		Personaje imagen = pagina.leer(fila, idPersonaje);
+		if (actual != null) {
+			actual.fila(imagen);
+		}
+		return registro == null ? 0 : registro.anadirFila(imagen);
+	}
+
+	/**
+	 * Espera a que el registro de escrituras esté en disco hasta la posición indicada.
+	 */
+	private void confirmar(long posicion) {
+		if (registro != null && posicion > 0) {
+			registro.esperar(posicion);
+		}
+	}
+
+	private static Modificacion damage(int damage) {
+		return (pagina, fila) -> {
+			if (pagina.vidaActual[fila] - damage <= 0) {
+				pagina.activo[fila] = false;
+			}
+			pagina.vidaActual[fila] -= damage;
+		};
+	}
+
+	/**
+	 * Escribe un personaje nuevo en la fila de su ID, creando la página si hace falta.
+	 *
+	 * @return Posición del registro de escrituras que hay que confirmar, o 0 si no hay registro.
+	 */
+	private long insertar(int idPersonaje, Personaje personaje, long version) {
+		if (idPersonaje <= 0) {
+			throw new IllegalArgumentException("ID de personaje no válido: " + idPersonaje);
+		}
+
+		Pagina pagina = reservar(idPersonaje);
+		int fila = idPersonaje & (TAMANO_PAGINA - 1);
+		ReentrantLock cerrojo = cerrojo(idPersonaje);
+		cerrojo.lock();
+		try {
+			if (!pagina.presente[fila]) {
+				filas.incrementAndGet();
+			}
+			pagina.escribir(fila, personaje, version);
+			pagina.presente[fila] = true;
+			return registrar(pagina, fila, idPersonaje);
+		} finally {
+			cerrojo.unlock();
+		}
+	}
+
+	private Pagina pagina(int idPersonaje) {
+		if (idPersonaje <= 0) {
+			return null;
+		}
+
+		Pagina[] actuales = paginas;
+		int indice = idPersonaje >>> BITS_PAGINA;
+		return indice < actuales.length ? actuales[indice] : null;
+	}
+
+	/**
+	 * Devuelve la página de un ID creándola, junto con las anteriores, si no existe. Las
+	 * páginas existentes se reutilizan, por lo que las filas nunca cambian de sitio.
+	 */
+	private synchronized Pagina reservar(int idPersonaje) {
+		int indice = idPersonaje >>> BITS_PAGINA;
+		Pagina[] actuales = paginas;
+
+		if (indice >= actuales.length) {
+			Pagina[] nuevas = Arrays.copyOf(actuales, Math.max(indice + 1, actuales.length * 2));
+			for (int i = actuales.length; i < nuevas.length; i++) {
+				nuevas[i] = new Pagina();
+			}
+			paginas = nuevas;
+			actuales = nuevas;
+		}
+		return actuales[indice];
+	}
+
+	private ReentrantLock cerrojo(int idPersonaje) {
+		return cerrojos[Math.floorMod(idPersonaje, NUM_CERROJOS)];
+	}
+
+	private static Object campo(Personaje personaje, String campo) {
+		return switch (campo) {
+		case "idPersonaje" -> personaje.getIdPersonaje();
+		case "nombre" -> personaje.getNombre();
+		case "fuerzaOriginal" -> personaje.getFuerzaOriginal();
+		case "fuerzaActual" -> personaje.getFuerzaActual();
+		case "defensaOriginal" -> personaje.getDefensaOriginal();
+		case "defensaActual" -> personaje.getDefensaActual();
+		case "nivel" -> personaje.getNivel();
+		case "vidaOriginal" -> personaje.getVidaOriginal();
+		case "vidaTotal" -> personaje.getVidaTotal();
+		case "vidaActual" -> personaje.getVidaActual();
+		case "experiencia" -> personaje.getExperiencia();
+		case "activo" -> personaje.isActivo();
+		case "version" -> personaje.getVersion();
+		default -> throw new IllegalArgumentException("Campo no proyectable: " + campo);
+		};
+	}
+
+	/**
+	 * Modificación de una fila existente.
+	 */
+	@FunctionalInterface
+	private interface Modificacion {
+		void aplicar(Pagina pagina, int fila);
+	}
+
+	/**
+	 * Bloque de {@code TAMANO_PAGINA} filas, con un array por campo.
+	 */
+	private static final class Pagina {
+
+		final boolean[] presente = new boolean[TAMANO_PAGINA];
+		final String[] nombre = new String[TAMANO_PAGINA];
+		final int[] fuerzaOriginal = new int[TAMANO_PAGINA];
+		final int[] fuerzaActual = new int[TAMANO_PAGINA];
+		final int[] defensaOriginal = new int[TAMANO_PAGINA];
+		final int[] defensaActual = new int[TAMANO_PAGINA];
+		final int[] nivel = new int[TAMANO_PAGINA];
+		final int[] vidaOriginal = new int[TAMANO_PAGINA];
+		final int[] vidaTotal = new int[TAMANO_PAGINA];
+		final int[] vidaActual = new int[TAMANO_PAGINA];
+		final int[] experiencia = new int[TAMANO_PAGINA];
+		final boolean[] activo = new boolean[TAMANO_PAGINA];
+		final long[] version = new long[TAMANO_PAGINA];
+
+		Personaje leer(int fila, int idPersonaje) {
+			Personaje personaje = new Personaje();
+
+			personaje.setIdPersonaje(idPersonaje);
+			personaje.setNombre(nombre[fila]);
+			personaje.setFuerzaOriginal(fuerzaOriginal[fila]);
+			personaje.setFuerzaActual(fuerzaActual[fila]);
+			personaje.setDefensaOriginal(defensaOriginal[fila]);
+			personaje.setDefensaActual(defensaActual[fila]);
+			personaje.setNivel(nivel[fila]);
+			personaje.setVidaOriginal(vidaOriginal[fila]);
+			personaje.setVidaTotal(vidaTotal[fila]);
+			personaje.setVidaActual(vidaActual[fila]);
+			personaje.setExperiencia(experiencia[fila]);
+			personaje.setActivo(activo[fila]);
+			personaje.setVersion(version[fila]);
+			return personaje;
+		}
+
+		void escribir(int fila, Personaje personaje, long nuevaVersion) {
+			nombre[fila] = personaje.getNombre();
+			fuerzaOriginal[fila] = personaje.getFuerzaOriginal();
+			fuerzaActual[fila] = personaje.getFuerzaActual();
+			defensaOriginal[fila] = personaje.getDefensaOriginal();
+			defensaActual[fila] = personaje.getDefensaActual();
+			nivel[fila] = personaje.getNivel();
+			vidaOriginal[fila] = personaje.getVidaOriginal();
+			vidaTotal[fila] = personaje.getVidaTotal();
+			vidaActual[fila] = personaje.getVidaActual();
+			experiencia[fila] = personaje.getExperiencia();
+			activo[fila] = personaje.isActivo();
+			version[fila] = nuevaVersion;
+		}
+	}
+}
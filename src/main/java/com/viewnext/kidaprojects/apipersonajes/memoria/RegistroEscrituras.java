@@ -0,0 +1,565 @@
+package com.viewnext.kidaprojects.apipersonajes.memoria;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * La clase {@code RegistroEscrituras} es el registro de escrituras anticipadas (WAL) del
+ * motor en memoria. Cada escritura de {@code PersonajeRepositoryMemoria} añade la imagen
+ * completa de la fila modificada, y la escritura no se confirma a quien la pidió hasta que
+ * el registro está en disco.
+ *
+ * <p>
+ * El registro se divide en segmentos de tamaño fijo ({@code wal-<número>.log}) que se
+ * escriben a través de un {@code MappedByteBuffer}. Añadir un registro es copiar bytes en
+ * memoria; un único hilo llama a {@code force()} para llevarlos a disco y despierta a
+ * todos los que esperaban por bytes ya forzados (group commit). Mientras dura un
+ * {@code force()} se acumulan las escrituras siguientes, que se fuerzan juntas en el
+ * siguiente.
+ * </p>
+ *
+ * <p>
+ * Formato de cada registro: longitud del contenido (int), CRC32C del contenido (int) y el
+ * contenido: tipo (1 byte) e ID, y en las filas los campos enteros, la versión, el estado
+ * y el nombre en UTF-8 precedido de su longitud (-1 si es null). Una longitud 0 marca el
+ * final de los datos del segmento. Al recuperar, la lectura se detiene en el primer
+ * registro incompleto o con CRC incorrecto, que nunca se llegó a confirmar, y se marca ahí
+ * el final del segmento.
+ * </p>
+ *
+ * <p>
+ * Un checkpoint empieza un segmento nuevo {@code N} y guarda todas las filas en
+ * {@code snapshot-<N>.pjb}. Como las imágenes de fila se pueden aplicar varias veces sin
+ * cambiar el resultado, basta cargar el último snapshot y aplicar los segmentos desde
+ * {@code N}, aunque el snapshot se escribiera mientras llegaban escrituras.
+ * </p>
+ *
+ * @version 1.0
+ * @since 18 de octubre de 2026
+ */
+public class RegistroEscrituras implements AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RegistroEscrituras.class);
+
+	private static final Pattern SEGMENTO = Pattern.compile("wal-(\\d+)\\.log");
+	private static final Pattern SNAPSHOT = Pattern.compile("snapshot-(\\d+)\\.pjb");
+	private static final int CABECERA = 8;
+	private static final byte FILA = 1;
+	private static final byte BORRADO = 2;
+
+	private final Path directorio;
+	private final int tamanoSegmento;
+
+	private Segmento actual;
+	private long escrito;
+	private long registros;
+
+	private final Object durabilidad = new Object();
+	private long durable;
+	private long registrosDurables;
+	private long solicitado;
+	private RuntimeException fallo;
+	private boolean cerrado;
+	private Thread hiloForce;
+
+	private final Counter registrosAnadidos;
+	private final Timer tiempoForce;
+	private final DistributionSummary registrosPorForce;
+
+	/**
+	 * Constructor de la clase {@code RegistroEscrituras}. No escribe nada hasta llamar a
+	 * {@link #recuperar(OyenteEscrituras)}.
+	 *
+	 * @param directorio     Directorio de los segmentos y los snapshots; se crea si no existe.
+	 * @param tamanoSegmento Tamaño de cada segmento en bytes.
+	 * @param registry       Registro de métricas.
+	 */
+	public RegistroEscrituras(Path directorio, int tamanoSegmento, MeterRegistry registry) {
+		this.directorio = directorio;
+		this.tamanoSegmento = tamanoSegmento;
+
+		try {
+			Files.createDirectories(directorio);
+		} catch (IOException e) {
+			throw new UncheckedIOException("No se puede crear el directorio del registro " + directorio, e);
+		}
+
+		this.registrosAnadidos = Counter.builder("personaje.wal.registros")
+				.description("Registros añadidos al registro de escrituras")
+				.register(registry);
+		this.tiempoForce = Timer.builder("personaje.wal.force")
+				.description("Latencia de cada force() del registro de escrituras")
+				.register(registry);
+		this.registrosPorForce = DistributionSummary.builder("personaje.wal.force.registros")
+				.description("Registros llevados a disco en cada force() (group commit)")
+				.register(registry);
+		Gauge.builder("personaje.wal.pendiente.bytes", this, RegistroEscrituras::bytesPendientes)
+				.description("Bytes añadidos al registro que todavía no están en disco")
+				.register(registry);
+	}
+
+	/**
+	 * Obtiene el snapshot más reciente del directorio.
+	 *
+	 * @return El fichero del snapshot, o vacío si no hay ninguno.
+	 */
+	public Optional<Path> snapshot() {
+		TreeMap<Integer, Path> snapshots = ficheros(SNAPSHOT);
+		return snapshots.isEmpty() ? Optional.empty() : Optional.of(snapshots.lastEntry().getValue());
+	}
+
+	/**
+	 * Aplica al destino los registros escritos después del snapshot más reciente y abre un
+	 * segmento nuevo para seguir escribiendo.
+	 *
+	 * @param destino Destino de las filas recuperadas.
+	 * @return Número de registros aplicados.
+	 */
+	public long recuperar(OyenteEscrituras destino) {
+		int desde = snapshot().map(s -> numero(SNAPSHOT, s)).orElse(0);
+		TreeMap<Integer, Path> segmentos = ficheros(SEGMENTO);
+		long aplicados = 0;
+		int ultimo = desde - 1;
+
+		for (var segmento : segmentos.tailMap(desde).entrySet()) {
+			ultimo = segmento.getKey();
+			Lectura lectura = leerSegmento(segmento.getValue(), destino);
+			aplicados += lectura.registros();
+
+			if (lectura.fin() >= 0) {
+				// El registro cortado no se llegó a confirmar; se marca el fin para no leerlo más
+				marcarFin(segmento.getValue(), lectura.fin());
+				if (segmento.getKey() < segmentos.lastKey()) {
+					LOGGER.warn("El segmento {} tiene un registro dañado; se descartan los segmentos posteriores",
+							segmento.getValue());
+					descartar(segmentos.tailMap(segmento.getKey(), false).values());
+					break;
+				}
+			}
+		}
+
+		synchronized (this) {
+			actual = abrirSegmento(Math.max(ultimo + 1, desde));
+		}
+		hiloForce = new Thread(this::forzarEnBucle, "personaje-wal-force");
+		hiloForce.setDaemon(true);
+		hiloForce.start();
+
+		return aplicados;
+	}
+
+	/**
+	 * Añade la imagen de una fila.
+	 *
+	 * @param personaje El personaje, con su ID y la versión ya incrementada.
+	 * @return Posición que debe estar en disco para que el registro sea durable.
+	 */
+	public long anadirFila(Personaje personaje) {
+		byte[] nombre = personaje.getNombre() == null ? null : personaje.getNombre().getBytes(StandardCharsets.UTF_8);
+		ByteBuffer contenido = ByteBuffer.allocate(1 + 4 + 9 * 4 + 8 + 1 + 4 + (nombre == null ? 0 : nombre.length));
+
+		contenido.put(FILA)
+				.putInt(personaje.getIdPersonaje())
+				.putInt(personaje.getFuerzaOriginal())
+				.putInt(personaje.getFuerzaActual())
+				.putInt(personaje.getDefensaOriginal())
+				.putInt(personaje.getDefensaActual())
+				.putInt(personaje.getNivel())
+				.putInt(personaje.getVidaOriginal())
+				.putInt(personaje.getVidaTotal())
+				.putInt(personaje.getVidaActual())
+				.putInt(personaje.getExperiencia())
+				.putLong(personaje.getVersion())
+				.put((byte) (personaje.isActivo() ? 1 : 0))
+				.putInt(nombre == null ? -1 : nombre.length);
+		if (nombre != null) {
+			contenido.put(nombre);
+		}
+
+		return anadir(contenido.flip());
+	}
+
+	/**
+	 * Añade el borrado de una fila.
+	 *
+	 * @param idPersonaje El ID del personaje eliminado.
+	 * @return Posición que debe estar en disco para que el registro sea durable.
+	 */
+	public long anadirBorrado(int idPersonaje) {
+		return anadir(ByteBuffer.allocate(5).put(BORRADO).putInt(idPersonaje).flip());
+	}
+
+	/**
+	 * Espera a que el registro esté en disco hasta la posición indicada.
+	 *
+	 * @param posicion Posición devuelta al añadir el último registro que se quiere confirmar.
+	 * @throws IllegalStateException Si el registro ha fallado o se ha cerrado antes.
+	 */
+	public void esperar(long posicion) {
+		synchronized (durabilidad) {
+			if (posicion > solicitado) {
+				solicitado = posicion;
+				durabilidad.notifyAll();
+			}
+
+			boolean interrumpido = false;
+			while (durable < posicion && fallo == null && !cerrado) {
+				try {
+					durabilidad.wait();
+				} catch (InterruptedException e) {
+					interrumpido = true;
+				}
+			}
+			if (interrumpido) {
+				Thread.currentThread().interrupt();
+			}
+
+			if (durable < posicion) {
+				throw new IllegalStateException("El registro de escrituras no está disponible", fallo);
+			}
+		}
+	}
+
+	/**
+	 * Empieza un checkpoint: fuerza el segmento actual y abre uno nuevo.
+	 *
+	 * @return Fichero en el que debe escribirse el snapshot del checkpoint.
+	 */
+	public synchronized Path iniciarCheckpoint() {
+		rotar();
+		return directorio.resolve("snapshot-" + actual.numero() + ".pjb");
+	}
+
+	/**
+	 * Termina un checkpoint cuyo snapshot ya está escrito y en disco: elimina los segmentos
+	 * y los snapshots anteriores.
+	 *
+	 * @param snapshot Fichero del snapshot devuelto por {@link #iniciarCheckpoint()}.
+	 */
+	public void completarCheckpoint(Path snapshot) {
+		int numero = numero(SNAPSHOT, snapshot);
+
+		try {
+			for (Path segmento : ficheros(SEGMENTO).headMap(numero).values()) {
+				Files.deleteIfExists(segmento);
+			}
+			for (Path anterior : ficheros(SNAPSHOT).headMap(numero).values()) {
+				Files.deleteIfExists(anterior);
+			}
+		} catch (IOException e) {
+			LOGGER.warn("No se han podido eliminar los ficheros anteriores a {}", snapshot, e);
+		}
+	}
+
+	/**
+	 * Lleva a disco lo pendiente y detiene el hilo de force.
+	 */
+	@Override
+	public void close() {
+		synchronized (durabilidad) {
+			if (cerrado) {
+				return;
+			}
+		}
+
+		if (hiloForce != null) {
+			forzar();
+			synchronized (durabilidad) {
+				cerrado = true;
+				durabilidad.notifyAll();
+			}
+			try {
+				hiloForce.join(1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		synchronized (this) {
+			if (actual != null) {
+				cerrarCanal(actual);
+			}
+		}
+	}
+
+	/**
+	 * Copia un registro en el segmento actual, cambiando de segmento si no cabe.
+	 */
+	private long anadir(ByteBuffer contenido) {
+		CRC32C crc = new CRC32C();
+		crc.update(contenido.duplicate());
+		int longitud = contenido.remaining();
+
+		if (CABECERA + longitud >= tamanoSegmento) {
+			throw new IllegalArgumentException("Registro demasiado grande para el segmento: " + longitud + " bytes");
+		}
+
+		synchronized (this) {
+			if (actual == null) {
+				throw new IllegalStateException("El registro de escrituras no se ha abierto");
+			}
+			// Se reservan 4 bytes para la marca de fin del segmento
+			if (actual.buffer().remaining() < CABECERA + longitud + 4) {
+				rotar();
+			}
+
+			actual.buffer().putInt(longitud).putInt((int) crc.getValue()).put(contenido);
+			escrito += CABECERA + longitud;
+			registros++;
+			registrosAnadidos.increment();
+			return escrito;
+		}
+	}
+
+	/**
+	 * Fuerza el segmento actual y abre el siguiente. Lo que había en el segmento anterior
+	 * queda en disco, así que se marca como durable.
+	 */
+	private synchronized void rotar() {
+		forzarSegmento(actual, escrito, registros);
+		cerrarCanal(actual);
+		actual = abrirSegmento(actual.numero() + 1);
+	}
+
+	private void forzarEnBucle() {
+		while (true) {
+			synchronized (durabilidad) {
+				while (solicitado <= durable && !cerrado) {
+					try {
+						durabilidad.wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				if (cerrado) {
+					return;
+				}
+			}
+
+			try {
+				forzar();
+			} catch (RuntimeException e) {
+				LOGGER.error("Fallo al llevar a disco el registro de escrituras", e);
+				synchronized (durabilidad) {
+					fallo = e;
+					durabilidad.notifyAll();
+				}
+				return;
+			}
+		}
+	}
+
+	private void forzar() {
+		Segmento segmento;
+		long objetivo;
+		long objetivoRegistros;
+
+		synchronized (this) {
+			segmento = actual;
+			objetivo = escrito;
+			objetivoRegistros = registros;
+		}
+		forzarSegmento(segmento, objetivo, objetivoRegistros);
+	}
+
+	/**
+	 * Fuerza un segmento y marca como durable todo lo escrito hasta {@code objetivo}.
+	 */
+	private void forzarSegmento(Segmento segmento, long objetivo, long objetivoRegistros) {
+		synchronized (durabilidad) {
+			if (objetivo <= durable) {
+				return;
+			}
+		}
+
+		tiempoForce.record(() -> segmento.buffer().force());
+
+		synchronized (durabilidad) {
+			if (objetivo > durable) {
+				registrosPorForce.record(objetivoRegistros - registrosDurables);
+				durable = objetivo;
+				registrosDurables = objetivoRegistros;
+				durabilidad.notifyAll();
+			}
+		}
+	}
+
+	private long bytesPendientes() {
+		long pendientes;
+		synchronized (this) {
+			pendientes = escrito;
+		}
+		synchronized (durabilidad) {
+			return pendientes - durable;
+		}
+	}
+
+	private Segmento abrirSegmento(int numero) {
+		Path fichero = directorio.resolve(String.format("wal-%010d.log", numero));
+
+		try {
+			FileChannel canal = FileChannel.open(fichero, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			return new Segmento(numero, canal, canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanoSegmento));
+		} catch (IOException e) {
+			throw new UncheckedIOException("No se puede abrir el segmento " + fichero, e);
+		}
+	}
+
+	private static void cerrarCanal(Segmento segmento) {
+		try {
+			segmento.canal().close();
+		} catch (IOException e) {
+			LOGGER.warn("No se ha podido cerrar el segmento {}", segmento.numero(), e);
+		}
+	}
+
+	private static void marcarFin(Path fichero, int fin) {
+		try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.WRITE)) {
+			canal.write(ByteBuffer.allocate(4), fin);
+			canal.force(false);
+		} catch (IOException e) {
+			throw new UncheckedIOException("No se puede reparar el segmento " + fichero, e);
+		}
+	}
+
+	private static void descartar(Iterable<Path> ficheros) {
+		try {
+			for (Path fichero : ficheros) {
+				Files.deleteIfExists(fichero);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("No se pueden descartar los segmentos posteriores", e);
+		}
+	}
+
+	/**
+	 * Aplica los registros válidos de un segmento.
+	 */
+	private static Lectura leerSegmento(Path fichero, OyenteEscrituras destino) {
+		long registros = 0;
+
+		try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+
+			while (buffer.remaining() >= CABECERA) {
+				int inicio = buffer.position();
+				int longitud = buffer.getInt();
+				if (longitud == 0) {
+					return new Lectura(registros, -1);
+				}
+
+				int crcEsperado = buffer.getInt();
+				if (longitud < 0 || longitud > buffer.remaining()) {
+					return new Lectura(registros, inicio);
+				}
+
+				ByteBuffer contenido = buffer.slice(buffer.position(), longitud);
+				CRC32C crc = new CRC32C();
+				crc.update(contenido.duplicate());
+				if ((int) crc.getValue() != crcEsperado) {
+					return new Lectura(registros, inicio);
+				}
+
+				aplicar(contenido, destino);
+				buffer.position(buffer.position() + longitud);
+				registros++;
+			}
+			return new Lectura(registros, -1);
+		} catch (IOException e) {
+			throw new UncheckedIOException("No se puede leer el segmento " + fichero, e);
+		}
+	}
+
+	private static void aplicar(ByteBuffer contenido, OyenteEscrituras destino) {
+		byte tipo = contenido.get();
+		int idPersonaje = contenido.getInt();
+
+		if (tipo == BORRADO) {
+			destino.borrado(idPersonaje);
+			return;
+		}
+
+		Personaje personaje = new Personaje();
+		personaje.setIdPersonaje(idPersonaje);
+		personaje.setFuerzaOriginal(contenido.getInt());
+		personaje.setFuerzaActual(contenido.getInt());
+		personaje.setDefensaOriginal(contenido.getInt());
+		personaje.setDefensaActual(contenido.getInt());
+		personaje.setNivel(contenido.getInt());
+		personaje.setVidaOriginal(contenido.getInt());
+		personaje.setVidaTotal(contenido.getInt());
+		personaje.setVidaActual(contenido.getInt());
+		personaje.setExperiencia(contenido.getInt());
+		personaje.setVersion(contenido.getLong());
+		personaje.setActivo(contenido.get() == 1);
+
+		int longitudNombre = contenido.getInt();
+		if (longitudNombre >= 0) {
+			byte[] nombre = new byte[longitudNombre];
+			contenido.get(nombre);
+			personaje.setNombre(new String(nombre, StandardCharsets.UTF_8));
+		}
+		destino.fila(personaje);
+	}
+
+	private TreeMap<Integer, Path> ficheros(Pattern patron) {
+		TreeMap<Integer, Path> ficheros = new TreeMap<>();
+
+		try (Stream<Path> contenido = Files.list(directorio)) {
+			List<Path> lista = contenido.toList();
+			for (Path fichero : lista) {
+				Matcher matcher = patron.matcher(fichero.getFileName().toString());
+				if (matcher.matches()) {
+					ficheros.put(Integer.parseInt(matcher.group(1)), fichero);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("No se puede leer el directorio del registro " + directorio, e);
+		}
+		return ficheros;
+	}
+
+	private static int numero(Pattern patron, Path fichero) {
+		Matcher matcher = patron.matcher(fichero.getFileName().toString());
+		if (!matcher.matches()) {
+			throw new IllegalArgumentException("Nombre de fichero no válido: " + fichero);
+		}
+		return Integer.parseInt(matcher.group(1));
+	}
+
+	private record Segmento(int numero, FileChannel canal, MappedByteBuffer buffer) {
+	}
+
+	/**
+	 * Resultado de leer un segmento: registros aplicados y posición del primer registro
+	 * dañado, o -1 si no hay ninguno.
+	 */
+	private record Lectura(long registros, int fin) {
+	}
+}
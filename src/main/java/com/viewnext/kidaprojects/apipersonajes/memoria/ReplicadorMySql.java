@@ -0,0 +1,419 @@
+package com.viewnext.kidaprojects.apipersonajes.memoria;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.model.ResultadoReconciliacion;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * La clase {@code ReplicadorMySql} replica de forma asíncrona en la tabla
+ * {@code personajes} de MySQL todas las escrituras del motor en memoria, para los
+ * despliegues que usan el perfil {@code memoria} pero necesitan MySQL como sistema de
+ * registro para informes. Se activa con los perfiles {@code memoria} y
+ * {@code replicacion}.
+ *
+ * <p>
+ * El replicador es el {@code OyenteEscrituras} de {@code PersonajeRepositoryMemoria}, así
+ * que recibe cada cambio hecho a través de {@code PersonajeServiceImpl} como la imagen
+ * completa de la fila (o su borrado) en el orden en que se aplicó. Los cambios pendientes
+ * se guardan en un mapa por ID, de modo que varios cambios seguidos de un personaje se
+ * fusionan en el último y la cola nunca tiene más entradas que personajes. Un reinicio
+ * llega como una imagen por personaje y se fusiona igual que el resto.
+ * </p>
+ *
+ * <p>
+ * Cada {@code personaje.replicacion.intervalo-ms} se vacía la cola en lotes JDBC de
+ * {@code INSERT ... ON DUPLICATE KEY UPDATE} y {@code DELETE}. Escribir una imagen
+ * completa dos veces deja la fila igual, así que un lote fallido se devuelve a la cola
+ * (sin pisar los cambios más nuevos que hayan llegado) y se reintenta entero en la
+ * siguiente ejecución.
+ * </p>
+ *
+ * <p>
+ * Cada {@code personaje.replicacion.reconciliacion.intervalo} se compara el ID y la
+ * versión de cada personaje en los dos lados y se vuelven a encolar los que no
+ * coinciden, lo que también pone al día MySQL con las filas recuperadas al arrancar.
+ * </p>
+ *
+ * @version 1.0
+ * @since 18 de octubre de 2026
+ */
+@Component
+@Profile("memoria & replicacion")
+public class ReplicadorMySql implements OyenteEscrituras {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReplicadorMySql.class);
+
+	private static final int FETCH_SIZE = 500;
+
+	private static final String UPSERT = "INSERT INTO personajes (id_personaje, nombre, fuerza_original, "
+			+ "fuerza_actual, defensa_original, defensa_actual, nivel, vida_original, vida_total, vida_actual, "
+			+ "experiencia, activo, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+			+ "ON DUPLICATE KEY UPDATE nombre = VALUES(nombre), fuerza_original = VALUES(fuerza_original), "
+			+ "fuerza_actual = VALUES(fuerza_actual), defensa_original = VALUES(defensa_original), "
+			+ "defensa_actual = VALUES(defensa_actual), nivel = VALUES(nivel), vida_original = VALUES(vida_original), "
+			+ "vida_total = VALUES(vida_total), vida_actual = VALUES(vida_actual), "
+			+ "experiencia = VALUES(experiencia), activo = VALUES(activo), version = VALUES(version)";
+
+	private static final String BORRAR = "DELETE FROM personajes WHERE id_personaje = ?";
+
+	private final PersonajeRepositoryMemoria repositorio;
+	private final JdbcTemplate jdbcTemplate;
+	private final int tamanoLote;
+
+	private final Map<Integer, Cambio> pendientes = new ConcurrentHashMap<>();
+	private final AtomicLong divergentes = new AtomicLong();
+
+	private final Counter capturados;
+	private final Counter fusionados;
+	private final Counter replicados;
+	private final Counter reintentos;
+	private final Timer retraso;
+	private final Timer tiempoLote;
+	private final Timer tiempoReconciliacion;
+
+	/**
+	 * Constructor de la clase {@code ReplicadorMySql}.
+	 *
+	 * @param repositorio           Motor en memoria cuyas escrituras se replican.
+	 * @param replicacionDataSource DataSource de la base de datos de destino.
+	 * @param registry              Registro de métricas.
+	 * @param tamanoLote            Número máximo de cambios de cada lote JDBC.
+	 */
+	public ReplicadorMySql(PersonajeRepositoryMemoria repositorio, DataSource replicacionDataSource,
+			MeterRegistry registry,
+			@Value("${personaje.replicacion.tamano-lote:500}") int tamanoLote) {
+		this.repositorio = repositorio;
+		this.jdbcTemplate = new JdbcTemplate(replicacionDataSource);
+		this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+		this.tamanoLote = tamanoLote;
+
+		Gauge.builder("personaje.replicacion.pendientes", pendientes, Map::size)
+				.description("Personajes con cambios pendientes de replicar")
+				.register(registry);
+		Gauge.builder("personaje.replicacion.retraso.maximo", pendientes, ReplicadorMySql::retrasoMaximo)
+				.description("Segundos desde el cambio pendiente de replicar más antiguo")
+				.baseUnit("seconds")
+				.register(registry);
+		Gauge.builder("personaje.replicacion.divergentes", divergentes, AtomicLong::get)
+				.description("Personajes distintos en memoria y en MySQL en la última reconciliación")
+				.register(registry);
+		this.capturados = Counter.builder("personaje.replicacion.capturados")
+				.description("Cambios recibidos del motor en memoria")
+				.register(registry);
+		this.fusionados = Counter.builder("personaje.replicacion.fusionados")
+				.description("Cambios fusionados con otro pendiente del mismo personaje")
+				.register(registry);
+		this.replicados = Counter.builder("personaje.replicacion.replicados")
+				.description("Cambios escritos en MySQL")
+				.register(registry);
+		this.reintentos = Counter.builder("personaje.replicacion.reintentos")
+				.description("Lotes que han fallado y se han devuelto a la cola")
+				.register(registry);
+		this.retraso = Timer.builder("personaje.replicacion.retraso")
+				.description("Tiempo desde que se captura un cambio hasta que está en MySQL")
+				.register(registry);
+		this.tiempoLote = Timer.builder("personaje.replicacion.lote")
+				.description("Latencia de la escritura de cada lote en MySQL")
+				.register(registry);
+		this.tiempoReconciliacion = Timer.builder("personaje.replicacion.reconciliacion")
+				.description("Duración de cada reconciliación entre memoria y MySQL")
+				.register(registry);
+	}
+
+	/**
+	 * Empieza a recibir las escrituras del motor en memoria.
+	 */
+	@PostConstruct
+	public void iniciar() {
+		repositorio.setOyente(this);
+	}
+
+	@Override
+	public void fila(Personaje personaje) {
+		encolar(personaje.getIdPersonaje(), personaje);
+	}
+
+	@Override
+	public void borrado(int idPersonaje) {
+		encolar(idPersonaje, null);
+	}
+
+	/**
+	 * Obtiene el número de personajes con cambios pendientes de replicar.
+	 *
+	 * @return El tamaño de la cola.
+	 */
+	public int pendientes() {
+		return pendientes.size();
+	}
+
+	/**
+	 * Escribe en MySQL los cambios pendientes, en lotes de {@code tamanoLote}, hasta vaciar
+	 * la cola o hasta que falle un lote, que se devuelve a la cola para reintentarlo.
+	 *
+	 * @return Número de cambios replicados.
+	 */
+	@Scheduled(fixedDelayString = "${personaje.replicacion.intervalo-ms:200}")
+	public synchronized int replicar() {
+		int total = 0;
+
+		while (!pendientes.isEmpty()) {
+			Map<Integer, Cambio> lote = tomarLote();
+			if (lote.isEmpty()) {
+				break;
+			}
+
+			try {
+				tiempoLote.record(() -> escribir(lote));
+			} catch (DataAccessException e) {
+				lote.forEach(this::devolver);
+				reintentos.increment();
+				LOGGER.warn("No se han podido replicar {} cambios; se reintentarán", lote.size(), e);
+				break;
+			}
+
+			long ahora = System.nanoTime();
+			lote.values().forEach(cambio -> retraso.record(ahora - cambio.capturado(), TimeUnit.NANOSECONDS));
+			replicados.increment(lote.size());
+			total += lote.size();
+		}
+		return total;
+	}
+
+	/**
+	 * Compara el ID y la versión de todos los personajes en memoria y en MySQL y vuelve a
+	 * encolar el estado actual de los que no coinciden. Los personajes con cambios ya
+	 * pendientes no se cuentan, porque se replicarán igualmente.
+	 *
+	 * @return El resultado de la comparación.
+	 */
+	@Scheduled(fixedDelayString = "${personaje.replicacion.reconciliacion.intervalo:PT10M}",
+			initialDelayString = "${personaje.replicacion.reconciliacion.espera-inicial:PT1M}")
+	public synchronized ResultadoReconciliacion reconciliar() {
+		long inicio = System.nanoTime();
+		VersionesLocales locales = new VersionesLocales();
+		repositorio.recorrer(false, personaje -> locales.anadir(personaje.getIdPersonaje(), personaje.getVersion()));
+
+		Comparacion comparacion = new Comparacion(locales);
+		jdbcTemplate.query("SELECT id_personaje, version FROM personajes ORDER BY id_personaje",
+				(RowCallbackHandler) fila -> comparacion.remoto(fila.getInt(1), fila.getLong(2)));
+		ResultadoReconciliacion resultado = comparacion.terminar();
+
+		divergentes.set(resultado.divergentes());
+		tiempoReconciliacion.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+		if (resultado.divergentes() > 0) {
+			LOGGER.warn("Reconciliación con MySQL: {}; se vuelven a encolar", resultado);
+		}
+		return resultado;
+	}
+
+	/**
+	 * Replica lo pendiente antes de detener la aplicación.
+	 */
+	@PreDestroy
+	public void detener() {
+		repositorio.setOyente(null);
+		replicar();
+	}
+
+	/**
+	 * Encola un cambio. Si el personaje ya tenía uno pendiente se sustituye por el nuevo,
+	 * conservando el instante del primero para medir el retraso.
+	 */
+	private void encolar(int idPersonaje, Personaje personaje) {
+		capturados.increment();
+		pendientes.merge(idPersonaje, new Cambio(personaje, System.nanoTime()), (anterior, nuevo) -> {
+			fusionados.increment();
+			return new Cambio(nuevo.personaje(), anterior.capturado());
+		});
+	}
+
+	/**
+	 * Devuelve a la cola un cambio de un lote fallido, salvo que haya llegado otro más nuevo
+	 * del mismo personaje.
+	 */
+	private void devolver(int idPersonaje, Cambio cambio) {
+		pendientes.merge(idPersonaje, cambio,
+				(nuevo, devuelto) -> new Cambio(nuevo.personaje(), devuelto.capturado()));
+	}
+
+	private Map<Integer, Cambio> tomarLote() {
+		Map<Integer, Cambio> lote = new LinkedHashMap<>();
+
+		for (Integer id : pendientes.keySet()) {
+			if (lote.size() == tamanoLote) {
+				break;
+			}
+			Cambio cambio = pendientes.remove(id);
+			if (cambio != null) {
+				lote.put(id, cambio);
+			}
+		}
+		return lote;
+	}
+
+	private void escribir(Map<Integer, Cambio> lote) {
+		List<Personaje> filas = new ArrayList<>();
+		List<Integer> borrados = new ArrayList<>();
+
+		lote.forEach((id, cambio) -> {
+			if (cambio.personaje() == null) {
+				borrados.add(id);
+			} else {
+				filas.add(cambio.personaje());
+			}
+		});
+
+		if (!filas.isEmpty()) {
+			jdbcTemplate.batchUpdate(UPSERT, filas, filas.size(), (sentencia, personaje) -> {
+				sentencia.setInt(1, personaje.getIdPersonaje());
+				sentencia.setString(2, personaje.getNombre());
+				sentencia.setInt(3, personaje.getFuerzaOriginal());
+				sentencia.setInt(4, personaje.getFuerzaActual());
+				sentencia.setInt(5, personaje.getDefensaOriginal());
+				sentencia.setInt(6, personaje.getDefensaActual());
+				sentencia.setInt(7, personaje.getNivel());
+				sentencia.setInt(8, personaje.getVidaOriginal());
+				sentencia.setInt(9, personaje.getVidaTotal());
+				sentencia.setInt(10, personaje.getVidaActual());
+				sentencia.setInt(11, personaje.getExperiencia());
+				sentencia.setBoolean(12, personaje.isActivo());
+				sentencia.setLong(13, personaje.getVersion());
+			});
+		}
+		if (!borrados.isEmpty()) {
+			jdbcTemplate.batchUpdate(BORRAR, borrados, borrados.size(), (sentencia, id) -> sentencia.setInt(1, id));
+		}
+	}
+
+	private static double retrasoMaximo(Map<Integer, Cambio> pendientes) {
+		long ahora = System.nanoTime();
+		long maximo = 0;
+
+		for (Cambio cambio : pendientes.values()) {
+			maximo = Math.max(maximo, ahora - cambio.capturado());
+		}
+		return maximo / 1e9;
+	}
+
+	/**
+	 * Cambio pendiente de un personaje: su imagen, o {@code null} si se ha borrado, y el
+	 * instante ({@code System.nanoTime()}) del primer cambio sin replicar.
+	 */
+	private record Cambio(Personaje personaje, long capturado) {
+	}
+
+	/**
+	 * IDs y versiones de los personajes en memoria, en orden de ID.
+	 */
+	private static final class VersionesLocales {
+
+		private int[] ids = new int[1024];
+		private long[] versiones = new long[1024];
+		private int total;
+
+		void anadir(int idPersonaje, long version) {
+			if (total == ids.length) {
+				ids = Arrays.copyOf(ids, total * 2);
+				versiones = Arrays.copyOf(versiones, total * 2);
+			}
+			ids[total] = idPersonaje;
+			versiones[total] = version;
+			total++;
+		}
+	}
+
+	/**
+	 * Recorre a la vez, en orden de ID, los personajes en memoria y las filas de MySQL.
+	 */
+	private final class Comparacion {
+
+		private final VersionesLocales locales;
+		private int siguiente;
+		private long comparados;
+		private long soloLocal;
+		private long soloRemoto;
+		private long distintos;
+
+		Comparacion(VersionesLocales locales) {
+			this.locales = locales;
+		}
+
+		void remoto(int idPersonaje, long version) {
+			avanzarHasta(idPersonaje);
+
+			if (siguiente < locales.total && locales.ids[siguiente] == idPersonaje) {
+				comparados++;
+				if (locales.versiones[siguiente] != version && divergente(idPersonaje)) {
+					distintos++;
+				}
+				siguiente++;
+			} else if (divergente(idPersonaje)) {
+				soloRemoto++;
+			}
+		}
+
+		ResultadoReconciliacion terminar() {
+			while (siguiente < locales.total) {
+				if (divergente(locales.ids[siguiente])) {
+					soloLocal++;
+				}
+				siguiente++;
+			}
+			return new ResultadoReconciliacion(comparados, soloLocal, soloRemoto, distintos);
+		}
+
+		/**
+		 * Cuenta como ausentes en MySQL los personajes en memoria con ID menor que el dado.
+		 */
+		private void avanzarHasta(int idPersonaje) {
+			while (siguiente < locales.total && locales.ids[siguiente] < idPersonaje) {
+				if (divergente(locales.ids[siguiente])) {
+					soloLocal++;
+				}
+				siguiente++;
+			}
+		}
+
+		/**
+		 * Vuelve a encolar el estado actual de un personaje que no coincide, salvo que ya
+		 * tenga un cambio pendiente.
+		 *
+		 * @return {@code true} si se ha vuelto a encolar.
+		 */
+		private boolean divergente(int idPersonaje) {
+			if (pendientes.containsKey(idPersonaje)) {
+				return false;
+			}
+			repositorio.reenviar(idPersonaje);
+			return true;
+		}
+	}
+}
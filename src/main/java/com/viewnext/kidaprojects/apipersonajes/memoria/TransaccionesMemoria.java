@@ -0,0 +1,40 @@
+package com.viewnext.kidaprojects.apipersonajes.memoria;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+/**
+ * Gestor de transacciones del motor en memoria. No hay recursos transaccionales: cada
+ * operación de {@code PersonajeRepositoryMemoria} es atómica por sí sola y un rollback no
+ * deshace las escrituras ya hechas. Sirve para que {@code TransactionTemplate} y las
+ * sincronizaciones de transacción (por ejemplo, publicar eventos tras el commit) sigan
+ * funcionando igual que con JPA.
+ *
+ * @version 1.0
+ * @since 18 de octubre de 2026
+ */
+public class TransaccionesMemoria extends AbstractPlatformTransactionManager {
+
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	protected Object doGetTransaction() {
+		return new Object();
+	}
+
+	@Override
+	protected void doBegin(Object transaction, TransactionDefinition definition) {
+		// No hay recursos que enlazar a la transacción
+	}
+
+	@Override
+	protected void doCommit(DefaultTransactionStatus status) {
+		// Las escrituras ya se han aplicado
+	}
+
+	@Override
+	protected void doRollback(DefaultTransactionStatus status) {
+		// Las escrituras en memoria no se deshacen
+	}
+}
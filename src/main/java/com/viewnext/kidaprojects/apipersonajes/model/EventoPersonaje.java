@@ -0,0 +1,20 @@
+package com.viewnext.kidaprojects.apipersonajes.model;
+
+import java.time.Instant;
+
+/**
+ * El registro {@code EventoPersonaje} describe un cambio de estado de un personaje ya
+ * confirmado en la base de datos.
+ *
+ * @param id          Número de secuencia del evento, creciente y sin huecos; sirve para reanudar el flujo.
+ * @param tipo        Tipo de cambio.
+ * @param idPersonaje El ID del personaje afectado, o 0 si el evento afecta a todos.
+ * @param personaje   Estado del personaje tras el cambio, o {@code null} si el evento afecta a todos.
+ * @param instante    Momento en que se publicó el evento.
+ *
+ * @version 1.0
+ * @since 17 de octubre de 2026
+ */
+public record EventoPersonaje(long id, TipoEventoPersonaje tipo, int idPersonaje, Personaje personaje,
+		Instant instante) {
+}
@@ -0,0 +1,14 @@
+package com.viewnext.kidaprojects.apipersonajes.model;
+
+/**
+ * El registro {@code Golpe} representa un daño dirigido a un personaje dentro de un
+ * ataque que afecta a varios personajes a la vez.
+ *
+ * @param idPersonaje El ID del personaje que recibe el golpe.
+ * @param damage      El daño a aplicar.
+ *
+ * @version 1.0
+ * @since 17 de octubre de 2026
+ */
+public record Golpe(int idPersonaje, int damage) {
+}
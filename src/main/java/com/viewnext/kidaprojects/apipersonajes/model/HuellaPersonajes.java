@@ -0,0 +1,63 @@
+package com.viewnext.kidaprojects.apipersonajes.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * La clase {@code HuellaPersonajes} calcula la huella de una lista de personajes, con la
+ * que se construye su ETag. Combina el ID y la versión de cada personaje, en orden de ID,
+ * con una variante de FNV-1a de 64 bits que procesa cada valor entero en lugar de byte a
+ * byte.
+ *
+ * <p>
+ * Los repositorios la calculan leyendo solo el ID y la versión de cada fila, y el
+ * controlador a partir de la lista ya cargada; ambas deben coincidir para que una petición
+ * condicional posterior reconozca el ETag.
+ * </p>
+ *
+ * @version 1.0
+ * @since 18 de octubre de 2026
+ */
+public final class HuellaPersonajes {
+
+	/**
+	 * Huella de una lista vacía, y valor inicial al que se van combinando los personajes.
+	 */
+	public static final long INICIAL = 0xcbf29ce484222325L;
+
+	private static final long PRIMO = 0x100000001b3L;
+
+	private HuellaPersonajes() {
+	}
+
+	/**
+	 * Añade un personaje a la huella. Los personajes deben combinarse en orden de ID.
+	 *
+	 * @param huella      La huella de los personajes anteriores.
+	 * @param idPersonaje El ID del personaje.
+	 * @param version     La versión del personaje.
+	 * @return La huella con el personaje añadido.
+	 */
+	public static long combinar(long huella, int idPersonaje, long version) {
+		huella = (huella ^ idPersonaje) * PRIMO;
+		return (huella ^ version) * PRIMO;
+	}
+
+	/**
+	 * Calcula la huella de una lista de personajes ya cargada, en cualquier orden.
+	 *
+	 * @param personajes Los personajes.
+	 * @return La huella de la lista.
+	 */
+	public static long de(List<Personaje> personajes) {
+		List<Personaje> ordenados = new ArrayList<>(personajes);
+		ordenados.sort(Comparator.comparingInt(Personaje::getIdPersonaje));
+
+		long huella = INICIAL;
+		for (Personaje personaje : ordenados) {
+			huella = combinar(huella, personaje.getIdPersonaje(), personaje.getVersion());
+		}
+		return huella;
+	}
+}
@@ -0,0 +1,17 @@
+package com.viewnext.kidaprojects.apipersonajes.model;
+
+/**
+ * La enumeración {@code OrigenRecompensa} indica de qué servicio remoto procede una
+ * recompensa de experiencia.
+ *
+ * @version 1.0
+ * @since 17 de octubre de 2026
+ */
+public enum OrigenRecompensa {
+
+	/** Recompensa por completar una misión. */
+	MISION,
+
+	/** Recompensa por vencer a un enemigo. */
+	ENEMIGO
+}
@@ -7,6 +7,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 /**
  * La clase {@code Personaje} representa a un personaje en el sistema.
@@ -38,6 +39,13 @@ public class Personaje {
 	private int vidaActual;
 	private int experiencia;
 	private boolean activo;
+
+	/**
+	 * Versión de la fila para el bloqueo optimista. Las sentencias UPDATE masivas de
+	 * {@code PersonajeRepository} también la incrementan.
+	 */
+	@Version
+	private long version;
 	
 	public Personaje(String nombre, int fuerzaOriginal, int defensaOriginal, int vidaOriginal) {
 		super();
@@ -58,6 +66,27 @@ public class Personaje {
 		
 	}
 
+	/**
+	 * Crea una copia independiente de otro personaje.
+	 *
+	 * @param otro El personaje a copiar.
+	 */
+	public Personaje(Personaje otro) {
+		this.idPersonaje = otro.idPersonaje;
+		this.nombre = otro.nombre;
+		this.fuerzaOriginal = otro.fuerzaOriginal;
+		this.fuerzaActual = otro.fuerzaActual;
+		this.defensaOriginal = otro.defensaOriginal;
+		this.defensaActual = otro.defensaActual;
+		this.nivel = otro.nivel;
+		this.vidaOriginal = otro.vidaOriginal;
+		this.vidaTotal = otro.vidaTotal;
+		this.vidaActual = otro.vidaActual;
+		this.experiencia = otro.experiencia;
+		this.activo = otro.activo;
+		this.version = otro.version;
+	}
+
 	public int getIdPersonaje() {
 		return idPersonaje;
 	}
@@ -155,6 +184,14 @@ public class Personaje {
 		this.activo = activo;
 	}
 
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
 	@Override
 	public int hashCode() {
 		return Objects.hash(idPersonaje);
@@ -177,7 +214,7 @@ public class Personaje {
 		return "Personaje [idPersonaje=" + idPersonaje + ", nombre=" + nombre + ", fuerzaOriginal=" + fuerzaOriginal
 				+ ", fuerzaActual=" + fuerzaActual + ", defensaOriginal=" + defensaOriginal + ", defensaActual="
 				+ defensaActual + ", nivel=" + nivel + ", vidaOriginal=" + vidaOriginal + ", vidaActual=" + vidaActual
-				+ ", experiencia=" + experiencia + ", activo=" + activo + "]";
+				+ ", experiencia=" + experiencia + ", activo=" + activo + ", version=" + version + "]";
 	}
 	
 	
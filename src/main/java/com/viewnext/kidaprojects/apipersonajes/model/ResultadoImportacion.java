@@ -0,0 +1,17 @@
+package com.viewnext.kidaprojects.apipersonajes.model;
+
+/**
+ * El registro {@code ResultadoImportacion} resume el resultado de una importación masiva de personajes.
+ *
+ * @param insertados   Número de personajes insertados.
+ * @param rechazados   Número de elementos descartados por no ser un personaje válido.
+ * @param lotes        Número de lotes JDBC ejecutados, cada uno en su propia transacción.
+ * @param completa     {@code false} si la lectura se detuvo por un error de sintaxis en el cuerpo;
+ *                     los lotes anteriores al error quedan insertados.
+ * @param milisegundos Duración total de la importación.
+ *
+ * @version 1.0
+ * @since 17 de octubre de 2026
+ */
+public record ResultadoImportacion(int insertados, int rechazados, int lotes, boolean completa, long milisegundos) {
+}
@@ -0,0 +1,25 @@
+package com.viewnext.kidaprojects.apipersonajes.model;
+
+/**
+ * El registro {@code ResultadoReconciliacion} resume la comparación entre los personajes
+ * del motor en memoria y los replicados en MySQL.
+ *
+ * @param comparados Número de personajes presentes en los dos lados.
+ * @param soloLocal  Personajes que faltan en MySQL.
+ * @param soloRemoto Personajes que están en MySQL pero no en memoria.
+ * @param distintos  Personajes presentes en los dos lados con distinta versión.
+ *
+ * @version 1.0
+ * @since 18 de octubre de 2026
+ */
+public record ResultadoReconciliacion(long comparados, long soloLocal, long soloRemoto, long distintos) {
+
+	/**
+	 * Número total de personajes que no coinciden.
+	 *
+	 * @return La suma de {@code soloLocal}, {@code soloRemoto} y {@code distintos}.
+	 */
+	public long divergentes() {
+		return soloLocal + soloRemoto + distintos;
+	}
+}
@@ -0,0 +1,14 @@
+package com.viewnext.kidaprojects.apipersonajes.model;
+
+/**
+ * El registro {@code ResultadoReinicio} resume el resultado de reiniciar los personajes.
+ *
+ * @param reiniciados  Número de personajes reiniciados.
+ * @param bloques      Número de sentencias UPDATE ejecutadas (1 si no se reinicia por bloques).
+ * @param milisegundos Duración total del reinicio.
+ *
+ * @version 1.0
+ * @since 17 de octubre de 2026
+ */
+public record ResultadoReinicio(int reiniciados, int bloques, long milisegundos) {
+}
@@ -0,0 +1,41 @@
+package com.viewnext.kidaprojects.apipersonajes.model;
+
+/**
+ * La enumeración {@code TipoEventoPersonaje} indica qué cambio sobre un personaje
+ * describe un {@code EventoPersonaje}.
+ *
+ * @version 1.0
+ * @since 17 de octubre de 2026
+ */
+public enum TipoEventoPersonaje {
+
+	/** Se ha creado un personaje. */
+	CREADO,
+
+	/** Se ha importado un lote de personajes; no lleva personaje. */
+	IMPORTADOS,
+
+	/** Un personaje ha recibido daño y sigue vivo. */
+	DAMAGE,
+
+	/** Un personaje ha recibido daño y su vida ha llegado a cero. */
+	MUERTE,
+
+	/** Un personaje ha ganado experiencia, con o sin subidas de nivel. */
+	EXPERIENCIA,
+
+	/** Un personaje ha subido de nivel. */
+	NIVEL,
+
+	/** Se ha activado o desactivado un personaje. */
+	ACTIVIDAD,
+
+	/** Se han reiniciado todos los personajes; no lleva personaje. */
+	REINICIO,
+
+	/**
+	 * Se han perdido eventos anteriores al pedido al reanudar el flujo, por lo que el
+	 * cliente debe volver a leer los personajes que le interesan.
+	 */
+	RESINCRONIZAR
+}
@@ -0,0 +1,34 @@
+package com.viewnext.kidaprojects.apipersonajes.model;
+
+/**
+ * El registro {@code VersionPersonaje} contiene lo mínimo de un personaje para saber si
+ * ha cambiado: su versión y su vida actual. La vida se incluye porque el daño acumulado
+ * en modo write-behind cambia la vida sin cambiar todavía la versión de la fila.
+ *
+ * @param version    Versión de la fila del personaje.
+ * @param vidaActual Vida actual del personaje, incluyendo el daño pendiente de volcar.
+ *
+ * @version 1.0
+ * @since 17 de octubre de 2026
+ */
+public record VersionPersonaje(long version, int vidaActual) {
+
+	/**
+	 * Obtiene la versión de un personaje ya cargado.
+	 *
+	 * @param personaje El personaje.
+	 * @return Su versión.
+	 */
+	public static VersionPersonaje de(Personaje personaje) {
+		return new VersionPersonaje(personaje.getVersion(), personaje.getVidaActual());
+	}
+
+	/**
+	 * Construye un ETag fuerte, ya entre comillas, a partir de la versión.
+	 *
+	 * @return El ETag del personaje.
+	 */
+	public String etag() {
+		return "\"" + version + "-" + vidaActual + "\"";
+	}
+}
@@ -0,0 +1,128 @@
+package com.viewnext.kidaprojects.apipersonajes.replicas;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.viewnext.kidaprojects.apipersonajes.config.ReplicasProperties;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * La clase {@code DataSourceEnrutado} separa las lecturas de las escrituras a nivel de
+ * DataSource: las conexiones de las transacciones de solo lectura
+ * ({@code @Transactional(readOnly = true)}) se piden a las réplicas, por turnos, y todas
+ * las demás a la base de datos principal.
+ *
+ * <p>
+ * La ruta se decide al pedir la conexión física, así que debe usarse detrás de un
+ * {@code LazyConnectionDataSourceProxy}: JPA pide la conexión al empezar la transacción,
+ * antes de que se sepa si es de solo lectura, y el proxy retrasa la petición hasta la
+ * primera sentencia. Las lecturas de un cliente que acaba de escribir van a la principal
+ * mientras dure su ventana de {@code LecturasPropias}.
+ * </p>
+ *
+ * <p>
+ * Cada conexión se cuenta en {@code personaje.datasource.ruta}, etiquetada con el destino
+ * ({@code primaria}, {@code replica-0}, {@code replica-1}...) y el motivo
+ * ({@code escritura}, {@code lectura} o {@code lectura-propia}).
+ * </p>
+ *
+ * @version 1.0
+ * @since 18 de octubre de 2026
+ */
+public class DataSourceEnrutado extends AbstractRoutingDataSource implements AutoCloseable {
+
+	private static final String PRIMARIA = "primaria";
+
+	private final LecturasPropias lecturasPropias;
+	private final List<HikariDataSource> replicas = new ArrayList<>();
+	private final List<Counter> lecturas = new ArrayList<>();
+	private final Counter escrituras;
+	private final Counter lecturasPropiasPrimaria;
+	private final AtomicInteger turno = new AtomicInteger();
+
+	/**
+	 * Constructor de la clase {@code DataSourceEnrutado}. Abre un pool de conexiones por
+	 * réplica.
+	 *
+	 * @param primaria        DataSource de la base de datos principal.
+	 * @param conexiones      Conexiones de las réplicas.
+	 * @param lecturasPropias Registro de las escrituras recientes de cada cliente.
+	 * @param registry        Registro de métricas.
+	 */
+	public DataSourceEnrutado(DataSource primaria, List<ReplicasProperties.Conexion> conexiones,
+			LecturasPropias lecturasPropias, MeterRegistry registry) {
+		if (conexiones.isEmpty()) {
+			throw new IllegalStateException("No hay ninguna réplica en personaje.replicas.datasources");
+		}
+		this.lecturasPropias = lecturasPropias;
+
+		Map<Object, Object> destinos = new HashMap<>();
+		destinos.put(PRIMARIA, primaria);
+
+		for (int i = 0; i < conexiones.size(); i++) {
+			ReplicasProperties.Conexion conexion = conexiones.get(i);
+			HikariDataSource replica = DataSourceBuilder.create().type(HikariDataSource.class).url(conexion.getUrl())
+					.username(conexion.getUsername()).password(conexion.getPassword()).build();
+			replica.setPoolName("personajes-replica-" + i);
+			replica.setMaximumPoolSize(conexion.getMaxConexiones());
+			replica.setReadOnly(true);
+
+			replicas.add(replica);
+			destinos.put(i, replica);
+			lecturas.add(contador(registry, "replica-" + i, "lectura"));
+		}
+
+		this.escrituras = contador(registry, PRIMARIA, "escritura");
+		this.lecturasPropiasPrimaria = contador(registry, PRIMARIA, "lectura-propia");
+		setTargetDataSources(destinos);
+		setDefaultTargetDataSource(primaria);
+		afterPropertiesSet();
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			lecturasPropias.registrarEscritura();
+			escrituras.increment();
+			return PRIMARIA;
+		}
+
+		if (lecturasPropias.enVentana()) {
+			lecturasPropiasPrimaria.increment();
+			return PRIMARIA;
+		}
+
+		int replica = Math.floorMod(turno.getAndIncrement(), replicas.size());
+		lecturas.get(replica).increment();
+		return replica;
+	}
+
+	/**
+	 * Cierra los pools de conexiones de las réplicas. La base de datos principal la cierra
+	 * Spring, que la creó.
+	 */
+	@Override
+	public void close() {
+		replicas.forEach(HikariDataSource::close);
+	}
+
+	private static Counter contador(MeterRegistry registry, String destino, String motivo) {
+		return Counter.builder("personaje.datasource.ruta")
+				.description("Conexiones pedidas a cada base de datos según el tipo de transacción")
+				.tag("destino", destino)
+				.tag("motivo", motivo)
+				.register(registry);
+	}
+}
@@ -0,0 +1,45 @@
+package com.viewnext.kidaprojects.apipersonajes.replicas;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * La clase {@code LecturaPropiaFilter} identifica al cliente de cada petición HTTP por una
+ * cabecera y lo fija en {@code LecturasPropias} mientras se atiende la petición.
+ *
+ * @version 1.0
+ * @since 18 de octubre de 2026
+ */
+public class LecturaPropiaFilter extends OncePerRequestFilter {
+
+	private final LecturasPropias lecturasPropias;
+	private final String cabecera;
+
+	/**
+	 * Constructor de la clase {@code LecturaPropiaFilter}.
+	 *
+	 * @param lecturasPropias Registro de las escrituras recientes de cada cliente.
+	 * @param cabecera        Cabecera HTTP que identifica al cliente.
+	 */
+	public LecturaPropiaFilter(LecturasPropias lecturasPropias, String cabecera) {
+		this.lecturasPropias = lecturasPropias;
+		this.cabecera = cabecera;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		lecturasPropias.abrir(request.getHeader(cabecera));
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			lecturasPropias.cerrar();
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.viewnext.kidaprojects.apipersonajes.replicas;
+
+import java.time.Duration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * La clase {@code LecturasPropias} recuerda qué clientes han escrito hace poco, para que
+ * {@code DataSourceEnrutado} envíe sus lecturas a la base de datos principal durante una
+ * ventana de tiempo y el cliente vea sus propios cambios aunque las réplicas vayan con
+ * retraso.
+ *
+ * <p>
+ * El cliente de la petición en curso lo fija {@code LecturaPropiaFilter} en el hilo que la
+ * atiende. Sin cliente, o con una ventana de 0, todas las lecturas van a las réplicas. El
+ * trabajo que una petición pasa a otro hilo debe llevarse el cliente consigo.
+ * </p>
+ *
+ * @version 1.0
+ * @since 18 de octubre de 2026
+ */
+public class LecturasPropias {
+
+	private final ThreadLocal<String> cliente = new ThreadLocal<>();
+	private final Cache<String, Boolean> escrituras;
+	private final boolean activa;
+
+	/**
+	 * Constructor de la clase {@code LecturasPropias}.
+	 *
+	 * @param ventana     Tiempo durante el que un cliente lee de la base de datos principal tras escribir.
+	 * @param maxClientes Número máximo de clientes recordados a la vez.
+	 */
+	public LecturasPropias(Duration ventana, long maxClientes) {
+		this.activa = !ventana.isZero();
+		this.escrituras = Caffeine.newBuilder()
+				.maximumSize(maxClientes)
+				.expireAfterWrite(ventana)
+				.build();
+	}
+
+	/**
+	 * Fija el cliente de la petición que atiende el hilo actual.
+	 *
+	 * @param idCliente El identificador del cliente, o {@code null} si la petición no lo indica.
+	 */
+	public void abrir(String idCliente) {
+		cliente.set(idCliente);
+	}
+
+	/**
+	 * Devuelve el cliente del hilo actual, para volver a fijarlo con {@link #abrir(String)}
+	 * en otro hilo que continúe su petición.
+	 *
+	 * @return El identificador del cliente, o {@code null} si no hay cliente.
+	 */
+	public String clienteActual() {
+		return cliente.get();
+	}
+
+	/**
+	 * Olvida el cliente del hilo actual al terminar su petición.
+	 */
+	public void cerrar() {
+		cliente.remove();
+	}
+
+	/**
+	 * Registra que el cliente del hilo actual ha escrito, lo que abre o alarga su ventana.
+	 */
+	public void registrarEscritura() {
+		String actual = cliente.get();
+		if (activa && actual != null) {
+			escrituras.put(actual, Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Indica si el cliente del hilo actual ha escrito dentro de la ventana.
+	 *
+	 * @return {@code true} si sus lecturas deben ir a la base de datos principal.
+	 */
+	public boolean enVentana() {
+		String actual = cliente.get();
+		return activa && actual != null && escrituras.getIfPresent(actual) != null;
+	}
+}
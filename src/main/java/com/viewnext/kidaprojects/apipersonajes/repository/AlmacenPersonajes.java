@@ -0,0 +1,52 @@
+package com.viewnext.kidaprojects.apipersonajes.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.model.VersionPersonaje;
+
+/**
+ * La interfaz {@code AlmacenPersonajes} declara las operaciones sobre {@code Personaje}
+ * que usa la aplicación, y es el tipo que se inyecta en el servicio.
+ *
+ * <p>
+ * {@code PersonajeRepository} la implementa con JPA; los motores alternativos
+ * ({@code PersonajeRepositoryMemoria}, {@code PersonajeRepositoryShards}) la implementan
+ * directamente, sin tener que soportar el resto de {@code JpaRepository}. Las
+ * operaciones se describen en {@code PersonajeRepository}.
+ * </p>
+ *
+ * @version 1.0
+ * @since 18 de octubre de 2026
+ */
+public interface AlmacenPersonajes extends PersonajeRepositoryCustom {
+
+    Optional<Personaje> findById(Integer idPersonaje);
+
+    List<Personaje> findAll();
+
+    List<Personaje> findPersonajesActivos();
+
+    List<Personaje> findPersonajesDesde(int after, Pageable pageable);
+
+    List<Personaje> findPersonajesActivosDesde(int after, Pageable pageable);
+
+    Optional<VersionPersonaje> findVersionPersonaje(int idPersonaje);
+
+    int findMaxIdPersonaje();
+
+    <S extends Personaje> S save(S personaje);
+
+    <S extends Personaje> List<S> saveAll(Iterable<S> personajes);
+
+    int aplicarDamage(int idPersonaje, int damage);
+
+    int aplicarExperiencia(int idPersonaje, int experiencia);
+
+    int reiniciarTodos();
+
+    int reiniciarRango(int desde, int hasta);
+}
@@ -1,11 +1,17 @@
 package com.viewnext.kidaprojects.apipersonajes.repository;
 
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.model.VersionPersonaje;
 
 /**
  * La interfaz {@code PersonajeRepository} proporciona métodos para acceder y gestionar
@@ -15,10 +21,47 @@ import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
  * El autor de esta interfaz es Víctor Colorado "Kid A".
  * </p>
  *
+ * <p>
+ * Todas las sentencias UPDATE masivas incrementan la versión de las filas que modifican,
+ * para que una escritura concurrente basada en una lectura anterior falle por bloqueo
+ * optimista en lugar de sobrescribirlas.
+ * </p>
+ *
+ * <p>
+ * Es la implementación JPA de {@code AlmacenPersonajes}. Extiende también
+ * {@code PersonajeRepositoryCustom} directamente porque Spring Data solo busca la
+ * implementación de los fragmentos entre las interfaces que el repositorio extiende sin
+ * intermediarios.
+ * </p>
+ *
  * @version 1.0
  * @since 06 de octubre de 2023
  */
-public interface PersonajeRepository extends JpaRepository<Personaje, Integer> {
+public interface PersonajeRepository extends JpaRepository<Personaje, Integer>, PersonajeRepositoryCustom, AlmacenPersonajes {
+
+    /**
+     * Niveles ganados al sumar {@code :experiencia} a la experiencia actual, en JPQL.
+     */
+    String NIVELES_GANADOS = "((p.experiencia + :experiencia - MOD(p.experiencia + :experiencia, 1000)) / 1000)";
+
+    /**
+     * Recupera un personaje por su ID. Se redeclara porque {@code CrudRepository} y
+     * {@code AlmacenPersonajes} lo declaran con tipos distintos.
+     *
+     * @param idPersonaje El ID del personaje.
+     * @return El personaje, o vacío si no existe.
+     */
+    @Override
+    Optional<Personaje> findById(Integer idPersonaje);
+
+    /**
+     * Guarda un personaje. Se redeclara por el mismo motivo que {@link #findById(Integer)}.
+     *
+     * @param personaje El personaje a guardar.
+     * @return El personaje guardado.
+     */
+    @Override
+    <S extends Personaje> S save(S personaje);
 
     /**
      * Recupera una lista de personajes activos en el sistema.
@@ -27,4 +70,113 @@ public interface PersonajeRepository extends JpaRepository<Personaje, Integer> {
      */
     @Query("SELECT p FROM Personaje p WHERE p.activo = true")
     List<Personaje> findPersonajesActivos();
+
+    /**
+     * Recupera una página de personajes ordenados por ID a partir de un cursor.
+     *
+     * @param after    ID del último personaje de la página anterior (excluido).
+     * @param pageable Tamaño de la página; el desplazamiento siempre debe ser 0.
+     * @return Lista de personajes con ID mayor que {@code after}.
+     */
+    @Query("SELECT p FROM Personaje p WHERE p.idPersonaje > :after ORDER BY p.idPersonaje")
+    List<Personaje> findPersonajesDesde(@Param("after") int after, Pageable pageable);
+
+    /**
+     * Recupera una página de personajes activos ordenados por ID a partir de un cursor.
+     *
+     * @param after    ID del último personaje de la página anterior (excluido).
+     * @param pageable Tamaño de la página; el desplazamiento siempre debe ser 0.
+     * @return Lista de personajes activos con ID mayor que {@code after}.
+     */
+    @Query("SELECT p FROM Personaje p WHERE p.activo = true AND p.idPersonaje > :after ORDER BY p.idPersonaje")
+    List<Personaje> findPersonajesActivosDesde(@Param("after") int after, Pageable pageable);
+
+    /**
+     * Recupera solo la versión y la vida actual de un personaje, sin cargar la entidad.
+     *
+     * @param idPersonaje El ID del personaje.
+     * @return La versión del personaje, o vacío si no existe.
+     */
+    @Query("SELECT new com.viewnext.kidaprojects.apipersonajes.model.VersionPersonaje(p.version, p.vidaActual) "
+            + "FROM Personaje p WHERE p.idPersonaje = :idPersonaje")
+    Optional<VersionPersonaje> findVersionPersonaje(@Param("idPersonaje") int idPersonaje);
+
+    /**
+     * Aplica un daño a la vida de un personaje con una única sentencia UPDATE,
+     * de modo que los golpes concurrentes sobre el mismo personaje no se pisan.
+     * Si la vida resultante es menor o igual que cero el personaje queda inactivo.
+     *
+     * <p>
+     * El estado {@code activo} se asigna antes que {@code vidaActual} porque MySQL
+     * evalúa las asignaciones de izquierda a derecha.
+     * </p>
+     *
+     * @param idPersonaje El ID del personaje que recibe el daño.
+     * @param damage      El daño a aplicar.
+     * @return Número de filas actualizadas (0 si el personaje no existe).
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Personaje p SET p.version = p.version + 1, p.activo = CASE WHEN p.vidaActual - :damage <= 0 THEN false ELSE p.activo END, "
+            + "p.vidaActual = p.vidaActual - :damage WHERE p.idPersonaje = :idPersonaje")
+    int aplicarDamage(@Param("idPersonaje") int idPersonaje, @Param("damage") int damage);
+
+    /**
+     * Suma experiencia a un personaje con una única sentencia UPDATE y aplica todas las
+     * subidas de nivel que correspondan. Cada 1000 puntos de experiencia acumulada el
+     * personaje sube un nivel y gana 10 de fuerza, 10 de defensa y 100 de vida total; la
+     * experiencia restante queda por debajo de 1000.
+     *
+     * <p>
+     * Con {@code x = experiencia + :experiencia}, los niveles ganados son
+     * {@code (x - MOD(x, 1000)) / 1000}. La experiencia se asigna la última porque MySQL
+     * evalúa las asignaciones de izquierda a derecha y las anteriores deben ver su valor previo.
+     * </p>
+     *
+     * @param idPersonaje El ID del personaje que recibe la experiencia.
+     * @param experiencia La experiencia a sumar.
+     * @return Número de filas actualizadas (0 si el personaje no existe).
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Personaje p SET p.version = p.version + 1, "
+            + "p.nivel = p.nivel + " + NIVELES_GANADOS + ", "
+            + "p.fuerzaActual = p.fuerzaActual + 10 * " + NIVELES_GANADOS + ", "
+            + "p.defensaActual = p.defensaActual + 10 * " + NIVELES_GANADOS + ", "
+            + "p.vidaTotal = p.vidaTotal + 100 * " + NIVELES_GANADOS + ", "
+            + "p.experiencia = MOD(p.experiencia + :experiencia, 1000) "
+            + "WHERE p.idPersonaje = :idPersonaje")
+    int aplicarExperiencia(@Param("idPersonaje") int idPersonaje, @Param("experiencia") int experiencia);
+
+    /**
+     * Reinicia todos los personajes con una única sentencia UPDATE, sin cargarlos en memoria.
+     *
+     * @return Número de personajes reiniciados.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Personaje p SET p.version = p.version + 1, p.activo = true, p.experiencia = 0, p.nivel = 1, p.vidaActual = p.vidaOriginal")
+    int reiniciarTodos();
+
+    /**
+     * Reinicia los personajes cuyo ID está en el rango {@code (desde, hasta]}. Cada llamada
+     * se ejecuta en su propia transacción para no mantener bloqueos largos sobre la tabla.
+     *
+     * @param desde ID a partir del cual (excluido) se reinicia.
+     * @param hasta ID hasta el cual (incluido) se reinicia.
+     * @return Número de personajes reiniciados.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Personaje p SET p.version = p.version + 1, p.activo = true, p.experiencia = 0, p.nivel = 1, p.vidaActual = p.vidaOriginal "
+            + "WHERE p.idPersonaje > :desde AND p.idPersonaje <= :hasta")
+    int reiniciarRango(@Param("desde") int desde, @Param("hasta") int hasta);
+
+    /**
+     * Recupera el mayor ID de personaje existente.
+     *
+     * @return El mayor ID, o 0 si no hay personajes.
+     */
+    @Query("SELECT COALESCE(MAX(p.idPersonaje), 0) FROM Personaje p")
+    int findMaxIdPersonaje();
 }
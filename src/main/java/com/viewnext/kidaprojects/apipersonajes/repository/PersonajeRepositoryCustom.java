@@ -0,0 +1,90 @@
+package com.viewnext.kidaprojects.apipersonajes.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.springframework.data.domain.Pageable;
+
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+
+/**
+ * La interfaz {@code PersonajeRepositoryCustom} declara las operaciones de
+ * {@code PersonajeRepository} que no pueden expresarse como una única consulta.
+ *
+ * @version 1.0
+ * @since 17 de octubre de 2026
+ */
+public interface PersonajeRepositoryCustom {
+
+    /**
+     * Campos de {@code Personaje} que pueden pedirse en una proyección.
+     */
+    List<String> CAMPOS_PROYECTABLES = List.of("idPersonaje", "nombre", "fuerzaOriginal", "fuerzaActual",
+            "defensaOriginal", "defensaActual", "nivel", "vidaOriginal", "vidaTotal", "vidaActual", "experiencia",
+            "activo", "version");
+
+    /**
+     * Comprueba que todos los campos pedidos se pueden proyectar.
+     *
+     * @param campos Campos pedidos.
+     * @return Los mismos campos.
+     * @throws IllegalArgumentException Si algún campo no está en {@link #CAMPOS_PROYECTABLES}.
+     */
+    static List<String> validarCampos(List<String> campos) {
+        for (String campo : campos) {
+            if (!CAMPOS_PROYECTABLES.contains(campo)) {
+                throw new IllegalArgumentException("Campo desconocido: " + campo);
+            }
+        }
+        return campos;
+    }
+
+    /**
+     * Aplica el daño indicado a varios personajes en una única transacción.
+     *
+     * @param damagePorId Daño total a aplicar por ID de personaje.
+     * @return Los personajes actualizados, ordenados por ID. Los IDs inexistentes se ignoran.
+     */
+    List<Personaje> aplicarDamageLote(Map<Integer, Integer> damagePorId);
+
+    /**
+     * Recorre los personajes ordenados por ID leyéndolos de un cursor de la base de datos,
+     * sin mantener en memoria más que el personaje que se está procesando.
+     *
+     * @param soloActivos Indica si se recorren solo los personajes activos.
+     * @param consumidor  Función que recibe cada personaje.
+     */
+    void recorrer(boolean soloActivos, Consumer<Personaje> consumidor);
+
+    /**
+     * Inserta varios personajes nuevos con un único lote JDBC en su propia transacción.
+     * El ID de cada personaje lo genera la base de datos y no se devuelve.
+     *
+     * @param personajes Los personajes a insertar.
+     * @return Número de personajes insertados.
+     */
+    int insertarLote(List<Personaje> personajes);
+
+    /**
+     * Recupera solo algunos campos de los personajes activos, ordenados por ID, sin
+     * construir la entidad completa. El ID se incluye siempre para poder paginar.
+     *
+     * @param campos   Campos a recuperar; deben estar en {@link #CAMPOS_PROYECTABLES}.
+     * @param after    ID a partir del cual (excluido) se recuperan personajes.
+     * @param pageable Tamaño de la página, o {@code Pageable.unpaged()} para recuperarlos todos.
+     * @return Un mapa por personaje con los campos pedidos, en el orden pedido.
+     * @throws IllegalArgumentException Si algún campo no es proyectable.
+     */
+    List<Map<String, Object>> proyectarActivos(List<String> campos, int after, Pageable pageable);
+
+    /**
+     * Calcula una huella de los personajes a partir de su ID y su versión, leyendo solo
+     * esas dos columnas. La huella cambia cuando se crea, modifica, activa o desactiva
+     * cualquier personaje del conjunto.
+     *
+     * @param soloActivos Indica si la huella cubre solo los personajes activos.
+     * @return La huella del conjunto de personajes.
+     */
+    long huella(boolean soloActivos);
+}
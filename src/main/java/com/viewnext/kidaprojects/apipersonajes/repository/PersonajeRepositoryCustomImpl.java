@@ -0,0 +1,202 @@
+package com.viewnext.kidaprojects.apipersonajes.repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.AvailableHints;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.viewnext.kidaprojects.apipersonajes.model.HuellaPersonajes;
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+
+/**
+ * Implementación JPA de {@code PersonajeRepositoryCustom}.
+ *
+ * @version 1.0
+ * @since 17 de octubre de 2026
+ */
+public class PersonajeRepositoryCustomImpl implements PersonajeRepositoryCustom {
+
+	private static final int FETCH_SIZE = 500;
+
+	private static final String INSERTAR = "INSERT INTO personajes (nombre, fuerza_original, fuerza_actual, "
+			+ "defensa_original, defensa_actual, nivel, vida_original, vida_total, vida_actual, experiencia, activo, "
+			+ "version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	/**
+	 * Constructor que usa Spring Data, que inyecta el {@code EntityManager} y el
+	 * {@code JdbcTemplate} en los campos.
+	 */
+	public PersonajeRepositoryCustomImpl() {
+	}
+
+	/**
+	 * Constructor para los repositorios que se crean a mano con {@code JpaRepositoryFactory},
+	 * como los de cada shard.
+	 *
+	 * @param entityManager {@code EntityManager} compartido de la base de datos.
+	 * @param jdbcTemplate  {@code JdbcTemplate} de la misma base de datos.
+	 */
+	public PersonajeRepositoryCustomImpl(EntityManager entityManager, JdbcTemplate jdbcTemplate) {
+		this.entityManager = entityManager;
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * Carga todos los personajes afectados con una sola consulta bloqueando sus filas,
+	 * aplica el daño en memoria y deja que Hibernate envíe los UPDATE en lotes JDBC
+	 * ({@code hibernate.jdbc.batch_size}) al confirmar la transacción.
+	 */
+	@Override
+	@Transactional
+	public List<Personaje> aplicarDamageLote(Map<Integer, Integer> damagePorId) {
+		List<Personaje> personajes = entityManager
+				.createQuery("SELECT p FROM Personaje p WHERE p.idPersonaje IN :ids ORDER BY p.idPersonaje",
+						Personaje.class)
+				.setParameter("ids", damagePorId.keySet())
+				.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+				.getResultList();
+
+		for (Personaje personaje : personajes) {
+			personaje.setVidaActual(personaje.getVidaActual() - damagePorId.get(personaje.getIdPersonaje()));
+
+			if (personaje.getVidaActual() <= 0) {
+				personaje.setActivo(false);
+			}
+		}
+
+		entityManager.flush();
+		return personajes;
+	}
+
+	/**
+	 * Lee los personajes con un {@code Stream} de JPA y un tamaño de fetch fijo. Cada
+	 * personaje se desvincula del contexto de persistencia tras procesarlo para que el
+	 * consumo de memoria no crezca con el tamaño de la tabla.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public void recorrer(boolean soloActivos, Consumer<Personaje> consumidor) {
+		String consulta = soloActivos
+				? "SELECT p FROM Personaje p WHERE p.activo = true ORDER BY p.idPersonaje"
+				: "SELECT p FROM Personaje p ORDER BY p.idPersonaje";
+
+		try (Stream<Personaje> personajes = entityManager.createQuery(consulta, Personaje.class)
+				.setHint(AvailableHints.HINT_FETCH_SIZE, FETCH_SIZE)
+				.getResultStream()) {
+			personajes.forEach(personaje -> {
+				consumidor.accept(personaje);
+				entityManager.detach(personaje);
+			});
+		}
+	}
+
+	/**
+	 * Inserta los personajes con {@code JdbcTemplate.batchUpdate} en lugar de {@code save},
+	 * porque Hibernate no agrupa en lotes las inserciones con IDs {@code IDENTITY}. Con
+	 * {@code rewriteBatchedStatements=true} el driver de MySQL envía el lote como INSERT
+	 * de varias filas.
+	 */
+	@Override
+	@Transactional
+	public int insertarLote(List<Personaje> personajes) {
+		jdbcTemplate.batchUpdate(INSERTAR, personajes, personajes.size(), (sentencia, personaje) -> {
+			sentencia.setString(1, personaje.getNombre());
+			sentencia.setInt(2, personaje.getFuerzaOriginal());
+			sentencia.setInt(3, personaje.getFuerzaActual());
+			sentencia.setInt(4, personaje.getDefensaOriginal());
+			sentencia.setInt(5, personaje.getDefensaActual());
+			sentencia.setInt(6, personaje.getNivel());
+			sentencia.setInt(7, personaje.getVidaOriginal());
+			sentencia.setInt(8, personaje.getVidaTotal());
+			sentencia.setInt(9, personaje.getVidaActual());
+			sentencia.setInt(10, personaje.getExperiencia());
+			sentencia.setBoolean(11, personaje.isActivo());
+		});
+		return personajes.size();
+	}
+
+	/**
+	 * Construye una consulta JPQL con solo los campos pedidos y lee el resultado como
+	 * {@code Tuple}. Los nombres de campo se comprueban contra una lista blanca antes de
+	 * incluirlos en la consulta.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<Map<String, Object>> proyectarActivos(List<String> campos, int after, Pageable pageable) {
+		Set<String> seleccion = new LinkedHashSet<>();
+		seleccion.add("idPersonaje");
+
+		for (String campo : campos) {
+			if (!CAMPOS_PROYECTABLES.contains(campo)) {
+				throw new IllegalArgumentException("Campo no proyectable: " + campo);
+			}
+			seleccion.add(campo);
+		}
+
+		String select = seleccion.stream().map(campo -> "p." + campo + " AS " + campo)
+				.collect(Collectors.joining(", "));
+		TypedQuery<Tuple> consulta = entityManager.createQuery("SELECT " + select
+				+ " FROM Personaje p WHERE p.activo = true AND p.idPersonaje > :after ORDER BY p.idPersonaje",
+				Tuple.class)
+				.setParameter("after", after);
+
+		if (pageable.isPaged()) {
+			consulta.setMaxResults(pageable.getPageSize());
+		}
+
+		List<Map<String, Object>> resultado = new ArrayList<>();
+		for (Tuple tupla : consulta.getResultList()) {
+			Map<String, Object> fila = new LinkedHashMap<>();
+			for (String campo : seleccion) {
+				fila.put(campo, tupla.get(campo));
+			}
+			resultado.add(fila);
+		}
+		return resultado;
+	}
+
+	/**
+	 * Combina el ID y la versión de cada personaje, en orden de ID, con {@code HuellaPersonajes}.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public long huella(boolean soloActivos) {
+		String consulta = soloActivos
+				? "SELECT p.idPersonaje, p.version FROM Personaje p WHERE p.activo = true ORDER BY p.idPersonaje"
+				: "SELECT p.idPersonaje, p.version FROM Personaje p ORDER BY p.idPersonaje";
+		long huella = HuellaPersonajes.INICIAL;
+
+		try (Stream<Object[]> filas = entityManager.createQuery(consulta, Object[].class)
+				.setHint(AvailableHints.HINT_FETCH_SIZE, FETCH_SIZE)
+				.getResultStream()) {
+			for (Object[] fila : (Iterable<Object[]>) filas::iterator) {
+				huella = HuellaPersonajes.combinar(huella, (Integer) fila[0], (Long) fila[1]);
+			}
+		}
+		return huella;
+	}
+}
@@ -1,25 +1,57 @@
 package com.viewnext.kidaprojects.apipersonajes.restcontroller;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import com.viewnext.kidaprojects.apipersonajes.binario.PersonajeBinario;
 import com.viewnext.kidaprojects.apipersonajes.exception.ReclamarRewardException;
+import com.viewnext.kidaprojects.apipersonajes.model.EventoPersonaje;
+import com.viewnext.kidaprojects.apipersonajes.model.Golpe;
+import com.viewnext.kidaprojects.apipersonajes.model.HuellaPersonajes;
+import com.viewnext.kidaprojects.apipersonajes.model.OrigenRecompensa;
 import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.model.ResultadoImportacion;
+import com.viewnext.kidaprojects.apipersonajes.model.ResultadoReinicio;
+import com.viewnext.kidaprojects.apipersonajes.model.VersionPersonaje;
+import com.viewnext.kidaprojects.apipersonajes.repository.PersonajeRepositoryCustom;
 import com.viewnext.kidaprojects.apipersonajes.service.PersonajeService;
 
 import jakarta.persistence.EntityNotFoundException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * El controlador {@code PersonajeRestController} maneja las solicitudes
@@ -28,6 +60,15 @@ import jakarta.persistence.EntityNotFoundException;
  * reiniciar su estado.
  *
  * <p>
+ * Las lecturas de un personaje y de las listas completas devuelven un ETag fuerte. Si la
+ * petición trae {@code If-None-Match} con el ETag actual se responde {@code 304 Not Modified}
+ * sin cargar ni serializar los personajes: el ETag de un personaje sale de su versión y su
+ * vida, y el de una lista de una huella calculada solo con el ID y la versión de cada fila.
+ * Sin {@code If-None-Match} la huella de la lista se calcula sobre los personajes ya
+ * cargados, sin volver a recorrer la tabla.
+ * </p>
+ *
+ * <p>
  * El autor de esta clase es Víctor Colorado "Kid A".
  * </p>
  *
@@ -40,19 +81,49 @@ public class PersonajeRestController {
 	@Autowired
 	private PersonajeService service;
 
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${personaje.eventos.latido:15s}")
+	private Duration latidoEventos;
+
+	private static final int LIMITE_MAXIMO = 1000;
+	private static final int LIMITE_POR_DEFECTO = 100;
+
 	private static final String PERSONAJE_NOT_FOUND = "Personaje/s no encontrado";
+	private static final String LIMITE_INVALIDO = "El parámetro limit debe estar entre 1 y " + LIMITE_MAXIMO;
+	private static final String SIGUIENTE_CURSOR = "X-Next-After";
+	private static final String CONFLICTO = "El personaje se ha modificado a la vez desde otra petición; inténtalo de nuevo";
+	private static final List<String> CAMPOS_POR_DEFECTO = List.of("idPersonaje", "nombre", "nivel", "vidaActual");
+	private static final String ORIGEN_INVALIDO = "El origen de la recompensa debe ser mision o enemigo";
 	
 
 	/**
-     * Obtiene todos los personajes.
+     * Obtiene todos los personajes. Si se indica {@code after} o {@code limit} se devuelve
+     * una única página ordenada por ID, y la cabecera {@code X-Next-After} contiene el
+     * cursor de la página siguiente cuando puede haber más personajes.
      *
-     * @return ResponseEntity con la lista de personajes si existen, o un mensaje de error si no se encuentran.
+     * @param after ID del último personaje de la página anterior.
+     * @param limit Número máximo de personajes de la página.
+     * @param request La petición, para comprobar {@code If-None-Match} en la lista completa.
+     * @return ResponseEntity con la lista de personajes si existen, 304 si no han cambiado, o un mensaje de error si no se encuentran.
      */
 	@GetMapping(value = "personaje", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<?> showAllPersonajes() {
+	public ResponseEntity<?> showAllPersonajes(@RequestParam(value = "after", required = false) Integer after,
+			@RequestParam(value = "limit", required = false) Integer limit, WebRequest request) {
+		if (after != null || limit != null) {
+			return paginar(after, limit, false);
+		}
+
+		// Solo se calcula la huella cuando el cliente tiene una copia que validar
+		if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+				&& request.checkNotModified(etagLista(false, null))) {
+			return null;
+		}
+
 		try {
 			List<Personaje> listaPersonajes = service.showAll();
-			return ResponseEntity.ok(listaPersonajes);
+			return ResponseEntity.ok().eTag(etagLista(listaPersonajes)).body(listaPersonajes);
 		} catch (EntityNotFoundException e) {
 			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(PERSONAJE_NOT_FOUND);
 		}
@@ -60,31 +131,148 @@ public class PersonajeRestController {
 	}
 
 	/**
-     * Obtiene todos los personajes activos.
+	 * Obtiene todos los personajes en formato NDJSON, escribiéndolos uno a uno a medida
+	 * que se leen de la base de datos.
+	 *
+	 * @return ResponseEntity cuyo cuerpo escribe un personaje JSON por línea.
+	 */
+	@GetMapping(value = "personaje", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> streamPersonajes() {
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(salida -> escribirNdjson(salida, false));
+	}
+
+	/**
+     * Obtiene todos los personajes activos. Admite la misma paginación por cursor que
+     * {@code GET personaje}. Con {@code fields} solo se devuelven los campos indicados,
+     * separados por comas (siempre junto al ID); si {@code fields} está vacío se devuelven
+     * {@code idPersonaje}, {@code nombre}, {@code nivel} y {@code vidaActual}.
      *
-     * @return ResponseEntity con la lista de personajes activos si existen, o un mensaje de error si no se encuentran.
+     * @param after ID del último personaje de la página anterior.
+     * @param limit Número máximo de personajes de la página.
+     * @param fields Campos a devolver de cada personaje.
+     * @param request La petición, para comprobar {@code If-None-Match} en la lista completa.
+     * @return ResponseEntity con la lista de personajes activos si existen, 304 si no han cambiado, o un mensaje de error si no se encuentran.
      */
 	@GetMapping(value = "personaje/activo", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<?> showPersonajesActivos() {
+	public ResponseEntity<?> showPersonajesActivos(@RequestParam(value = "after", required = false) Integer after,
+			@RequestParam(value = "limit", required = false) Integer limit,
+			@RequestParam(value = "fields", required = false) String fields, WebRequest request) {
+		if (fields != null) {
+			return proyectarActivos(after, limit, fields, request);
+		}
+
+		if (after != null || limit != null) {
+			return paginar(after, limit, true);
+		}
+
+		// Solo se calcula la huella cuando el cliente tiene una copia que validar
+		if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+				&& request.checkNotModified(etagLista(true, null))) {
+			return null;
+		}
+
 		try {
 			List<Personaje> listaPersonajes = service.showActivos();
-			return ResponseEntity.ok(listaPersonajes);
+			return ResponseEntity.ok().eTag(etagLista(listaPersonajes)).body(listaPersonajes);
 		} catch (EntityNotFoundException e) {
 			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(PERSONAJE_NOT_FOUND);
 		}
 	}
 
+	/**
+	 * Obtiene todos los personajes activos en formato NDJSON.
+	 *
+	 * @return ResponseEntity cuyo cuerpo escribe un personaje JSON por línea.
+	 */
+	@GetMapping(value = "personaje/activo", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> streamPersonajesActivos() {
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(salida -> escribirNdjson(salida, true));
+	}
+
+	/**
+	 * Exporta todos los personajes en el formato binario de {@code PersonajeBinario},
+	 * escribiéndolos a medida que se leen de la base de datos.
+	 *
+	 * @return ResponseEntity cuyo cuerpo escribe los personajes en formato binario.
+	 */
+	@GetMapping(value = "personaje", produces = PersonajeBinario.MEDIA_TYPE)
+	public ResponseEntity<StreamingResponseBody> exportarPersonajes() {
+		return ResponseEntity.ok().contentType(MediaType.parseMediaType(PersonajeBinario.MEDIA_TYPE))
+				.body(salida -> escribirBinario(salida, false));
+	}
+
+	/**
+	 * Exporta los personajes activos en el formato binario de {@code PersonajeBinario}.
+	 *
+	 * @return ResponseEntity cuyo cuerpo escribe los personajes activos en formato binario.
+	 */
+	@GetMapping(value = "personaje/activo", produces = PersonajeBinario.MEDIA_TYPE)
+	public ResponseEntity<StreamingResponseBody> exportarPersonajesActivos() {
+		return ResponseEntity.ok().contentType(MediaType.parseMediaType(PersonajeBinario.MEDIA_TYPE))
+				.body(salida -> escribirBinario(salida, true));
+	}
+
+	/**
+	 * Envía como Server-Sent Events los cambios de estado de los personajes a medida que
+	 * se confirman. Cada evento lleva su número de secuencia como {@code id}, de modo que un
+	 * {@code EventSource} que se reconecta envía {@code Last-Event-ID} y recibe los eventos
+	 * que se perdió. Cada {@code personaje.eventos.latido} se envía un comentario para que
+	 * los proxies no cierren la conexión inactiva.
+	 *
+	 * @param idPersonajes IDs de los personajes que interesan; si se omite, todos.
+	 * @param desde        ID del último evento recibido, si no se envía {@code Last-Event-ID}.
+	 * @param lastEventId  ID del último evento recibido, enviado por el navegador al reconectar.
+	 * @return Flux de eventos SSE.
+	 */
+	@GetMapping(value = "personaje/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Flux<ServerSentEvent<EventoPersonaje>> eventosSse(
+			@RequestParam(value = "idPersonaje", required = false) Set<Integer> idPersonajes,
+			@RequestParam(value = "desde", required = false) Long desde,
+			@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+		Flux<ServerSentEvent<EventoPersonaje>> eventos = service
+				.eventos(lastEventId != null ? lastEventId : desde, idPersonajes == null ? Set.of() : idPersonajes)
+				.map(evento -> ServerSentEvent.builder(evento)
+						.id(String.valueOf(evento.id()))
+						.event(evento.tipo().name())
+						.build());
+		Flux<ServerSentEvent<EventoPersonaje>> latidos = Flux.interval(latidoEventos)
+				.map(n -> ServerSentEvent.<EventoPersonaje>builder().comment("latido").build());
+
+		return Flux.merge(eventos, latidos);
+	}
+
+	/**
+	 * Envía en formato NDJSON, un evento por línea, los cambios de estado de los personajes.
+	 *
+	 * @param idPersonajes IDs de los personajes que interesan; si se omite, todos.
+	 * @param desde        ID del último evento recibido, para reanudar el flujo.
+	 * @return Flux de eventos.
+	 */
+	@GetMapping(value = "personaje/eventos", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public Flux<EventoPersonaje> eventosNdjson(
+			@RequestParam(value = "idPersonaje", required = false) Set<Integer> idPersonajes,
+			@RequestParam(value = "desde", required = false) Long desde) {
+		return service.eventos(desde, idPersonajes == null ? Set.of() : idPersonajes);
+	}
+
 	/**
      * Obtiene un personaje por su ID.
      *
      * @param idPersonaje El ID del personaje a obtener.
-     * @return ResponseEntity con el personaje si existe, o un mensaje de error si no se encuentra.
+     * @param request La petición, para comprobar {@code If-None-Match}.
+     * @return ResponseEntity con el personaje si existe, 304 si no ha cambiado, o un mensaje de error si no se encuentra.
      */
 	@GetMapping(value = "personaje/{idPersonaje}", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<?> showPersonajeById(@PathVariable("idPersonaje") int idPersonaje) {
+	public ResponseEntity<?> showPersonajeById(@PathVariable("idPersonaje") int idPersonaje, WebRequest request) {
 		try {
+			// Solo se consulta la versión cuando el cliente tiene una copia que validar
+			if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+					&& request.checkNotModified(service.showVersionPersonaje(idPersonaje).etag())) {
+				return null;
+			}
+
 			Personaje personaje = service.showPersonajeById(idPersonaje);
-			return ResponseEntity.ok(personaje);
+			return ResponseEntity.ok().eTag(VersionPersonaje.de(personaje).etag()).body(personaje);
 		} catch (EntityNotFoundException e) {
 			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(PERSONAJE_NOT_FOUND);
 		}
@@ -107,6 +295,23 @@ public class PersonajeRestController {
 		return ResponseEntity.created(location).body(personajeCreado);
 	}
 
+	/**
+	 * Importa personajes de forma masiva desde un array JSON o desde NDJSON (un personaje
+	 * por línea). El cuerpo se lee a medida que llega, sin cargarlo entero en memoria.
+	 *
+	 * @param cuerpo El cuerpo de la petición.
+	 * @return ResponseEntity con el número de personajes insertados y rechazados; 400 si la
+	 *         lectura se detuvo por un error de sintaxis.
+	 * @throws IOException Si no se puede leer el cuerpo.
+	 */
+	@PostMapping(value = "personaje/bulk", produces = MediaType.APPLICATION_JSON_VALUE,
+			consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+	public ResponseEntity<?> importarPersonajes(InputStream cuerpo) throws IOException {
+		ResultadoImportacion resultado = service.importarPersonajes(cuerpo);
+
+		return ResponseEntity.status(resultado.completa() ? HttpStatus.OK : HttpStatus.BAD_REQUEST).body(resultado);
+	}
+
 	/**
 	 * Actualiza la vida de un personaje.
 	 *
@@ -126,53 +331,83 @@ public class PersonajeRestController {
 	}
 
 	/**
-	 * Reclama recompensa de una misión y actualiza el personaje.
+	 * Aplica varios golpes a distintos personajes en una única transacción.
 	 *
-	 * @param idMision El ID de la misión a reclamar.
-	 * @param idPersonaje El ID del personaje que reclama la recompensa.
-	 * @return ResponseEntity con el personaje actualizado.
+	 * @param golpes Lista de golpes (ID de personaje y daño) a aplicar.
+	 * @return ResponseEntity con los personajes actualizados, o un mensaje de error si no se encuentra ninguno.
 	 */
-	@PutMapping(value = "personaje/mision/{idMision}/{idPersonaje}", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<?> reclamarRecompensaMisionAndUpdate(@PathVariable("idMision") int idMision,
-			@PathVariable("idPersonaje") int idPersonaje) {
+	@PostMapping(value = "personaje/damage/batch", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> updateVidaPersonajes(@RequestBody List<Golpe> golpes) {
 		try {
-			Personaje personajeActualizado = service.reclamarRecompensaMision(idMision, idPersonaje);
-			return ResponseEntity.ok(personajeActualizado);
+			List<Personaje> listaPersonajes = service.updateVidaLote(golpes);
+			return ResponseEntity.ok(listaPersonajes);
 		} catch (EntityNotFoundException e) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
-		} catch (ReclamarRewardException e) {
-			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(PERSONAJE_NOT_FOUND);
 		}
+	}
 
+	/**
+	 * Reclama recompensa de una misión y actualiza el personaje. La petición no ocupa un
+	 * hilo del servidor mientras se espera la respuesta del servicio de misiones.
+	 *
+	 * @param idMision El ID de la misión a reclamar.
+	 * @param idPersonaje El ID del personaje que reclama la recompensa.
+	 * @return Mono con el ResponseEntity del personaje actualizado.
+	 */
+	@PutMapping(value = "personaje/mision/{idMision}/{idPersonaje}", produces = MediaType.APPLICATION_JSON_VALUE)
+	public Mono<ResponseEntity<?>> reclamarRecompensaMisionAndUpdate(@PathVariable("idMision") int idMision,
+			@PathVariable("idPersonaje") int idPersonaje) {
+		return responderRecompensa(service.reclamarRecompensaMisionReactivo(idMision, idPersonaje));
 	}
 
 	/**
-	 * Reclama recompensa de un enemigo vencido y actualiza el personaje.
+	 * Reclama recompensa de un enemigo vencido y actualiza el personaje. La petición no
+	 * ocupa un hilo del servidor mientras se espera la respuesta del servicio de enemigos.
 	 *
 	 * @param idEnemigo El ID del enemigo vencido.
 	 * @param idPersonaje El ID del personaje que reclama la recompensa.
-	 * @return ResponseEntity con el personaje actualizado.
+	 * @return Mono con el ResponseEntity del personaje actualizado.
 	 */
 	@PutMapping(value = "personaje/enemigo/{idEnemigo}/{idPersonaje}", produces = MediaType.APPLICATION_JSON_VALUE)
-	public ResponseEntity<?> reclamarRecompensaEnemigoAndUpdate(@PathVariable("idEnemigo") int idEnemigo,
+	public Mono<ResponseEntity<?>> reclamarRecompensaEnemigoAndUpdate(@PathVariable("idEnemigo") int idEnemigo,
 			@PathVariable("idPersonaje") int idPersonaje) {
+		return responderRecompensa(service.reclamarRecompensaEnemigoReactivo(idEnemigo, idPersonaje));
+	}
+	
+	/**
+	 * Elimina de la caché el valor de una recompensa de misión o de enemigo.
+	 *
+	 * @param origen Origen de la recompensa: {@code mision} o {@code enemigo}.
+	 * @param id El ID de la misión o del enemigo.
+	 * @return ResponseEntity sin contenido, o un mensaje de error si el origen no es válido.
+	 */
+	@DeleteMapping(value = "personaje/recompensa/{origen}/{id}")
+	public ResponseEntity<?> invalidarRecompensa(@PathVariable("origen") String origen, @PathVariable("id") int id) {
 		try {
-			Personaje personajeActualizado = service.reclamarRecompensaEnemigo(idEnemigo, idPersonaje);
-			return ResponseEntity.ok(personajeActualizado);
-		} catch (EntityNotFoundException e) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
-		} catch (ReclamarRewardException e) {
-			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+			service.invalidarRecompensa(OrigenRecompensa.valueOf(origen.toUpperCase()), id);
+			return ResponseEntity.noContent().build();
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ORIGEN_INVALIDO);
 		}
+	}
 
+	/**
+	 * Elimina de la caché el valor de todas las recompensas.
+	 *
+	 * @return ResponseEntity sin contenido.
+	 */
+	@DeleteMapping(value = "personaje/recompensa")
+	public ResponseEntity<Void> invalidarRecompensas() {
+		service.invalidarRecompensas();
+		return ResponseEntity.noContent().build();
 	}
-	
+
 	/**
 	 * Actualiza el estado (activo/inactivo) de un personaje.
 	 *
 	 * @param idPersonaje El ID del personaje a actualizar.
 	 * @param estado El nuevo estado del personaje.
-	 * @return ResponseEntity con el personaje actualizado.
+	 * @return ResponseEntity con el personaje actualizado, o 409 si se agotan los reintentos por escrituras concurrentes.
 	 */
 	@PutMapping(value = "personaje/{idPersonaje}/estado", produces = MediaType.APPLICATION_JSON_VALUE)
 	public ResponseEntity<?> setEstadoPersonaje(@PathVariable("idPersonaje") int idPersonaje,
@@ -182,18 +417,181 @@ public class PersonajeRestController {
 			return ResponseEntity.ok(personajeActualizado);
 		} catch (EntityNotFoundException e) {
 			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(PERSONAJE_NOT_FOUND);
+		} catch (OptimisticLockingFailureException e) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(CONFLICTO);
 		}
 	}
 
 	/**
 	 * Reinicia todos los personajes.
 	 *
-	 * @return ResponseEntity con un mensaje de éxito.
+	 * @param bloque Tamaño opcional del rango de IDs reiniciado en cada transacción. Si no
+	 *               se indica, todos los personajes se reinician con una única sentencia.
+	 * @return ResponseEntity con el número de personajes reiniciados, o un mensaje de error si el bloque no es válido.
+	 */
+	@PostMapping(value = "personaje/reinicio", produces = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<?> reiniciarPersonajes(@RequestParam(value = "bloque", required = false) Integer bloque) {
+		try {
+			ResultadoReinicio resultado = bloque == null ? service.reiniciarPersonajes()
+					: service.reiniciarPersonajes(bloque);
+			return ResponseEntity.ok(resultado);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+		}
+	}
+
+	/**
+	 * Devuelve una página de personajes a partir de un cursor.
+	 */
+	private ResponseEntity<?> paginar(Integer after, Integer limit, boolean soloActivos) {
+		int cursor = after == null ? 0 : after;
+		int tamano = limit == null ? LIMITE_POR_DEFECTO : limit;
+
+		if (tamano < 1 || tamano > LIMITE_MAXIMO) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(LIMITE_INVALIDO);
+		}
+
+		List<Personaje> pagina = soloActivos ? service.showActivos(cursor, tamano) : service.showAll(cursor, tamano);
+
+		ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+		if (pagina.size() == tamano) {
+			respuesta.header(SIGUIENTE_CURSOR, String.valueOf(pagina.get(pagina.size() - 1).getIdPersonaje()));
+		}
+		return respuesta.body(pagina);
+	}
+
+	/**
+	 * Devuelve los campos pedidos de los personajes activos, todos o una página a partir de un cursor.
+	 */
+	private ResponseEntity<?> proyectarActivos(Integer after, Integer limit, String fields, WebRequest request) {
+		List<String> campos = Arrays.stream(fields.split(",")).map(String::trim).filter(c -> !c.isEmpty()).toList();
+		if (campos.isEmpty()) {
+			campos = CAMPOS_POR_DEFECTO;
+		}
+
+		try {
+			if (after == null && limit == null) {
+				// Solo se calcula la huella cuando el cliente tiene una copia que validar, y con
+				// campos válidos; si no, el ETag sale de la versión de cada personaje proyectado
+				if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+						&& request.checkNotModified(etagLista(true, PersonajeRepositoryCustom.validarCampos(campos)))) {
+					return null;
+				}
+
+				boolean conVersion = campos.contains("version");
+				List<Map<String, Object>> proyeccion = service.showActivos(conVersion ? campos
+						: Stream.concat(campos.stream(), Stream.of("version")).toList());
+				String etag = etagProyeccion(proyeccion, campos);
+				if (!conVersion) {
+					proyeccion.forEach(fila -> fila.remove("version"));
+				}
+				return ResponseEntity.ok().eTag(etag).body(proyeccion);
+			}
+
+			int tamano = limit == null ? LIMITE_POR_DEFECTO : limit;
+			if (tamano < 1 || tamano > LIMITE_MAXIMO) {
+				return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(LIMITE_INVALIDO);
+			}
+
+			List<Map<String, Object>> pagina = service.showActivos(campos, after == null ? 0 : after, tamano);
+
+			ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+			if (pagina.size() == tamano) {
+				respuesta.header(SIGUIENTE_CURSOR, String.valueOf(pagina.get(pagina.size() - 1).get("idPersonaje")));
+			}
+			return respuesta.body(pagina);
+		} catch (EntityNotFoundException e) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body(PERSONAJE_NOT_FOUND);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+		}
+	}
+
+	/**
+	 * Construye el ETag de una lista completa a partir de su huella. Si la lista es una
+	 * proyección, el ETag incluye también los campos pedidos, porque cambian la representación.
+	 */
+	private String etagLista(boolean soloActivos, List<String> campos) {
+		String variante = campos == null ? "" : "-" + Integer.toHexString(campos.hashCode());
+		return "\"" + Long.toHexString(service.huellaPersonajes(soloActivos)) + variante + "\"";
+	}
+
+	/**
+	 * Construye el ETag de una proyección ya cargada que incluye la versión de cada
+	 * personaje, igual al que devolvería {@link #etagLista(boolean, List)} para los mismos
+	 * personajes y campos.
+	 */
+	private static String etagProyeccion(List<Map<String, Object>> proyeccion, List<String> campos) {
+		long huella = HuellaPersonajes.INICIAL;
+		for (Map<String, Object> fila : proyeccion) {
+			huella = HuellaPersonajes.combinar(huella, ((Number) fila.get("idPersonaje")).intValue(),
+					((Number) fila.get("version")).longValue());
+		}
+		return "\"" + Long.toHexString(huella) + "-" + Integer.toHexString(campos.hashCode()) + "\"";
+	}
+
+	/**
+	 * Construye el ETag de una lista completa ya cargada, igual al que devolvería
+	 * {@link #etagLista(boolean, List)} para los mismos personajes.
+	 */
+	private static String etagLista(List<Personaje> personajes) {
+		return "\"" + Long.toHexString(HuellaPersonajes.de(personajes)) + "\"";
+	}
+
+	/**
+	 * Escribe los personajes en la salida en formato NDJSON a medida que se leen.
+	 */
+	private void escribirNdjson(OutputStream salida, boolean soloActivos) throws IOException {
+		ObjectWriter writer = objectMapper.writerFor(Personaje.class);
+		BufferedOutputStream buffer = new BufferedOutputStream(salida);
+
+		try {
+			service.recorrerPersonajes(soloActivos, personaje -> {
+				try {
+					buffer.write(writer.writeValueAsBytes(personaje));
+					buffer.write('\n');
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		buffer.flush();
+	}
+
+	/**
+	 * Escribe los personajes en la salida en formato binario a medida que se leen.
+	 */
+	private void escribirBinario(OutputStream salida, boolean soloActivos) throws IOException {
+		PersonajeBinario.Escritor escritor = PersonajeBinario.escritor(salida);
+
+		try {
+			service.recorrerPersonajes(soloActivos, personaje -> {
+				try {
+					escritor.escribir(personaje);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		escritor.close();
+	}
+
+	/**
+	 * Convierte el resultado de reclamar una recompensa en la respuesta HTTP correspondiente.
 	 */
-	@PostMapping(value = "personaje/reinicio")
-	public ResponseEntity<String> reiniciarPersonajes() {
-		service.reiniciarPersonajes();
-		return ResponseEntity.ok("Personajes reiniciados");
+	private Mono<ResponseEntity<?>> responderRecompensa(Mono<Personaje> personajeActualizado) {
+		return personajeActualizado
+				.<ResponseEntity<?>>map(ResponseEntity::ok)
+				.onErrorResume(EntityNotFoundException.class,
+						e -> Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage())))
+				.onErrorResume(ReclamarRewardException.class,
+						e -> Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage())));
 	}
 
 }
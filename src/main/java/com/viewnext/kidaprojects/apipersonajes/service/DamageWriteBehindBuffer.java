@@ -0,0 +1,298 @@
+package com.viewnext.kidaprojects.apipersonajes.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.viewnext.kidaprojects.apipersonajes.cache.PersonajeCache;
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.repository.AlmacenPersonajes;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * La clase {@code DamageWriteBehindBuffer} acumula en memoria el daño pendiente de cada
+ * personaje y lo vuelca en la base de datos con una única actualización por personaje,
+ * bien de forma periódica, bien al superar un umbral de daño acumulado.
+ *
+ * <p>
+ * Cada personaje se protege con uno de los cerrojos de un array de cerrojos (striping),
+ * de modo que la lectura de un personaje más su daño pendiente y el volcado de ese daño
+ * nunca se intercalan: una lectura siempre ve el daño ya aplicado en la base de datos o
+ * el daño todavía pendiente, nunca ninguno de los dos ni ambos.
+ * </p>
+ *
+ * <p>
+ * El modo se activa con la propiedad {@code personaje.damage.write-behind.enabled}.
+ * </p>
+ *
+ * @version 1.0
+ * @since 17 de octubre de 2026
+ */
+@Component
+public class DamageWriteBehindBuffer {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(DamageWriteBehindBuffer.class);
+
+	private static final int NUM_CERROJOS = 64;
+	private static final int PASADAS_DRENADO = 3;
+
+	private final AlmacenPersonajes personajeRepository;
+	private final PersonajeCache personajeCache;
+	private final boolean activo;
+	private final int umbral;
+	private final int maxPorVolcado;
+
+	private final ReentrantLock[] cerrojos = new ReentrantLock[NUM_CERROJOS];
+	private final Map<Integer, Integer> pendientes = new ConcurrentHashMap<>();
+
+	private final Counter golpesAcumulados;
+	private final Timer tiempoVolcado;
+	private final Counter volcadosFallidos;
+
+	/**
+	 * Constructor de la clase {@code DamageWriteBehindBuffer}.
+	 *
+	 * @param personajeRepository Repositorio en el que se vuelca el daño acumulado.
+	 * @param personajeCache      Caché de personajes que se invalida tras cada volcado.
+	 * @param registry            Registro de métricas.
+	 * @param activo              Indica si el modo write-behind está activo.
+	 * @param umbral              Daño acumulado a partir del cual se vuelca un personaje sin esperar.
+	 * @param maxPorVolcado       Número máximo de personajes volcados en cada ejecución periódica.
+	 */
+	public DamageWriteBehindBuffer(AlmacenPersonajes personajeRepository, PersonajeCache personajeCache,
+			MeterRegistry registry,
+			@Value("${personaje.damage.write-behind.enabled:false}") boolean activo,
+			@Value("${personaje.damage.write-behind.umbral:1000}") int umbral,
+			@Value("${personaje.damage.write-behind.max-por-volcado:500}") int maxPorVolcado) {
+		this.personajeRepository = personajeRepository;
+		this.personajeCache = personajeCache;
+		this.activo = activo;
+		this.umbral = umbral;
+		this.maxPorVolcado = maxPorVolcado;
+
+		for (int i = 0; i < NUM_CERROJOS; i++) {
+			cerrojos[i] = new ReentrantLock();
+		}
+
+		Gauge.builder("personaje.damage.pendiente.personajes", pendientes, Map::size)
+				.description("Personajes con daño pendiente de volcar")
+				.register(registry);
+		Gauge.builder("personaje.damage.pendiente.total", pendientes,
+				p -> p.values().stream().mapToLong(Integer::longValue).sum())
+				.description("Daño total pendiente de volcar")
+				.register(registry);
+		this.golpesAcumulados = Counter.builder("personaje.damage.golpes.acumulados")
+				.description("Golpes acumulados en memoria en lugar de escribirse uno a uno")
+				.register(registry);
+		this.tiempoVolcado = Timer.builder("personaje.damage.volcado")
+				.description("Latencia del volcado del daño acumulado de un personaje")
+				.register(registry);
+		this.volcadosFallidos = Counter.builder("personaje.damage.volcado.fallidos")
+				.description("Volcados que han fallado; el daño sigue pendiente y se reintenta en el siguiente")
+				.register(registry);
+	}
+
+	/**
+	 * Indica si el modo write-behind está activo.
+	 *
+	 * @return {@code true} si el daño se acumula en memoria.
+	 */
+	public boolean isActivo() {
+		return activo;
+	}
+
+	/**
+	 * Acumula un golpe sobre un personaje y devuelve su estado incluyendo el daño pendiente.
+	 * Si el golpe supera el umbral y el volcado falla, el golpe se da igualmente por aplicado:
+	 * sigue pendiente y se vuelca más tarde, así que el cliente no debe repetirlo.
+	 *
+	 * @param idPersonaje El ID del personaje que recibe el daño.
+	 * @param damage      El daño a acumular.
+	 * @param lector      Función que carga el estado persistido del personaje.
+	 * @return El personaje con el daño pendiente aplicado, o vacío si no existe.
+	 */
+	public Optional<Personaje> acumular(int idPersonaje, int damage, IntFunction<Optional<Personaje>> lector) {
+		ReentrantLock cerrojo = cerrojo(idPersonaje);
+		Optional<Personaje> resultado;
+		int pendiente;
+
+		cerrojo.lock();
+		try {
+			Optional<Personaje> persistido = lector.apply(idPersonaje);
+			if (persistido.isEmpty()) {
+				return Optional.empty();
+			}
+
+			pendiente = pendientes.merge(idPersonaje, damage, Integer::sum);
+			golpesAcumulados.increment();
+			resultado = Optional.of(aplicarPendiente(persistido.get(), pendiente));
+		} finally {
+			cerrojo.unlock();
+		}
+
+		if (pendiente >= umbral) {
+			volcarSinFallar(idPersonaje);
+		}
+
+		return resultado;
+	}
+
+	/**
+	 * Lee un personaje aplicando el daño que todavía no se ha volcado.
+	 *
+	 * @param idPersonaje El ID del personaje a leer.
+	 * @param lector      Función que carga el estado persistido del personaje.
+	 * @return El personaje con el daño pendiente aplicado, o vacío si no existe.
+	 */
+	public Optional<Personaje> leer(int idPersonaje, IntFunction<Optional<Personaje>> lector) {
+		ReentrantLock cerrojo = cerrojo(idPersonaje);
+
+		cerrojo.lock();
+		try {
+			Integer pendiente = pendientes.get(idPersonaje);
+			Optional<Personaje> persistido = lector.apply(idPersonaje);
+
+			return pendiente == null ? persistido : persistido.map(p -> aplicarPendiente(p, pendiente));
+		} finally {
+			cerrojo.unlock();
+		}
+	}
+
+	/**
+	 * Obtiene el daño pendiente de volcar de un personaje.
+	 *
+	 * @param idPersonaje El ID del personaje.
+	 * @return El daño pendiente, o 0 si no tiene.
+	 */
+	public int pendiente(int idPersonaje) {
+		return pendientes.getOrDefault(idPersonaje, 0);
+	}
+
+	/**
+	 * Vuelca el daño pendiente de un personaje con una única actualización.
+	 *
+	 * @param idPersonaje El ID del personaje a volcar.
+	 */
+	public void volcar(int idPersonaje) {
+		ReentrantLock cerrojo = cerrojo(idPersonaje);
+
+		cerrojo.lock();
+		try {
+			Integer pendiente = pendientes.remove(idPersonaje);
+			if (pendiente == null) {
+				return;
+			}
+
+			try {
+				tiempoVolcado.record(() -> personajeRepository.aplicarDamage(idPersonaje, pendiente));
+				personajeCache.invalidar(idPersonaje);
+			} catch (RuntimeException e) {
+				// Devolvemos el daño al buffer para no perderlo y que se reintente en el siguiente volcado
+				pendientes.merge(idPersonaje, pendiente, Integer::sum);
+				volcadosFallidos.increment();
+				throw e;
+			}
+		} finally {
+			cerrojo.unlock();
+		}
+	}
+
+	/**
+	 * Vuelca periódicamente, como mucho, {@code maxPorVolcado} personajes.
+	 */
+	@Scheduled(fixedDelayString = "${personaje.damage.write-behind.intervalo-ms:200}")
+	public void volcarPeriodicamente() {
+		if (!activo) {
+			return;
+		}
+
+		List<Integer> ids = new ArrayList<>(maxPorVolcado);
+		for (Integer id : pendientes.keySet()) {
+			if (ids.size() == maxPorVolcado) {
+				break;
+			}
+			ids.add(id);
+		}
+
+		ids.forEach(this::volcarSinFallar);
+	}
+
+	/**
+	 * Descarta todo el daño pendiente, por ejemplo cuando se reinician los personajes. Toma
+	 * todos los cerrojos en orden para no intercalarse con un golpe que se está acumulando.
+	 */
+	public void descartarPendientes() {
+		int bloqueados = 0;
+		try {
+			for (; bloqueados < NUM_CERROJOS; bloqueados++) {
+				cerrojos[bloqueados].lock();
+			}
+			pendientes.clear();
+		} finally {
+			while (bloqueados > 0) {
+				cerrojos[--bloqueados].unlock();
+			}
+		}
+	}
+
+	/**
+	 * Vuelca todo el daño pendiente antes de detener la aplicación. Un personaje que no se
+	 * puede volcar no impide volcar los demás; tras {@code PASADAS_DRENADO} pasadas se deja
+	 * de reintentar y el daño que sigue pendiente se registra como error con su ID, para no
+	 * bloquear la parada mientras la base de datos falla.
+	 */
+	@PreDestroy
+	public void drenar() {
+		for (int pasada = 0; pasada < PASADAS_DRENADO && !pendientes.isEmpty(); pasada++) {
+			new ArrayList<>(pendientes.keySet()).forEach(this::volcarSinFallar);
+		}
+
+		if (!pendientes.isEmpty()) {
+			LOGGER.error("No se ha podido volcar el daño pendiente de {} personajes (ID=daño): {}", pendientes.size(),
+					new TreeMap<>(pendientes));
+		}
+	}
+
+	/**
+	 * Vuelca un personaje dejando su daño pendiente si el volcado falla.
+	 */
+	private void volcarSinFallar(int idPersonaje) {
+		try {
+			volcar(idPersonaje);
+		} catch (RuntimeException e) {
+			LOGGER.warn("No se ha podido volcar el daño del personaje {}; se reintentará: {}", idPersonaje,
+					e.getMessage());
+		}
+	}
+
+	private ReentrantLock cerrojo(int idPersonaje) {
+		return cerrojos[Math.floorMod(idPersonaje, NUM_CERROJOS)];
+	}
+
+	private static Personaje aplicarPendiente(Personaje persistido, int pendiente) {
+		Personaje personaje = new Personaje(persistido);
+
+		personaje.setVidaActual(persistido.getVidaActual() - pendiente);
+		if (personaje.getVidaActual() <= 0) {
+			personaje.setActivo(false);
+		}
+
+		return personaje;
+	}
+}
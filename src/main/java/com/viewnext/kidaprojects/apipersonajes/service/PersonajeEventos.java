@@ -0,0 +1,168 @@
+package com.viewnext.kidaprojects.apipersonajes.service;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.viewnext.kidaprojects.apipersonajes.model.EventoPersonaje;
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.model.TipoEventoPersonaje;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * La clase {@code PersonajeEventos} difunde a los suscriptores los cambios de estado de
+ * los personajes, para que los servicios de misiones y enemigos no tengan que consultar
+ * la API periódicamente.
+ *
+ * <p>
+ * Los eventos se numeran en orden de publicación y se guardan los últimos
+ * {@code personaje.eventos.historial} para que un cliente que se reconecta pueda reanudar
+ * el flujo a partir del último evento que recibió. Si ese evento ya no está en el historial,
+ * o es posterior al último publicado porque la numeración ha vuelto a empezar al reiniciar
+ * la aplicación, el flujo empieza con un evento {@code RESINCRONIZAR} con el ID del último
+ * evento publicado, y sigue con los nuevos.
+ * </p>
+ *
+ * <p>
+ * Cada suscriptor tiene su propio buffer de {@code personaje.eventos.buffer-suscriptor}
+ * eventos. Si un suscriptor lento lo llena, se descartan sus eventos más antiguos; el
+ * publicador nunca se bloquea ni afecta a los demás suscriptores.
+ * </p>
+ *
+ * @version 1.0
+ * @since 17 de octubre de 2026
+ */
+@Component
+public class PersonajeEventos {
+
+	private final int historial;
+	private final int bufferSuscriptor;
+	private final Sinks.Many<EventoPersonaje> sink;
+	private final AtomicInteger suscriptores = new AtomicInteger();
+	private long secuencia;
+
+	private final Counter publicados;
+	private final Counter descartados;
+
+	/**
+	 * Constructor de la clase {@code PersonajeEventos}.
+	 *
+	 * @param registry         Registro de métricas.
+	 * @param historial        Número de eventos recientes que se guardan para reanudar el flujo.
+	 * @param bufferSuscriptor Número máximo de eventos pendientes de enviar a cada suscriptor.
+	 */
+	public PersonajeEventos(MeterRegistry registry,
+			@Value("${personaje.eventos.historial:10000}") int historial,
+			@Value("${personaje.eventos.buffer-suscriptor:1000}") int bufferSuscriptor) {
+		this.historial = historial;
+		this.bufferSuscriptor = bufferSuscriptor;
+		this.sink = Sinks.many().replay().limit(historial);
+
+		Gauge.builder("personaje.eventos.suscriptores", suscriptores, AtomicInteger::get)
+				.description("Suscriptores conectados al flujo de eventos de personajes")
+				.register(registry);
+		this.publicados = Counter.builder("personaje.eventos.publicados")
+				.description("Eventos de personajes publicados")
+				.register(registry);
+		this.descartados = Counter.builder("personaje.eventos.descartados")
+				.description("Eventos descartados por llenarse el buffer de un suscriptor lento")
+				.register(registry);
+	}
+
+	/**
+	 * Publica un cambio sobre un personaje. Si hay una transacción en curso, el evento se
+	 * publica solo cuando se confirma.
+	 *
+	 * @param tipo      Tipo de cambio.
+	 * @param personaje Estado del personaje tras el cambio.
+	 */
+	public void publicar(TipoEventoPersonaje tipo, Personaje personaje) {
+		Personaje copia = new Personaje(personaje);
+		trasConfirmar(() -> emitir(tipo, copia.getIdPersonaje(), copia));
+	}
+
+	/**
+	 * Publica un cambio que afecta a todos los personajes o a personajes sin ID conocido.
+	 *
+	 * @param tipo Tipo de cambio.
+	 */
+	public void publicar(TipoEventoPersonaje tipo) {
+		trasConfirmar(() -> emitir(tipo, 0, null));
+	}
+
+	/**
+	 * Obtiene el flujo de eventos a partir de un evento dado.
+	 *
+	 * @param ultimoId     ID del último evento recibido por el cliente, o {@code null} para
+	 *                     recibir solo los eventos nuevos.
+	 * @param idPersonajes IDs de los personajes que interesan, o vacío para todos. Los
+	 *                     eventos que afectan a todos los personajes se envían siempre.
+	 * @return El flujo de eventos, que no termina mientras el cliente siga suscrito.
+	 */
+	public Flux<EventoPersonaje> suscribir(Long ultimoId, Set<Integer> idPersonajes) {
+		return Flux.defer(() -> {
+			long desde;
+			boolean fueraDelHistorial;
+			synchronized (this) {
+				if (ultimoId == null || ultimoId > secuencia) {
+					// Un ID mayor que la secuencia es de antes de reiniciar la aplicación
+					desde = secuencia;
+					fueraDelHistorial = ultimoId != null;
+				} else {
+					desde = ultimoId;
+					fueraDelHistorial = desde + 1 < Math.max(1, secuencia - historial + 1);
+				}
+			}
+
+			Flux<EventoPersonaje> eventos = sink.asFlux()
+					.filter(e -> e.id() > desde)
+					.filter(e -> idPersonajes.isEmpty() || e.idPersonaje() == 0
+							|| idPersonajes.contains(e.idPersonaje()));
+
+			if (fueraDelHistorial) {
+				eventos = eventos.startWith(new EventoPersonaje(desde, TipoEventoPersonaje.RESINCRONIZAR, 0, null,
+						Instant.now()));
+			}
+
+			return eventos
+					.onBackpressureBuffer(bufferSuscriptor, e -> descartados.increment(),
+							BufferOverflowStrategy.DROP_OLDEST)
+					.doOnSubscribe(s -> suscriptores.incrementAndGet())
+					.doFinally(s -> suscriptores.decrementAndGet());
+		});
+	}
+
+	/**
+	 * Numera y emite un evento. Está sincronizado porque el sink no admite emisiones
+	 * concurrentes y porque los IDs deben emitirse en orden.
+	 */
+	private synchronized void emitir(TipoEventoPersonaje tipo, int idPersonaje, Personaje personaje) {
+		sink.tryEmitNext(new EventoPersonaje(++secuencia, tipo, idPersonaje, personaje, Instant.now()));
+		publicados.increment();
+	}
+
+	private static void trasConfirmar(Runnable accion) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			accion.run();
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				accion.run();
+			}
+		});
+	}
+}
@@ -1,8 +1,22 @@
 package com.viewnext.kidaprojects.apipersonajes.service;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
+import com.viewnext.kidaprojects.apipersonajes.model.EventoPersonaje;
+import com.viewnext.kidaprojects.apipersonajes.model.Golpe;
+import com.viewnext.kidaprojects.apipersonajes.model.OrigenRecompensa;
 import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.model.ResultadoImportacion;
+import com.viewnext.kidaprojects.apipersonajes.model.ResultadoReinicio;
+import com.viewnext.kidaprojects.apipersonajes.model.VersionPersonaje;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * La interfaz {@code PersonajeService} define los métodos que deben implementarse
@@ -27,6 +41,52 @@ public interface PersonajeService {
      */
     List<Personaje> showActivos();
 
+    /**
+     * Obtiene una página de personajes ordenados por ID.
+     *
+     * @param after ID del último personaje de la página anterior (0 para la primera página).
+     * @param limit Número máximo de personajes de la página.
+     * @return Una lista con, como mucho, {@code limit} personajes.
+     */
+    List<Personaje> showAll(int after, int limit);
+
+    /**
+     * Obtiene una página de personajes activos ordenados por ID.
+     *
+     * @param after ID del último personaje de la página anterior (0 para la primera página).
+     * @param limit Número máximo de personajes de la página.
+     * @return Una lista con, como mucho, {@code limit} personajes activos.
+     */
+    List<Personaje> showActivos(int after, int limit);
+
+    /**
+     * Obtiene solo algunos campos de todos los personajes activos, ordenados por ID.
+     *
+     * @param campos Campos a obtener; el ID se incluye siempre.
+     * @return Un mapa de campos por personaje activo.
+     * @throws IllegalArgumentException Si algún campo no existe.
+     */
+    List<Map<String, Object>> showActivos(List<String> campos);
+
+    /**
+     * Obtiene solo algunos campos de una página de personajes activos ordenados por ID.
+     *
+     * @param campos Campos a obtener; el ID se incluye siempre.
+     * @param after  ID del último personaje de la página anterior (0 para la primera página).
+     * @param limit  Número máximo de personajes de la página.
+     * @return Un mapa de campos por personaje activo, como mucho {@code limit}.
+     * @throws IllegalArgumentException Si algún campo no existe.
+     */
+    List<Map<String, Object>> showActivos(List<String> campos, int after, int limit);
+
+    /**
+     * Recorre los personajes de uno en uno, ordenados por ID, sin cargarlos todos en memoria.
+     *
+     * @param soloActivos Indica si se recorren solo los personajes activos.
+     * @param consumidor  Función que recibe cada personaje.
+     */
+    void recorrerPersonajes(boolean soloActivos, Consumer<Personaje> consumidor);
+
     /**
      * Obtiene un personaje por su ID.
      *
@@ -35,6 +95,22 @@ public interface PersonajeService {
      */
     Personaje showPersonajeById(int idPersonaje);
 
+    /**
+     * Obtiene la versión de un personaje sin cargarlo entero, para validar un ETag.
+     *
+     * @param idPersonaje El ID del personaje.
+     * @return La versión del personaje, coherente con la que devuelve {@link #showPersonajeById(int)}.
+     */
+    VersionPersonaje showVersionPersonaje(int idPersonaje);
+
+    /**
+     * Calcula una huella de la lista de personajes que cambia cuando cambia cualquiera de ellos.
+     *
+     * @param soloActivos Indica si la huella cubre solo los personajes activos.
+     * @return La huella de la lista.
+     */
+    long huellaPersonajes(boolean soloActivos);
+
     /**
      * Crea un nuevo personaje en el sistema.
      *
@@ -43,6 +119,16 @@ public interface PersonajeService {
      */
     Personaje createPersonaje(Personaje personaje);
 
+    /**
+     * Importa personajes desde un array JSON o desde NDJSON (un personaje por línea),
+     * leyéndolos de uno en uno e insertándolos por lotes.
+     *
+     * @param entrada El cuerpo con los personajes.
+     * @return Los personajes insertados y rechazados.
+     * @throws IOException Si no se puede leer la entrada.
+     */
+    ResultadoImportacion importarPersonajes(InputStream entrada) throws IOException;
+
     /**
      * Actualiza la vida de un personaje en el sistema.
      *
@@ -52,6 +138,14 @@ public interface PersonajeService {
      */
     Personaje updateVida(int idPersonaje, int damage);
 
+    /**
+     * Aplica un conjunto de golpes a varios personajes en una única transacción.
+     *
+     * @param golpes Los golpes a aplicar. Los golpes sobre un mismo personaje se suman.
+     * @return Los personajes actualizados.
+     */
+    List<Personaje> updateVidaLote(List<Golpe> golpes);
+
     /**
      * Reclama recompensa de una misión y actualiza el personaje.
      *
@@ -71,7 +165,50 @@ public interface PersonajeService {
     Personaje reclamarRecompensaEnemigo(int idEnemigo, int idPersonaje);
 
     /**
-     * Actualiza la experiencia de un personaje en el sistema.
+     * Reclama recompensa de una misión y actualiza el personaje sin bloquear el hilo que llama.
+     *
+     * @param idMision    El ID de la misión a reclamar.
+     * @param idPersonaje El ID del personaje que reclama la recompensa.
+     * @return Un {@code Mono} con el personaje actualizado después de reclamar la recompensa de la misión.
+     */
+    Mono<Personaje> reclamarRecompensaMisionReactivo(int idMision, int idPersonaje);
+
+    /**
+     * Reclama recompensa de un enemigo vencido y actualiza el personaje sin bloquear el hilo que llama.
+     *
+     * @param idEnemigo   El ID del enemigo vencido.
+     * @param idPersonaje El ID del personaje que reclama la recompensa.
+     * @return Un {@code Mono} con el personaje actualizado después de reclamar la recompensa del enemigo.
+     */
+    Mono<Personaje> reclamarRecompensaEnemigoReactivo(int idEnemigo, int idPersonaje);
+
+    /**
+     * Obtiene el flujo de cambios de estado de los personajes.
+     *
+     * @param ultimoId     ID del último evento recibido, para reanudar el flujo, o {@code null}
+     *                     para recibir solo los eventos nuevos.
+     * @param idPersonajes IDs de los personajes que interesan, o vacío para todos.
+     * @return Un {@code Flux} de eventos que no termina mientras haya suscripción.
+     */
+    Flux<EventoPersonaje> eventos(Long ultimoId, Set<Integer> idPersonajes);
+
+    /**
+     * Elimina de la caché el valor de una recompensa, para que la siguiente reclamación
+     * lo consulte de nuevo en el servicio remoto.
+     *
+     * @param origen El servicio del que procede la recompensa.
+     * @param id     El ID de la misión o del enemigo.
+     */
+    void invalidarRecompensa(OrigenRecompensa origen, int id);
+
+    /**
+     * Elimina de la caché el valor de todas las recompensas.
+     */
+    void invalidarRecompensas();
+
+    /**
+     * Actualiza la experiencia de un personaje en el sistema y le sube tantos niveles como
+     * veces acumule 1000 puntos de experiencia.
      *
      * @param idPersonaje El ID del personaje a actualizar.
      * @param experiencia La cantidad de experiencia a agregar al personaje.
@@ -98,7 +235,17 @@ public interface PersonajeService {
 
     /**
      * Reinicia todos los personajes en el sistema.
+     *
+     * @return El número de personajes reiniciados.
+     */
+    ResultadoReinicio reiniciarPersonajes();
+
+    /**
+     * Reinicia todos los personajes en el sistema por bloques de IDs consecutivos.
+     *
+     * @param tamanoBloque Tamaño del rango de IDs reiniciado en cada transacción.
+     * @return El número de personajes reiniciados y de bloques ejecutados.
      */
-    void reiniciarPersonajes();
+    ResultadoReinicio reiniciarPersonajes(int tamanoBloque);
 }
 
@@ -1,19 +1,57 @@
 package com.viewnext.kidaprojects.apipersonajes.service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.viewnext.kidaprojects.apipersonajes.cache.PersonajeCache;
+import com.viewnext.kidaprojects.apipersonajes.cache.RecompensaCache;
 import com.viewnext.kidaprojects.apipersonajes.exception.ReclamarRewardException;
+import com.viewnext.kidaprojects.apipersonajes.model.EventoPersonaje;
+import com.viewnext.kidaprojects.apipersonajes.model.Golpe;
+import com.viewnext.kidaprojects.apipersonajes.model.OrigenRecompensa;
 import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
-import com.viewnext.kidaprojects.apipersonajes.repository.PersonajeRepository;
-
+import com.viewnext.kidaprojects.apipersonajes.model.ResultadoImportacion;
+import com.viewnext.kidaprojects.apipersonajes.model.ResultadoReinicio;
+import com.viewnext.kidaprojects.apipersonajes.model.TipoEventoPersonaje;
+import com.viewnext.kidaprojects.apipersonajes.model.VersionPersonaje;
+import com.viewnext.kidaprojects.apipersonajes.replicas.LecturasPropias;
+import com.viewnext.kidaprojects.apipersonajes.repository.AlmacenPersonajes;
+import com.viewnext.kidaprojects.apipersonajes.repository.PersonajeRepositoryCustom;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.persistence.EntityNotFoundException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 /**
  * La clase {@code PersonajeServiceImpl} implementa la interfaz {@code PersonajeService}
@@ -23,27 +61,77 @@ import jakarta.persistence.EntityNotFoundException;
  * El autor de esta clase es Víctor Colorado "Kid A".
  * </p>
  * 
+ * <p>
+ * Los métodos de consulta son transacciones de solo lectura, que en el perfil
+ * {@code replicas} se ejecutan en una réplica; el resto usan la base de datos principal.
+ * </p>
+ * 
+ * <p>
+ * Cada método se mide con el timer {@code personaje.service}, etiquetado con el método y
+ * la excepción lanzada. Las reclamaciones reactivas de recompensas se miden con el timer
+ * {@code personaje.recompensa.reclamacion}, etiquetado con el origen y el resultado.
+ * </p>
+ * 
  * @version 1.0
  * @since 06 de octubre de 2023
  */
 @Service
+@Timed(value = "personaje.service", description = "Latencia de los métodos de PersonajeService")
 public class PersonajeServiceImpl implements PersonajeService {
 
+	private static final Logger LOGGER = LoggerFactory.getLogger(PersonajeServiceImpl.class);
+	private static final long ESPERA_MAXIMA_REINTENTO_NANOS = 50_000_000L;
+
+	@Autowired
+	AlmacenPersonajes personajeRepository;
+
+	@Autowired
+	DamageWriteBehindBuffer damageBuffer;
+
+	@Autowired
+	PersonajeCache personajeCache;
+
+	@Autowired
+	PersonajeEventos personajeEventos;
+
 	@Autowired
-	PersonajeRepository personajeRepository;
+	TransactionTemplate transactionTemplate;
+
+	@Autowired
+	ObjectMapper objectMapper;
+
+	@Autowired(required = false)
+	LecturasPropias lecturasPropias;
+
+	@Value("${personaje.optimistic.reintentos:10}")
+	int reintentosOptimistas;
 
-	private WebClient misionWebClient;
-	private WebClient enemigoWebClient;
+	@Value("${personaje.importacion.tamano-lote:1000}")
+	int tamanoLoteImportacion;
+
+	private RecompensaCache recompensaCache;
+	private Scheduler jpaScheduler;
+	private MeterRegistry meterRegistry;
+	private Counter reintentos;
+	private Counter conflictosAgotados;
 
 	/**
      * Constructor de la clase {@code PersonajeServiceImpl}.
      *
-     * @param misionWebClient   Cliente web para acceder a las misiones.
-     * @param enemigoWebClient  Cliente web para acceder a los enemigos.
+     * @param recompensaCache   Caché de recompensas, que accede a los servicios de misiones y enemigos.
+     * @param jpaScheduler      Planificador acotado para el trabajo bloqueante de JPA en los flujos reactivos.
+     * @param meterRegistry     Registro de métricas.
      */
-	public PersonajeServiceImpl(WebClient misionWebClient, WebClient enemigoWebClient) {
-		this.misionWebClient = misionWebClient;
-		this.enemigoWebClient = enemigoWebClient;
+	public PersonajeServiceImpl(RecompensaCache recompensaCache, Scheduler jpaScheduler, MeterRegistry meterRegistry) {
+		this.recompensaCache = recompensaCache;
+		this.jpaScheduler = jpaScheduler;
+		this.meterRegistry = meterRegistry;
+		this.reintentos = Counter.builder("personaje.optimistic.reintentos")
+				.description("Reintentos por conflictos de bloqueo optimista")
+				.register(meterRegistry);
+		this.conflictosAgotados = Counter.builder("personaje.optimistic.agotados")
+				.description("Operaciones que fallan tras agotar los reintentos por bloqueo optimista")
+				.register(meterRegistry);
 	}
 
 	/**
@@ -53,6 +141,7 @@ public class PersonajeServiceImpl implements PersonajeService {
      * @throws EntityNotFoundException Si no se encuentran personajes.
      */
 	@Override
+	@Transactional(readOnly = true)
 	public List<Personaje> showAll() throws EntityNotFoundException {
 		List<Personaje> listaPersonajes = personajeRepository.findAll();
 
@@ -69,6 +158,7 @@ public class PersonajeServiceImpl implements PersonajeService {
      * @throws EntityNotFoundException Si no se encuentran personajes activos.
      */
 	@Override
+	@Transactional(readOnly = true)
 	public List<Personaje> showActivos() throws EntityNotFoundException {
 		List<Personaje> listaPersonajes = personajeRepository.findPersonajesActivos();
 
@@ -79,15 +169,91 @@ public class PersonajeServiceImpl implements PersonajeService {
 	}
 
 	/**
-     * Recupera un personaje por su ID.
+	 * Recupera una página de personajes ordenados por ID.
+	 *
+	 * @param after ID del último personaje de la página anterior (0 para la primera página).
+	 * @param limit Número máximo de personajes de la página.
+	 * @return Lista con, como mucho, {@code limit} personajes; vacía si no hay más.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<Personaje> showAll(int after, int limit) {
+		return personajeRepository.findPersonajesDesde(after, PageRequest.ofSize(limit));
+	}
+
+	/**
+	 * Recupera una página de personajes activos ordenados por ID.
+	 *
+	 * @param after ID del último personaje de la página anterior (0 para la primera página).
+	 * @param limit Número máximo de personajes de la página.
+	 * @return Lista con, como mucho, {@code limit} personajes activos; vacía si no hay más.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<Personaje> showActivos(int after, int limit) {
+		return personajeRepository.findPersonajesActivosDesde(after, PageRequest.ofSize(limit));
+	}
+
+	/**
+	 * Recupera solo algunos campos de todos los personajes activos, sin construir la entidad.
+	 *
+	 * @param campos Campos a obtener; el ID se incluye siempre.
+	 * @return Un mapa de campos por personaje activo, o lanza una excepción {@code EntityNotFoundException} si no hay ninguno.
+	 * @throws EntityNotFoundException Si no se encuentran personajes activos.
+	 * @throws IllegalArgumentException Si algún campo no existe.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<Map<String, Object>> showActivos(List<String> campos) throws EntityNotFoundException {
+		List<Map<String, Object>> listaPersonajes = personajeRepository.proyectarActivos(PersonajeRepositoryCustom.validarCampos(campos), 0,
+				Pageable.unpaged());
+
+		if (listaPersonajes.isEmpty()) {
+			throw new EntityNotFoundException();
+		}
+		return listaPersonajes;
+	}
+
+	/**
+	 * Recupera solo algunos campos de una página de personajes activos, sin construir la entidad.
+	 *
+	 * @param campos Campos a obtener; el ID se incluye siempre.
+	 * @param after  ID del último personaje de la página anterior (0 para la primera página).
+	 * @param limit  Número máximo de personajes de la página.
+	 * @return Un mapa de campos por personaje activo; vacía si no hay más.
+	 * @throws IllegalArgumentException Si algún campo no existe.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public List<Map<String, Object>> showActivos(List<String> campos, int after, int limit) {
+		return personajeRepository.proyectarActivos(PersonajeRepositoryCustom.validarCampos(campos), after, PageRequest.ofSize(limit));
+	}
+
+	/**
+	 * Recorre los personajes de uno en uno leyéndolos de un cursor de la base de datos.
+	 *
+	 * @param soloActivos Indica si se recorren solo los personajes activos.
+	 * @param consumidor  Función que recibe cada personaje.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public void recorrerPersonajes(boolean soloActivos, Consumer<Personaje> consumidor) {
+		personajeRepository.recorrer(soloActivos, consumidor);
+	}
+
+	/**
+     * Recupera un personaje por su ID, consultando primero la caché de personajes.
      *
      * @param idPersonaje El ID del personaje a obtener.
      * @return El personaje si existe, o lanza una excepción {@code EntityNotFoundException} si no se encuentra.
      * @throws EntityNotFoundException Si no se encuentra el personaje.
      */
 	@Override
+	@Transactional(readOnly = true)
 	public Personaje showPersonajeById(int idPersonaje) throws EntityNotFoundException {
-		Optional<Personaje> optionalPersonaje = personajeRepository.findById(idPersonaje);
+		Optional<Personaje> optionalPersonaje = damageBuffer.isActivo()
+				? damageBuffer.leer(idPersonaje, this::buscarEnCache)
+				: buscarEnCache(idPersonaje);
 
 		if (optionalPersonaje.isEmpty()) {
 			throw new EntityNotFoundException();
@@ -96,6 +262,45 @@ public class PersonajeServiceImpl implements PersonajeService {
 		return optionalPersonaje.get();
 	}
 
+	/**
+	 * Obtiene la versión de un personaje. Si el personaje está en la caché se usa esa copia;
+	 * si no, se leen solo su versión y su vida. En modo write-behind se descuenta además el
+	 * daño pendiente, igual que en {@link #showPersonajeById(int)}.
+	 *
+	 * @param idPersonaje El ID del personaje.
+	 * @return La versión del personaje si existe, o lanza una excepción {@code EntityNotFoundException} si no se encuentra.
+	 * @throws EntityNotFoundException Si no se encuentra el personaje.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public VersionPersonaje showVersionPersonaje(int idPersonaje) throws EntityNotFoundException {
+		VersionPersonaje version = personajeCache.consultar(idPersonaje)
+				.map(VersionPersonaje::de)
+				.or(() -> personajeRepository.findVersionPersonaje(idPersonaje))
+				.orElseThrow(EntityNotFoundException::new);
+
+		if (damageBuffer.isActivo()) {
+			int pendiente = damageBuffer.pendiente(idPersonaje);
+			if (pendiente != 0) {
+				version = new VersionPersonaje(version.version(), version.vidaActual() - pendiente);
+			}
+		}
+
+		return version;
+	}
+
+	/**
+	 * Calcula la huella de la lista de personajes leyendo solo su ID y su versión.
+	 *
+	 * @param soloActivos Indica si la huella cubre solo los personajes activos.
+	 * @return La huella de la lista.
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public long huellaPersonajes(boolean soloActivos) {
+		return personajeRepository.huella(soloActivos);
+	}
+
 	/**
      * Crea un nuevo personaje en el sistema.
      *
@@ -105,12 +310,90 @@ public class PersonajeServiceImpl implements PersonajeService {
 	@Override
 	public Personaje createPersonaje(Personaje personaje) {
 
-		return personajeRepository.save(personaje);
+		return publicar(TipoEventoPersonaje.CREADO, invalidarCache(personajeRepository.save(personaje)));
+	}
+
+	/**
+	 * Importa personajes desde un array JSON o desde NDJSON.
+	 *
+	 * <p>
+	 * Los personajes se leen de uno en uno con un {@code MappingIterator} de Jackson, que
+	 * admite tanto un array como valores separados por saltos de línea, y se insertan en
+	 * lotes de {@code personaje.importacion.tamano-lote}, cada uno en su propia transacción.
+	 * Se rechazan los elementos que no se pueden convertir en un personaje y los personajes
+	 * sin nombre o sin vida. Un error de sintaxis detiene la lectura.
+	 * </p>
+	 *
+	 * @param entrada El cuerpo con los personajes.
+	 * @return Los personajes insertados y rechazados.
+	 * @throws IOException Si no se puede leer la entrada.
+	 */
+	@Override
+	public ResultadoImportacion importarPersonajes(InputStream entrada) throws IOException {
+		long inicio = System.currentTimeMillis();
+		List<Personaje> lote = new ArrayList<>(tamanoLoteImportacion);
+		int insertados = 0;
+		int rechazados = 0;
+		int lotes = 0;
+		boolean completa = true;
+
+		try (MappingIterator<Personaje> personajes = objectMapper.readerFor(Personaje.class).readValues(entrada)) {
+			while (personajes.hasNextValue()) {
+				Personaje personaje;
+				try {
+					personaje = personajes.nextValue();
+				} catch (StreamReadException e) {
+					LOGGER.warn("Importación detenida por un error de sintaxis: {}", e.getOriginalMessage());
+					rechazados++;
+					completa = false;
+					break;
+				} catch (DatabindException e) {
+					rechazados++;
+					continue;
+				}
+
+				if (personaje == null || personaje.getNombre() == null || personaje.getNombre().isBlank()
+						|| personaje.getVidaOriginal() <= 0) {
+					rechazados++;
+					continue;
+				}
+
+				lote.add(personaje);
+				if (lote.size() == tamanoLoteImportacion) {
+					insertados += personajeRepository.insertarLote(lote);
+					lotes++;
+					lote.clear();
+				}
+			}
+		} catch (StreamReadException e) {
+			LOGGER.warn("Importación detenida por un error de sintaxis: {}", e.getOriginalMessage());
+			rechazados++;
+			completa = false;
+		}
+
+		if (!lote.isEmpty()) {
+			insertados += personajeRepository.insertarLote(lote);
+			lotes++;
+		}
+
+		if (insertados > 0) {
+			personajeEventos.publicar(TipoEventoPersonaje.IMPORTADOS);
+		}
+
+		return new ResultadoImportacion(insertados, rechazados, lotes, completa, System.currentTimeMillis() - inicio);
 	}
 
 	/**
      * Actualiza la vida de un personaje.
      *
+     * <p>
+     * El daño se aplica con una única sentencia UPDATE en la base de datos, por lo que
+     * los golpes concurrentes sobre el mismo personaje se acumulan sin perderse, y el
+     * personaje se lee en la misma transacción para devolverlo. Si el modo write-behind
+     * está activo, el daño se acumula en {@code DamageWriteBehindBuffer} y se devuelve el
+     * personaje con el daño pendiente ya aplicado.
+     * </p>
+     *
      * @param idPersonaje El ID del personaje a actualizar.
      * @param damage      El daño a aplicar al personaje.
      * @return El personaje actualizado.
@@ -118,53 +401,94 @@ public class PersonajeServiceImpl implements PersonajeService {
      */
 	@Override
 	public Personaje updateVida(int idPersonaje, int damage) throws EntityNotFoundException {
-		Optional<Personaje> optionalPersonaje = personajeRepository.findById(idPersonaje);
-
-		if (optionalPersonaje.isEmpty()) {
-			throw new EntityNotFoundException();
+		Personaje personaje;
+
+		if (damageBuffer.isActivo()) {
+			personaje = damageBuffer.acumular(idPersonaje, damage, this::buscarEnCache)
+					.orElseThrow(EntityNotFoundException::new);
+		} else {
+			personaje = invalidarCache(transactionTemplate.execute(estado -> {
+				if (personajeRepository.aplicarDamage(idPersonaje, damage) == 0) {
+					throw new EntityNotFoundException();
+				}
+				return personajeRepository.findById(idPersonaje).orElseThrow(EntityNotFoundException::new);
+			}));
 		}
 
-		Personaje personaje = optionalPersonaje.get();
+		return publicar(tipoDamage(personaje, damage), personaje);
+	}
 
-		int vidaActual = personaje.getVidaActual();
+	/**
+	 * Aplica un conjunto de golpes a varios personajes en una única transacción.
+	 *
+	 * @param golpes Los golpes a aplicar. Los golpes sobre un mismo personaje se suman.
+	 * @return Los personajes actualizados.
+	 * @throws EntityNotFoundException Si no se encuentra ninguno de los personajes.
+	 */
+	@Override
+	public List<Personaje> updateVidaLote(List<Golpe> golpes) throws EntityNotFoundException {
+		Map<Integer, Integer> damagePorId = new LinkedHashMap<>();
 
-		personaje.setVidaActual(vidaActual - damage);
+		for (Golpe golpe : golpes) {
+			damagePorId.merge(golpe.idPersonaje(), golpe.damage(), Integer::sum);
+		}
 
-		if (vidaActual <= 0) {
-			personaje.setActivo(false);
+		if (damagePorId.isEmpty()) {
+			return List.of();
 		}
 
-		return personajeRepository.save(personaje);
+		List<Personaje> listaPersonajes = personajeRepository.aplicarDamageLote(damagePorId);
+
+		if (listaPersonajes.isEmpty()) {
+			throw new EntityNotFoundException();
+		}
+
+		for (Personaje personaje : listaPersonajes) {
+			personajeCache.invalidar(personaje.getIdPersonaje());
+			personajeEventos.publicar(tipoDamage(personaje, damagePorId.get(personaje.getIdPersonaje())), personaje);
+		}
+		return listaPersonajes;
 	}
 
 	/**
 	 * Sube de nivel a un personaje en el sistema.
 	 *
+	 * <p>
+	 * La lectura y la escritura se hacen en una transacción con bloqueo optimista; si otra
+	 * escritura modifica el personaje entre ambas, se reintenta con el estado nuevo.
+	 * </p>
+	 *
 	 * @param idPersonaje El ID del personaje a subir de nivel.
 	 * @return El personaje actualizado después de subir de nivel.
 	 * @throws EntityNotFoundException Si no se encuentra el personaje.
+	 * @throws OptimisticLockingFailureException Si se agotan los reintentos por escrituras concurrentes.
 	 */
 	@Override
 	public Personaje subirNivel(int idPersonaje) {
-		Optional<Personaje> optionalPersonaje = personajeRepository.findById(idPersonaje);
+		return publicar(TipoEventoPersonaje.NIVEL, invalidarCache(conReintentos(() -> {
+			Personaje personaje = personajeRepository.findById(idPersonaje).orElseThrow(EntityNotFoundException::new);
 
-		if (optionalPersonaje.isEmpty()) {
-			throw new EntityNotFoundException();
-		}
+			personaje.setNivel(personaje.getNivel() + 1);
+			personaje.setFuerzaActual(personaje.getFuerzaActual() + 10);
+			personaje.setDefensaActual(personaje.getDefensaActual() + 10);
+			personaje.setVidaTotal(personaje.getVidaTotal() + 100);
 
-		Personaje personaje = optionalPersonaje.get();
-
-		personaje.setNivel(personaje.getNivel() + 1);
-		personaje.setFuerzaActual(personaje.getFuerzaActual() + 10);
-		personaje.setDefensaActual(personaje.getDefensaActual() + 10);
-		personaje.setVidaTotal(personaje.getVidaTotal() + 100);
-
-		return personajeRepository.save(personaje);
+			return personajeRepository.save(personaje);
+		})));
 	}
 
 	/**
 	 * Actualiza la experiencia de un personaje.
 	 *
+	 * <p>
+	 * La experiencia y todas las subidas de nivel que provoque (una por cada 1000 puntos
+	 * acumulados) se aplican con una única sentencia UPDATE, sin leer antes el personaje,
+	 * por lo que las recompensas concurrentes sobre el mismo personaje no se pisan. Después
+	 * se lee el personaje una sola vez para devolverlo, en la misma transacción que la
+	 * escritura para que la lectura no vaya a una réplica. Se publica un evento de
+	 * experiencia y, si el personaje ha subido de nivel, también uno de nivel.
+	 * </p>
+	 *
 	 * @param idPersonaje   El ID del personaje a actualizar.
 	 * @param experiencia   La cantidad de experiencia a agregar al personaje.
 	 * @return El personaje actualizado después de agregar experiencia.
@@ -172,29 +496,18 @@ public class PersonajeServiceImpl implements PersonajeService {
 	 */
 	@Override
 	public Personaje updateExperiencia(int idPersonaje, int experiencia) throws EntityNotFoundException {
-		Optional<Personaje> optionalPersonaje = personajeRepository.findById(idPersonaje);
-
-		if (optionalPersonaje.isEmpty()) {
-			throw new EntityNotFoundException();
-		}
-
-		Personaje personaje = optionalPersonaje.get();
-
-		int experienciaActual = personaje.getExperiencia();
-
-		// Sumamos la experiencia obtenida
-		experienciaActual += experiencia;
+		Personaje personaje = invalidarCache(transactionTemplate.execute(estado -> {
+			if (personajeRepository.aplicarExperiencia(idPersonaje, experiencia) == 0) {
+				throw new EntityNotFoundException();
+			}
+			return personajeRepository.findById(idPersonaje).orElseThrow(EntityNotFoundException::new);
+		}));
 
-		// Controlamos si al expericia acumulada es suficiente para subir de nivel. El
-		// umbral es 1000
-		if (experienciaActual >= 1000) {
-			personaje = subirNivel(idPersonaje); // Invocamos al metodo que suma estadísticas
-			experienciaActual -= 1000; // Actualizamos experiencia para el siguiente nivel
+		publicar(TipoEventoPersonaje.EXPERIENCIA, personaje);
+		if (haSubidoDeNivel(experiencia, personaje)) {
+			publicar(TipoEventoPersonaje.NIVEL, personaje);
 		}
-
-		personaje.setExperiencia(experienciaActual);
-
-		return personajeRepository.save(personaje);
+		return personaje;
 	}
 
 	/**
@@ -209,22 +522,7 @@ public class PersonajeServiceImpl implements PersonajeService {
 	@Override
 	public Personaje reclamarRecompensaMision(int idMision, int idPersonaje)
 			throws EntityNotFoundException, ReclamarRewardException {
-		try {
-			Integer recompensa = misionWebClient.get()
-					.uri("mision/recompensa/{idMision}", idMision)
-					.retrieve()
-					.bodyToMono(Integer.class)
-					.block();
-			
-			return updateExperiencia(idPersonaje, recompensa);
-
-		} catch (WebClientResponseException e) {
-			if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
-				throw new EntityNotFoundException();
-			}
-		}
-
-		throw new ReclamarRewardException();
+		return reclamarRecompensaMisionReactivo(idMision, idPersonaje).block();
 	}
 
 	/**
@@ -239,63 +537,279 @@ public class PersonajeServiceImpl implements PersonajeService {
 	@Override
 	public Personaje reclamarRecompensaEnemigo(int idEnemigo, int idPersonaje)
 			throws EntityNotFoundException, ReclamarRewardException {
-		try {
-			Integer recompensa = enemigoWebClient.get()
-					.uri("enemigo/recompensa/{idEnemigo}", idEnemigo)
-					.retrieve()
-					.bodyToMono(Integer.class)
-					.block();
+		return reclamarRecompensaEnemigoReactivo(idEnemigo, idPersonaje).block();
+	}
 
-			return updateExperiencia(idPersonaje, recompensa);
+	/**
+	 * Reclama recompensa de una misión y actualiza el personaje sin bloquear el hilo que llama.
+	 * La actualización del personaje se ejecuta en el planificador acotado de JPA.
+	 *
+	 * @param idMision     El ID de la misión a reclamar.
+	 * @param idPersonaje  El ID del personaje que reclama la recompensa.
+	 * @return Un {@code Mono} con el personaje actualizado, que falla con {@code EntityNotFoundException}
+	 *         si no se encuentra la misión o el personaje, o con {@code ReclamarRewardException} si
+	 *         ocurre un error al reclamar la recompensa.
+	 */
+	@Override
+	public Mono<Personaje> reclamarRecompensaMisionReactivo(int idMision, int idPersonaje) {
+		return aplicarRecompensa(OrigenRecompensa.MISION, idMision, idPersonaje);
+	}
 
-		} catch (WebClientResponseException e) {
-			if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
-				throw new EntityNotFoundException();
-			}
-		}
+	/**
+	 * Reclama recompensa de un enemigo vencido y actualiza el personaje sin bloquear el hilo que llama.
+	 * La actualización del personaje se ejecuta en el planificador acotado de JPA.
+	 *
+	 * @param idEnemigo    El ID del enemigo vencido.
+	 * @param idPersonaje  El ID del personaje que reclama la recompensa.
+	 * @return Un {@code Mono} con el personaje actualizado, que falla con {@code EntityNotFoundException}
+	 *         si no se encuentra el enemigo o el personaje, o con {@code ReclamarRewardException} si
+	 *         ocurre un error al reclamar la recompensa.
+	 */
+	@Override
+	public Mono<Personaje> reclamarRecompensaEnemigoReactivo(int idEnemigo, int idPersonaje) {
+		return aplicarRecompensa(OrigenRecompensa.ENEMIGO, idEnemigo, idPersonaje);
+	}
+
+	/**
+	 * Obtiene el flujo de cambios de estado de los personajes publicado por
+	 * {@code PersonajeEventos}. Los métodos que modifican personajes publican sus eventos
+	 * después de confirmar el cambio.
+	 *
+	 * @param ultimoId     ID del último evento recibido, o {@code null} para recibir solo los eventos nuevos.
+	 * @param idPersonajes IDs de los personajes que interesan, o vacío para todos.
+	 * @return Un {@code Flux} de eventos que no termina mientras haya suscripción.
+	 */
+	@Override
+	public Flux<EventoPersonaje> eventos(Long ultimoId, Set<Integer> idPersonajes) {
+		return personajeEventos.suscribir(ultimoId, idPersonajes);
+	}
+
+	/**
+	 * Elimina de la caché el valor de una recompensa.
+	 *
+	 * @param origen El servicio del que procede la recompensa.
+	 * @param id     El ID de la misión o del enemigo.
+	 */
+	@Override
+	public void invalidarRecompensa(OrigenRecompensa origen, int id) {
+		recompensaCache.invalidar(origen, id);
+	}
 
-		throw new ReclamarRewardException();
+	/**
+	 * Elimina de la caché el valor de todas las recompensas.
+	 */
+	@Override
+	public void invalidarRecompensas() {
+		recompensaCache.invalidarTodo();
 	}
 
 	/**
-	 * Actualiza el estado (activo/inactivo) de un personaje.
+	 * Actualiza el estado (activo/inactivo) de un personaje, con bloqueo optimista y
+	 * reintentos como {@link #subirNivel(int)}.
 	 *
 	 * @param idPersonaje  El ID del personaje a actualizar.
 	 * @param estado       El nuevo estado del personaje.
 	 * @return El personaje actualizado con su nuevo estado.
 	 * @throws EntityNotFoundException Si no se encuentra el personaje.
+	 * @throws OptimisticLockingFailureException Si se agotan los reintentos por escrituras concurrentes.
 	 */
 	@Override
 	public Personaje setActividadPersonaje(int idPersonaje, boolean estado) throws EntityNotFoundException {
-		Optional<Personaje> optionalPersonaje = personajeRepository.findById(idPersonaje);
+		return publicar(TipoEventoPersonaje.ACTIVIDAD, invalidarCache(conReintentos(() -> {
+			Personaje personaje = personajeRepository.findById(idPersonaje).orElseThrow(EntityNotFoundException::new);
 
-		if (optionalPersonaje.isEmpty()) {
-			throw new EntityNotFoundException();
-		}
+			personaje.setActivo(estado);
 
-		Personaje personaje = optionalPersonaje.get();
+			return personajeRepository.save(personaje);
+		})));
+	}
 
-		personaje.setActivo(estado);
+	/**
+	 * Reinicia todos los personajes en el sistema con una única sentencia UPDATE.
+	 *
+	 * @return El número de personajes reiniciados.
+	 */
+	@Override
+	public ResultadoReinicio reiniciarPersonajes() {
+		long inicio = System.currentTimeMillis();
+
+		// El daño acumulado antes del reinicio ya no debe aplicarse
+		damageBuffer.descartarPendientes();
+
+		int reiniciados = personajeRepository.reiniciarTodos();
+		personajeCache.invalidarTodo();
+		personajeEventos.publicar(TipoEventoPersonaje.REINICIO);
 
-		return personajeRepository.save(personaje);
+		return new ResultadoReinicio(reiniciados, 1, System.currentTimeMillis() - inicio);
 	}
 
 	/**
-	 * Reinicia todos los personajes en el sistema.
+	 * Reinicia todos los personajes en el sistema por rangos de IDs, confirmando cada
+	 * rango en su propia transacción para no bloquear la tabla durante todo el reinicio.
+	 *
+	 * @param tamanoBloque Tamaño del rango de IDs reiniciado en cada transacción.
+	 * @return El número de personajes reiniciados y de bloques ejecutados.
+	 * @throws IllegalArgumentException Si el tamaño de bloque no es positivo.
 	 */
 	@Override
-	public void reiniciarPersonajes() {
-		List<Personaje> listaPersonajes = personajeRepository.findAll();
+	public ResultadoReinicio reiniciarPersonajes(int tamanoBloque) {
+		if (tamanoBloque <= 0) {
+			throw new IllegalArgumentException("El tamaño de bloque debe ser positivo");
+		}
+
+		long inicio = System.currentTimeMillis();
+
+		damageBuffer.descartarPendientes();
+
+		int maxId = personajeRepository.findMaxIdPersonaje();
+		int reiniciados = 0;
+		int bloques = 0;
+
+		for (long desde = 0; desde < maxId; desde += tamanoBloque) {
+			int hasta = (int) Math.min(desde + tamanoBloque, maxId);
+
+			reiniciados += personajeRepository.reiniciarRango((int) desde, hasta);
+			bloques++;
+
+			LOGGER.info("Reinicio de personajes: IDs hasta {} de {} ({} reiniciados)", hasta, maxId, reiniciados);
+		}
 
-		for (Personaje p : listaPersonajes) {
-			p.setActivo(true);
-			p.setExperiencia(0);
-			p.setNivel(1);
-			p.setVidaActual(p.getVidaOriginal());
+		personajeCache.invalidarTodo();
+		personajeEventos.publicar(TipoEventoPersonaje.REINICIO);
 
+		return new ResultadoReinicio(reiniciados, bloques, System.currentTimeMillis() - inicio);
+	}
+
+	/**
+	 * Busca un personaje en la caché y, si no está, en la base de datos.
+	 *
+	 * <p>
+	 * Un cliente dentro de su ventana de lecturas propias no usa la caché: lo que hay en
+	 * ella puede venir de una réplica atrasada y ocultar su última escritura, y lo que él
+	 * lee de la base de datos principal no debe ocupar el lugar de las lecturas de réplica
+	 * de los demás.
+	 * </p>
+	 */
+	private Optional<Personaje> buscarEnCache(int idPersonaje) {
+		if (lecturasPropias != null && lecturasPropias.enVentana()) {
+			return personajeRepository.findById(idPersonaje);
 		}
+		return personajeCache.obtener(idPersonaje, personajeRepository::findById);
+	}
+
+	/**
+	 * Invalida la entrada de caché de un personaje recién modificado. Se invalida en lugar
+	 * de guardar el nuevo estado porque dos escrituras concurrentes podrían guardarse en
+	 * orden inverso y dejar en la caché el estado más antiguo.
+	 */
+	private Personaje invalidarCache(Personaje personaje) {
+		personajeCache.invalidar(personaje.getIdPersonaje());
+		return personaje;
+	}
+
+	/**
+	 * Publica el evento de un personaje recién modificado.
+	 */
+	private Personaje publicar(TipoEventoPersonaje tipo, Personaje personaje) {
+		personajeEventos.publicar(tipo, personaje);
+		return personaje;
+	}
+
+	/**
+	 * Indica si sumar experiencia ha subido de nivel al personaje, sin leer su estado
+	 * anterior. La experiencia guardada siempre es menor que 1000, porque cada subida de
+	 * nivel la reduce módulo 1000, así que con menos de 1000 puntos solo se sube de nivel si
+	 * la experiencia resultante es menor que la sumada.
+	 */
+	private static boolean haSubidoDeNivel(int experiencia, Personaje personaje) {
+		return experiencia >= 1000 || personaje.getExperiencia() < experiencia;
+	}
+
+	/**
+	 * Distingue el golpe que mata a un personaje de los demás golpes, incluidos los que
+	 * recibe un personaje que ya estaba muerto.
+	 */
+	private static TipoEventoPersonaje tipoDamage(Personaje personaje, int damage) {
+		boolean muere = !personaje.isActivo() && personaje.getVidaActual() <= 0
+				&& personaje.getVidaActual() + damage > 0;
+		return muere ? TipoEventoPersonaje.MUERTE : TipoEventoPersonaje.DAMAGE;
+	}
+
+	/**
+	 * Ejecuta una lectura-modificación-escritura en su propia transacción y la repite, con
+	 * una espera aleatoria creciente, mientras falle por bloqueo optimista. La caché se
+	 * invalida después del commit, fuera de este método. La operación guarda el personaje
+	 * con {@code save} en lugar de confiar en que JPA detecte los cambios, para que funcione
+	 * igual con cualquier motor de almacenamiento.
+	 */
+	private Personaje conReintentos(Supplier<Personaje> operacion) {
+		for (int intento = 1;; intento++) {
+			try {
+				return transactionTemplate.execute(estado -> operacion.get());
+			} catch (OptimisticLockingFailureException e) {
+				if (intento > reintentosOptimistas) {
+					conflictosAgotados.increment();
+					throw e;
+				}
+				reintentos.increment();
+				long esperaMaxima = Math.min(ESPERA_MAXIMA_REINTENTO_NANOS, 1_000_000L << Math.min(intento, 10));
+				LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(esperaMaxima));
+			}
+		}
+	}
+
+	/**
+	 * Traduce los errores de la API remota a las excepciones del servicio y suma la
+	 * recompensa obtenida a la experiencia del personaje en el planificador de JPA. Mide
+	 * la reclamación completa desde la suscripción hasta el resultado.
+	 *
+	 * <p>
+	 * El cliente de {@code LecturasPropias} se toma en el hilo que se suscribe y se vuelve a
+	 * fijar en el hilo de JPA, para que la escritura abra su ventana de lecturas propias.
+	 * </p>
+	 */
+	private Mono<Personaje> aplicarRecompensa(OrigenRecompensa origen, int id, int idPersonaje) {
+		return Mono.defer(() -> {
+			Timer.Sample muestra = Timer.start(meterRegistry);
+			String cliente = lecturasPropias != null ? lecturasPropias.clienteActual() : null;
+
+			return recompensaCache.obtener(origen, id)
+					.onErrorMap(WebClientResponseException.NotFound.class, e -> new EntityNotFoundException())
+					.onErrorMap(e -> !(e instanceof EntityNotFoundException), e -> new ReclamarRewardException())
+					.switchIfEmpty(Mono.error(ReclamarRewardException::new))
+					.flatMap(experiencia -> Mono
+							.fromCallable(() -> comoCliente(cliente, () -> updateExperiencia(idPersonaje, experiencia)))
+							.subscribeOn(jpaScheduler))
+					.doOnSuccess(p -> registrarReclamacion(muestra, origen, "exito"))
+					.doOnError(e -> registrarReclamacion(muestra, origen,
+							e instanceof EntityNotFoundException ? "no_encontrado" : "error_recompensa"))
+					.doOnCancel(() -> registrarReclamacion(muestra, origen, "cancelado"));
+		});
+	}
+
+	/**
+	 * Ejecuta una operación con el cliente de una petición fijado en {@code LecturasPropias}
+	 * en el hilo actual, que no es el que atiende la petición.
+	 */
+	private Personaje comoCliente(String cliente, Supplier<Personaje> operacion) {
+		if (lecturasPropias == null) {
+			return operacion.get();
+		}
+
+		lecturasPropias.abrir(cliente);
+		try {
+			return operacion.get();
+		} finally {
+			lecturasPropias.cerrar();
+		}
+	}
 
-		personajeRepository.saveAll(listaPersonajes);
+	private void registrarReclamacion(Timer.Sample muestra, OrigenRecompensa origen, String resultado) {
+		muestra.stop(Timer.builder("personaje.recompensa.reclamacion")
+				.description("Latencia de la reclamación de una recompensa, incluida la actualización del personaje")
+				.tag("origen", origen.name().toLowerCase())
+				.tag("resultado", resultado)
+				.register(meterRegistry));
 	}
 
 }
@@ -0,0 +1,458 @@
+package com.viewnext.kidaprojects.apipersonajes.shards;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.viewnext.kidaprojects.apipersonajes.config.ShardsProperties;
+import com.viewnext.kidaprojects.apipersonajes.model.HuellaPersonajes;
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.model.VersionPersonaje;
+import com.viewnext.kidaprojects.apipersonajes.repository.AlmacenPersonajes;
+import com.viewnext.kidaprojects.apipersonajes.repository.PersonajeRepository;
+
+import jakarta.annotation.PreDestroy;
+/**
+ * La clase {@code PersonajeRepositoryShards} reparte los personajes entre varias bases de
+ * datos (shards) y se activa con el perfil {@code shards}. Cada base de datos se configura
+ * en {@code personaje.shards.datasources} y tiene la misma tabla {@code personajes}.
+ *
+ * <p>
+ * El shard de un personaje es {@code idPersonaje % número de shards}. Las operaciones de
+ * un solo ID van solo a su shard; las de todos los personajes ({@code findAll},
+ * {@code findPersonajesActivos}, {@code reiniciarTodos}, {@code count}...) se lanzan a la
+ * vez en todos los shards y sus resultados se mezclan en orden de ID, igual que los
+ * devolvería una sola base de datos.
+ * </p>
+ *
+ * <p>
+ * Los IDs no los genera la base de datos ({@code IDENTITY}) sino cada {@code Shard}, de
+ * modo que un personaje nuevo siempre queda en el shard que le corresponde. Los personajes
+ * nuevos se reparten entre los shards por turnos.
+ * </p>
+ *
+ * <p>
+ * Cada llamada se ejecuta en su propia transacción de cada shard: las operaciones de
+ * varios shards, como {@code reiniciarTodos} o {@code aplicarDamageLote}, no son atómicas
+ * entre shards.
+ * </p>
+ *
+ * <p>
+ * Las operaciones de todos los shards se lanzan en un pool con tantos hilos como
+ * conexiones suman los shards, de modo que varias peticiones concurrentes pueden hacer
+ * a la vez sus consultas en todos los shards en lugar de esperar en cola; el límite real
+ * lo sigue poniendo el pool de conexiones de cada shard.
+ * </p>
+ *
+ * @version 1.0
+ * @since 18 de octubre de 2026
+ */
+@Repository
+@Profile("shards")
+public class PersonajeRepositoryShards implements AlmacenPersonajes {
+
+	private static final int TAMANO_PAGINA_RECORRIDO = 500;
+	private static final Comparator<Personaje> POR_ID = Comparator.comparingInt(Personaje::getIdPersonaje);
+
+	private final List<Shard> shards = new ArrayList<>();
+	private final ExecutorService ejecutor;
+	private final AtomicInteger turno = new AtomicInteger();
+
+	/**
+	 * Constructor de la clase {@code PersonajeRepositoryShards}. Abre todos los shards y
+	 * migra su esquema.
+	 *
+	 * @param propiedades Las bases de datos de los shards.
+	 */
+	public PersonajeRepositoryShards(ShardsProperties propiedades) {
+		List<ShardsProperties.Conexion> conexiones = propiedades.getDatasources();
+		if (conexiones.isEmpty()) {
+			throw new IllegalStateException("No hay ninguna base de datos en personaje.shards.datasources");
+		}
+
+		for (int i = 0; i < conexiones.size(); i++) {
+			shards.add(new Shard(i, conexiones.size(), conexiones.get(i), propiedades.getTamanoBloqueIds()));
+		}
+
+		int conexionesTotales = conexiones.stream().mapToInt(ShardsProperties.Conexion::getMaxConexiones).sum();
+		AtomicInteger hilos = new AtomicInteger();
+		this.ejecutor = Executors.newFixedThreadPool(conexionesTotales, tarea -> {
+			Thread hilo = new Thread(tarea, "personajes-shards-" + hilos.getAndIncrement());
+			hilo.setDaemon(true);
+			return hilo;
+		});
+	}
+
+	/**
+	 * Cierra los pools de conexiones de todos los shards.
+	 */
+	@PreDestroy
+	public void cerrar() {
+		ejecutor.shutdown();
+		shards.forEach(Shard::close);
+	}
+
+	// --- Consultas de AlmacenPersonajes ---
+
+	@Override
+	public Optional<Personaje> findById(Integer idPersonaje) {
+		return shard(idPersonaje).leer(r -> r.findById(idPersonaje));
+	}
+
+	/**
+	 * Indica si existe un personaje, consultando solo su shard.
+	 *
+	 * @param idPersonaje El ID del personaje.
+	 * @return {@code true} si existe.
+	 */
+	public boolean existsById(Integer idPersonaje) {
+		return shard(idPersonaje).leer(r -> r.existsById(idPersonaje));
+	}
+
+	@Override
+	public List<Personaje> findAll() {
+		return mezclar(enTodos(s -> s.leer(r -> r.findAll(Sort.by("idPersonaje")))), POR_ID, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Cuenta los personajes de todos los shards.
+	 *
+	 * @return Número de personajes.
+	 */
+	public long count() {
+		return enTodos(s -> s.leer(PersonajeRepository::count)).stream().mapToLong(Long::longValue).sum();
+	}
+
+	@Override
+	public List<Personaje> findPersonajesActivos() {
+		return mezclar(enTodos(s -> s.leer(r -> ordenar(r.findPersonajesActivos()))), POR_ID, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Pide a cada shard una página entera a partir de {@code after} y se queda con los
+	 * primeros {@code pageSize} personajes de la mezcla.
+	 */
+	@Override
+	public List<Personaje> findPersonajesDesde(int after, Pageable pageable) {
+		return mezclar(enTodos(s -> s.leer(r -> r.findPersonajesDesde(after, pageable))), POR_ID,
+				pageable.getPageSize());
+	}
+
+	@Override
+	public List<Personaje> findPersonajesActivosDesde(int after, Pageable pageable) {
+		return mezclar(enTodos(s -> s.leer(r -> r.findPersonajesActivosDesde(after, pageable))), POR_ID,
+				pageable.getPageSize());
+	}
+
+	@Override
+	public Optional<VersionPersonaje> findVersionPersonaje(int idPersonaje) {
+		return shard(idPersonaje).leer(r -> r.findVersionPersonaje(idPersonaje));
+	}
+
+	@Override
+	public int findMaxIdPersonaje() {
+		return enTodos(s -> s.leer(PersonajeRepository::findMaxIdPersonaje)).stream().mapToInt(Integer::intValue)
+				.max().orElse(0);
+	}
+
+	// --- Escrituras de AlmacenPersonajes ---
+
+	@Override
+	public int aplicarDamage(int idPersonaje, int damage) {
+		return shard(idPersonaje).escribir(r -> r.aplicarDamage(idPersonaje, damage));
+	}
+
+	@Override
+	public int aplicarExperiencia(int idPersonaje, int experiencia) {
+		return shard(idPersonaje).escribir(r -> r.aplicarExperiencia(idPersonaje, experiencia));
+	}
+
+	@Override
+	public int reiniciarTodos() {
+		return enTodos(s -> s.escribir(PersonajeRepository::reiniciarTodos)).stream().mapToInt(Integer::intValue)
+				.sum();
+	}
+
+	@Override
+	public int reiniciarRango(int desde, int hasta) {
+		return enTodos(s -> s.escribir(r -> r.reiniciarRango(desde, hasta))).stream().mapToInt(Integer::intValue)
+				.sum();
+	}
+
+	/**
+	 * Guarda un personaje en su shard. Si no tiene ID, o su ID no existe, se inserta con un
+	 * ID nuevo de un shard elegido por turnos.
+	 */
+	@Override
+	public <S extends Personaje> S save(S personaje) {
+		int idPersonaje = personaje.getIdPersonaje();
+
+		if (idPersonaje > 0) {
+			S guardado = shard(idPersonaje).escribir(r -> r.existsById(idPersonaje) ? r.save(personaje) : null);
+			if (guardado != null) {
+				return guardado;
+			}
+		}
+
+		siguienteShard().insertar(List.of(personaje));
+		return personaje;
+	}
+
+	@Override
+	public <S extends Personaje> List<S> saveAll(Iterable<S> personajes) {
+		List<S> guardados = new ArrayList<>();
+		personajes.forEach(p -> guardados.add(save(p)));
+		return guardados;
+	}
+
+	/**
+	 * Borra un personaje de su shard, si existe.
+	 *
+	 * @param idPersonaje El ID del personaje.
+	 */
+	public void deleteById(Integer idPersonaje) {
+		shard(idPersonaje).escribir(r -> {
+			r.deleteById(idPersonaje);
+			return null;
+		});
+	}
+
+	// --- Operaciones de PersonajeRepositoryCustom ---
+
+	/**
+	 * Aplica en paralelo el daño de cada shard en una transacción de ese shard. El lote es
+	 * atómico dentro de cada shard, pero no entre shards.
+	 */
+	@Override
+	public List<Personaje> aplicarDamageLote(Map<Integer, Integer> damagePorId) {
+		Map<Shard, Map<Integer, Integer>> damagePorShard = new HashMap<>();
+		damagePorId.forEach((id, damage) -> damagePorShard.computeIfAbsent(shard(id), s -> new HashMap<>())
+				.put(id, damage));
+
+		return mezclar(enVarios(damagePorShard, (s, suyos) -> s.escribir(r -> r.aplicarDamageLote(suyos))), POR_ID,
+				Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Recorre los personajes por páginas de {@code findPersonajesDesde}, que ya vienen
+	 * mezcladas en orden de ID, sin mantener más de una página por shard en memoria.
+	 */
+	@Override
+	public void recorrer(boolean soloActivos, Consumer<Personaje> consumidor) {
+		Pageable pagina = PageRequest.of(0, TAMANO_PAGINA_RECORRIDO);
+		List<Personaje> personajes;
+		int after = 0;
+
+		do {
+			personajes = soloActivos ? findPersonajesActivosDesde(after, pagina) : findPersonajesDesde(after, pagina);
+			personajes.forEach(consumidor);
+			if (!personajes.isEmpty()) {
+				after = personajes.get(personajes.size() - 1).getIdPersonaje();
+			}
+		} while (personajes.size() == TAMANO_PAGINA_RECORRIDO);
+	}
+
+	/**
+	 * Reparte los personajes entre los shards por turnos e inserta el lote de cada shard en
+	 * paralelo, con IDs de ese shard.
+	 */
+	@Override
+	public int insertarLote(List<Personaje> personajes) {
+		Map<Shard, List<Personaje>> personajesPorShard = new HashMap<>();
+		for (Personaje personaje : personajes) {
+			personajesPorShard.computeIfAbsent(siguienteShard(), s -> new ArrayList<>()).add(personaje);
+		}
+
+		enVarios(personajesPorShard, (s, suyos) -> {
+			s.insertar(suyos);
+			return null;
+		});
+		return personajes.size();
+	}
+
+	@Override
+	public List<Map<String, Object>> proyectarActivos(List<String> campos, int after, Pageable pageable) {
+		return mezclar(enTodos(s -> s.leer(r -> r.proyectarActivos(campos, after, pageable))),
+				Comparator.comparingInt(fila -> (Integer) fila.get("idPersonaje")),
+				pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Mezcla en orden de ID los pares ID y versión de todos los shards a medida que se leen,
+	 * con un cursor abierto por shard, y los combina con {@code HuellaPersonajes} igual que
+	 * {@code PersonajeRepositoryCustomImpl}, de modo que la huella no depende de cómo estén
+	 * repartidos los personajes.
+	 */
+	@Override
+	public long huella(boolean soloActivos) {
+		String consulta = soloActivos
+				? "SELECT id_personaje, version FROM personajes WHERE activo = true ORDER BY id_personaje"
+				: "SELECT id_personaje, version FROM personajes ORDER BY id_personaje";
+		List<Stream<long[]>> filas = new ArrayList<>();
+
+		try {
+			for (Shard shard : shards) {
+				filas.add(shard.jdbc(jdbc -> {
+					JdbcTemplate cursor = new JdbcTemplate(jdbc.getDataSource());
+					cursor.setFetchSize(TAMANO_PAGINA_RECORRIDO);
+					return cursor.queryForStream(consulta,
+							(resultado, numero) -> new long[] { resultado.getInt(1), resultado.getLong(2) });
+				}));
+			}
+
+			long[] huella = { HuellaPersonajes.INICIAL };
+			mezclar(filas.stream().map(Stream::iterator).toList(), Comparator.comparingLong(f -> f[0]), fila -> {
+				huella[0] = HuellaPersonajes.combinar(huella[0], (int) fila[0], fila[1]);
+				return true;
+			});
+			return huella[0];
+		} finally {
+			filas.forEach(Stream::close);
+		}
+	}
+
+	// --- Reparto entre shards ---
+
+	/**
+	 * Devuelve el shard que guarda un ID.
+	 */
+	private Shard shard(int idPersonaje) {
+		return shards.get(Math.floorMod(idPersonaje, shards.size()));
+	}
+
+	/**
+	 * Devuelve el shard en el que se inserta el siguiente personaje nuevo.
+	 */
+	private Shard siguienteShard() {
+		return shards.get(Math.floorMod(turno.getAndIncrement(), shards.size()));
+	}
+
+	/**
+	 * Ejecuta una operación en todos los shards a la vez.
+	 *
+	 * @return El resultado de cada shard, en orden de shard.
+	 */
+	private <T> List<T> enTodos(Function<Shard, T> operacion) {
+		return esperar(shards.stream().map(s -> CompletableFuture.supplyAsync(() -> operacion.apply(s), ejecutor))
+				.toList());
+	}
+
+	/**
+	 * Ejecuta a la vez una operación en cada shard con su parte de los datos.
+	 *
+	 * @return El resultado de cada shard.
+	 */
+	private <D, T> List<T> enVarios(Map<Shard, D> datosPorShard, OperacionShard<D, T> operacion) {
+		return esperar(datosPorShard.entrySet().stream().map(entrada -> CompletableFuture
+				.supplyAsync(() -> operacion.ejecutar(entrada.getKey(), entrada.getValue()), ejecutor)).toList());
+	}
+
+	/**
+	 * Espera a todas las operaciones y relanza la excepción de la primera que falle tal cual,
+	 * sin envolver en {@code CompletionException}.
+	 */
+	private static <T> List<T> esperar(List<CompletableFuture<T>> futuros) {
+		try {
+			CompletableFuture.allOf(futuros.toArray(CompletableFuture[]::new)).join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException causa) {
+				throw causa;
+			}
+			throw e;
+		}
+		return futuros.stream().map(CompletableFuture::join).toList();
+	}
+
+	/**
+	 * Mezcla listas ya ordenadas en una sola lista ordenada.
+	 *
+	 * @param listas Las listas, cada una ordenada según {@code orden}.
+	 * @param orden  El orden de las listas.
+	 * @param limite Número máximo de elementos del resultado.
+	 * @return Los primeros {@code limite} elementos de la mezcla.
+	 */
+	private static <T> List<T> mezclar(List<List<T>> listas, Comparator<? super T> orden, int limite) {
+		List<T> resultado = new ArrayList<>();
+		if (limite > 0) {
+			mezclar(listas.stream().map(List::iterator).toList(), orden, elemento -> {
+				resultado.add(elemento);
+				return resultado.size() < limite;
+			});
+		}
+		return resultado;
+	}
+
+	/**
+	 * Recorre en orden varias secuencias ya ordenadas, con un montículo del primer elemento
+	 * pendiente de cada una, sin leer de cada secuencia más que el elemento siguiente.
+	 *
+	 * @param secuencias Las secuencias, cada una ordenada según {@code orden}.
+	 * @param orden      El orden de las secuencias.
+	 * @param consumidor Recibe cada elemento en orden y devuelve {@code false} para parar.
+	 */
+	private static <T> void mezclar(List<Iterator<T>> secuencias, Comparator<? super T> orden,
+			Predicate<T> consumidor) {
+		PriorityQueue<Cabeza<T>> cabezas = new PriorityQueue<>(Math.max(1, secuencias.size()),
+				(a, b) -> orden.compare(a.elemento, b.elemento));
+		for (Iterator<T> iterador : secuencias) {
+			if (iterador.hasNext()) {
+				cabezas.add(new Cabeza<>(iterador.next(), iterador));
+			}
+		}
+
+		while (!cabezas.isEmpty()) {
+			Cabeza<T> cabeza = cabezas.poll();
+			if (!consumidor.test(cabeza.elemento)) {
+				return;
+			}
+			if (cabeza.resto.hasNext()) {
+				cabezas.add(new Cabeza<>(cabeza.resto.next(), cabeza.resto));
+			}
+		}
+	}
+
+	/**
+	 * Ordena por ID los personajes de un shard, para las consultas que no los devuelven
+	 * ordenados.
+	 */
+	private static List<Personaje> ordenar(List<Personaje> personajes) {
+		List<Personaje> ordenados = new ArrayList<>(personajes);
+		ordenados.sort(POR_ID);
+		return ordenados;
+	}
+
+	/**
+	 * Una operación sobre un shard con su parte de los datos.
+	 */
+	@FunctionalInterface
+	private interface OperacionShard<D, T> {
+		T ejecutar(Shard shard, D datos);
+	}
+
+	/**
+	 * Primer elemento pendiente de una de las listas que se mezclan.
+	 */
+	private record Cabeza<T>(T elemento, Iterator<T> resto) {
+	}
+}
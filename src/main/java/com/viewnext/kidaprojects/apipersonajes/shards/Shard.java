@@ -0,0 +1,233 @@
+package com.viewnext.kidaprojects.apipersonajes.shards;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.viewnext.kidaprojects.apipersonajes.config.ShardsProperties;
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.repository.PersonajeRepository;
+import com.viewnext.kidaprojects.apipersonajes.repository.PersonajeRepositoryCustomImpl;
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Una de las bases de datos del perfil {@code shards}, con su pool de conexiones, sus
+ * migraciones de Flyway, su {@code EntityManagerFactory} y un {@code PersonajeRepository}
+ * creado con {@code JpaRepositoryFactory}, igual que el que crea Spring Data con una sola
+ * base de datos.
+ *
+ * <p>
+ * Los IDs del shard {@code i} de {@code n} son los de la forma {@code k * n + i}; el shard
+ * reserva los valores de {@code k} por bloques en su tabla {@code personaje_secuencia}
+ * (hi/lo), así que varias instancias de la aplicación pueden insertar a la vez sin repetir
+ * IDs y sin una consulta por inserción.
+ * </p>
+ *
+ * @version 1.0
+ * @since 18 de octubre de 2026
+ */
+final class Shard implements AutoCloseable {
+
+	private static final String INSERTAR = "INSERT INTO personajes (id_personaje, nombre, fuerza_original, "
+			+ "fuerza_actual, defensa_original, defensa_actual, nivel, vida_original, vida_total, vida_actual, "
+			+ "experiencia, activo, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+	private final int indice;
+	private final int numShards;
+	private final int tamanoBloque;
+
+	private final HikariDataSource dataSource;
+	private final EntityManagerFactory entityManagerFactory;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate escritura;
+	private final TransactionTemplate lectura;
+	private final PersonajeRepository repositorio;
+	private final HibernateJpaDialect dialecto = new HibernateJpaDialect();
+
+	private long siguienteId;
+	private long limiteId;
+
+	/**
+	 * Crea el shard y migra su esquema.
+	 *
+	 * @param indice       Posición del shard.
+	 * @param numShards    Número total de shards.
+	 * @param conexion     Conexión con la base de datos del shard.
+	 * @param tamanoBloque Número de IDs que se reservan de una vez.
+	 */
+	Shard(int indice, int numShards, ShardsProperties.Conexion conexion, int tamanoBloque) {
+		this.indice = indice;
+		this.numShards = numShards;
+		this.tamanoBloque = tamanoBloque;
+
+		this.dataSource = DataSourceBuilder.create().type(HikariDataSource.class).url(conexion.getUrl())
+				.username(conexion.getUsername()).password(conexion.getPassword()).build();
+		dataSource.setPoolName("personajes-shard-" + indice);
+		dataSource.setMaximumPoolSize(conexion.getMaxConexiones());
+
+		// Las migraciones comunes y las propias de los shards, como la tabla personaje_secuencia
+		Flyway.configure().dataSource(dataSource).locations("classpath:db/migration", "classpath:db/migration-shards")
+				.baselineOnMigrate(true).baselineVersion("1").load().migrate();
+
+		LocalContainerEntityManagerFactoryBean fabrica = new LocalContainerEntityManagerFactoryBean();
+		fabrica.setDataSource(dataSource);
+		fabrica.setPersistenceUnitName("personajes-shard-" + indice);
+		fabrica.setPackagesToScan(Personaje.class.getPackageName());
+		fabrica.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+		// Los mismos nombres de columna y lotes JDBC que con la configuración automática de Spring Boot
+		fabrica.setJpaPropertyMap(Map.of(
+				"hibernate.physical_naming_strategy",
+				"org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy",
+				"hibernate.implicit_naming_strategy",
+				"org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy",
+				"hibernate.jdbc.batch_size", "50",
+				"hibernate.order_updates", "true"));
+		fabrica.afterPropertiesSet();
+		this.entityManagerFactory = fabrica.getObject();
+
+		JpaTransactionManager transacciones = new JpaTransactionManager(entityManagerFactory);
+		this.escritura = new TransactionTemplate(transacciones);
+		this.lectura = new TransactionTemplate(transacciones);
+		lectura.setReadOnly(true);
+
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory);
+		this.repositorio = new JpaRepositoryFactory(entityManager).getRepository(PersonajeRepository.class,
+				RepositoryFragments.just(new PersonajeRepositoryCustomImpl(entityManager, jdbcTemplate)));
+
+		ajustarSecuencia();
+	}
+
+	/**
+	 * Posición del shard.
+	 *
+	 * @return El índice del shard.
+	 */
+	int indice() {
+		return indice;
+	}
+
+	/**
+	 * Ejecuta una operación sobre el repositorio del shard en una transacción.
+	 *
+	 * @param operacion La operación.
+	 * @return El resultado de la operación.
+	 */
+	<T> T escribir(Function<PersonajeRepository, T> operacion) {
+		return traducir(() -> escritura.execute(estado -> operacion.apply(repositorio)));
+	}
+
+	/**
+	 * Ejecuta una consulta sobre el repositorio del shard en una transacción de solo lectura.
+	 *
+	 * @param consulta La consulta.
+	 * @return El resultado de la consulta.
+	 */
+	<T> T leer(Function<PersonajeRepository, T> consulta) {
+		return traducir(() -> lectura.execute(estado -> consulta.apply(repositorio)));
+	}
+
+	/**
+	 * Ejecuta una consulta SQL sobre la base de datos del shard.
+	 *
+	 * @param consulta La consulta.
+	 * @return El resultado de la consulta.
+	 */
+	<T> T jdbc(Function<JdbcTemplate, T> consulta) {
+		return consulta.apply(jdbcTemplate);
+	}
+
+	/**
+	 * Inserta personajes nuevos, asignándoles IDs de este shard, con un lote JDBC.
+	 *
+	 * @param personajes Los personajes, que reciben su ID y la versión 0.
+	 */
+	void insertar(List<Personaje> personajes) {
+		for (Personaje personaje : personajes) {
+			personaje.setIdPersonaje(siguienteId());
+			personaje.setVersion(0);
+		}
+
+		escritura.executeWithoutResult(estado -> jdbcTemplate.batchUpdate(INSERTAR, personajes, personajes.size(),
+				(sentencia, personaje) -> {
+					sentencia.setInt(1, personaje.getIdPersonaje());
+					sentencia.setString(2, personaje.getNombre());
+					sentencia.setInt(3, personaje.getFuerzaOriginal());
+					sentencia.setInt(4, personaje.getFuerzaActual());
+					sentencia.setInt(5, personaje.getDefensaOriginal());
+					sentencia.setInt(6, personaje.getDefensaActual());
+					sentencia.setInt(7, personaje.getNivel());
+					sentencia.setInt(8, personaje.getVidaOriginal());
+					sentencia.setInt(9, personaje.getVidaTotal());
+					sentencia.setInt(10, personaje.getVidaActual());
+					sentencia.setInt(11, personaje.getExperiencia());
+					sentencia.setBoolean(12, personaje.isActivo());
+				}));
+	}
+
+	@Override
+	public void close() {
+		entityManagerFactory.close();
+		dataSource.close();
+	}
+
+	/**
+	 * Traduce las excepciones de JPA a las de Spring, como hace Spring Data con los
+	 * repositorios que registra como beans: {@code save} con una versión obsoleta lanza
+	 * {@code OptimisticLockingFailureException}.
+	 */
+	private <T> T traducir(Supplier<T> operacion) {
+		try {
+			return operacion.get();
+		} catch (RuntimeException e) {
+			DataAccessException traducida = dialecto.translateExceptionIfPossible(e);
+			throw traducida != null ? traducida : e;
+		}
+	}
+
+	/**
+	 * Devuelve el siguiente ID del shard, reservando un bloque nuevo si se ha agotado el actual.
+	 */
+	private synchronized int siguienteId() {
+		if (siguienteId == 0 || siguienteId > limiteId) {
+			long bloque = escritura.execute(estado -> {
+				jdbcTemplate.update("UPDATE personaje_secuencia SET siguiente_bloque = siguiente_bloque + 1");
+				return jdbcTemplate.queryForObject("SELECT siguiente_bloque FROM personaje_secuencia", Long.class) - 1;
+			});
+			siguienteId = bloque * tamanoBloque + 1;
+			limiteId = (bloque + 1) * tamanoBloque;
+		}
+
+		return Math.toIntExact(siguienteId++ * numShards + indice);
+	}
+
+	/**
+	 * Adelanta la secuencia para que los bloques nuevos no repitan los IDs que ya hay en el
+	 * shard, por ejemplo si sus filas se han copiado de otra base de datos.
+	 */
+	private void ajustarSecuencia() {
+		long maximo = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id_personaje), 0) FROM personajes", Long.class);
+		// El primer bloque cuyos IDs son todos mayores que el máximo
+		long primerBloqueLibre = (maximo / numShards + tamanoBloque - 1) / tamanoBloque;
+
+		jdbcTemplate.update("UPDATE personaje_secuencia SET siguiente_bloque = GREATEST(siguiente_bloque, ?)",
+				primerBloqueLibre);
+	}
+}
@@ -0,0 +1,6 @@
+-- Bloques de IDs (hi/lo) que reparte cada base de datos del perfil shards.
+-- Solo la aplica Shard; la base de datos principal sigue generando los IDs con AUTO_INCREMENT.
+CREATE TABLE personaje_secuencia (
+    siguiente_bloque BIGINT NOT NULL
+);
+INSERT INTO personaje_secuencia (siguiente_bloque) VALUES (0);
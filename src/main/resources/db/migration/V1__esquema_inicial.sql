@@ -0,0 +1,17 @@
+-- Esquema inicial de la tabla de personajes, tal y como lo generaba Hibernate.
+-- En una base de datos ya existente esta migración no se ejecuta (baseline-on-migrate).
+CREATE TABLE personajes (
+    id_personaje INT NOT NULL AUTO_INCREMENT,
+    nombre VARCHAR(255),
+    fuerza_original INT NOT NULL,
+    fuerza_actual INT NOT NULL,
+    defensa_original INT NOT NULL,
+    defensa_actual INT NOT NULL,
+    nivel INT NOT NULL,
+    vida_original INT NOT NULL,
+    vida_total INT NOT NULL,
+    vida_actual INT NOT NULL,
+    experiencia INT NOT NULL,
+    activo BIT NOT NULL,
+    PRIMARY KEY (id_personaje)
+);
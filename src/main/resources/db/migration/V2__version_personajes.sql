@@ -0,0 +1,2 @@
+-- Versión de la fila para el bloqueo optimista de Personaje.
+ALTER TABLE personajes ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
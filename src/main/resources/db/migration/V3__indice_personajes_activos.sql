@@ -0,0 +1,2 @@
+-- Índice para las consultas de personajes activos, que filtran por activo y recorren por ID.
+CREATE INDEX idx_personajes_activo_id ON personajes (activo, id_personaje);
@@ -0,0 +1,122 @@
+package com.viewnext.kidaprojects.apipersonajes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.support.StubRecompensaServer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Comprueba que las métricas de controlador, servicio, repositorio y WebClient se registran
+ * con sus etiquetas de resultado y se publican en {@code /actuator/prometheus}.
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "personaje.upstream.enemigo.reintentos=0")
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class MetricasTest {
+
+	private static final StubRecompensaServer UPSTREAM = StubRecompensaServer.arrancar();
+
+	@Autowired
+	private TestRestTemplate rest;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@DynamicPropertySource
+	static void upstreams(DynamicPropertyRegistry propiedades) {
+		propiedades.add("personaje.upstream.mision.base-url", UPSTREAM::getBaseUrl);
+		propiedades.add("personaje.upstream.enemigo.base-url", UPSTREAM::getBaseUrl);
+	}
+
+	@AfterAll
+	static void pararStub() {
+		UPSTREAM.close();
+	}
+
+	@Test
+	void registraLasMetricasDeCadaCapa() {
+		Personaje creado = rest.postForObject("/personaje", new Personaje("Medido", 10, 10, 100), Personaje.class);
+		int id = creado.getIdPersonaje();
+
+		assertEquals(HttpStatus.OK, rest.getForEntity("/personaje/" + id, String.class).getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND, rest.getForEntity("/personaje/" + Integer.MAX_VALUE, String.class)
+				.getStatusCode());
+		assertEquals(HttpStatus.OK, reclamar("mision/3/" + id).getStatusCode());
+		UPSTREAM.fallarSiguientes(1);
+		assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, reclamar("enemigo/4/" + id).getStatusCode());
+
+		// Controlador
+		assertRegistrado(registry.find("http.server.requests").tag("uri", "/personaje/{idPersonaje}")
+				.tag("status", "404").timer());
+
+		// Servicio, etiquetado con la excepción lanzada
+		assertRegistrado(registry.find("personaje.service").tag("method", "showPersonajeById")
+				.tag("exception", "none").timer());
+		assertRegistrado(registry.find("personaje.service").tag("method", "showPersonajeById")
+				.tag("exception", "EntityNotFoundException").timer());
+		assertRegistrado(registry.find("personaje.recompensa.reclamacion").tag("origen", "mision")
+				.tag("resultado", "exito").timer());
+		assertRegistrado(registry.find("personaje.recompensa.reclamacion").tag("origen", "enemigo")
+				.tag("resultado", "error_recompensa").timer());
+
+		// Repositorio
+		assertRegistrado(registry.find("spring.data.repository.invocations").tag("method", "findById").timer());
+		assertRegistrado(registry.find("spring.data.repository.invocations").tag("method", "save")
+				.tag("state", "SUCCESS").timer());
+
+		// WebClient
+		assertRegistrado(registry.find("http.client.requests").tag("uri", "/mision/recompensa/{idMision}")
+				.tag("status", "200").timer());
+		// El timer de una llamada fallida se cierra justo después de propagar el error
+		assertRegistrado(esperar(() -> registry.find("http.client.requests")
+				.tag("uri", "/enemigo/recompensa/{idEnemigo}").tag("status", "503").timer()));
+
+		String prometheus = rest.getForObject("/actuator/prometheus", String.class);
+		assertTrue(prometheus.contains("personaje_service_seconds_count"));
+		assertTrue(prometheus.contains("spring_data_repository_invocations_seconds_count"));
+		assertTrue(prometheus.contains("http_client_requests_seconds_count"));
+	}
+
+	private ResponseEntity<String> reclamar(String ruta) {
+		return rest.exchange("/personaje/" + ruta, HttpMethod.PUT, null, String.class);
+	}
+
+	private static Timer esperar(Supplier<Timer> busqueda) {
+		long limite = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		Timer timer = busqueda.get();
+
+		while (timer == null && System.nanoTime() < limite) {
+			LockSupport.parkNanos(Duration.ofMillis(20).toNanos());
+			timer = busqueda.get();
+		}
+		return timer;
+	}
+
+	private static void assertRegistrado(Timer timer) {
+		assertNotNull(timer);
+		assertTrue(timer.count() > 0);
+	}
+}
@@ -0,0 +1,88 @@
+package com.viewnext.kidaprojects.apipersonajes.binario;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+
+/**
+ * Pruebas de ida y vuelta del formato de {@code PersonajeBinario}.
+ */
+class PersonajeBinarioTest {
+
+	@Test
+	void leeLoMismoQueEscribe() throws IOException {
+		List<Personaje> personajes = new ArrayList<>();
+		for (int i = 1; i <= 1000; i++) {
+			Personaje personaje = new Personaje("Personaje " + i, 10 + i, 20, 1000 * i);
+			personaje.setIdPersonaje(i * 3);
+			personaje.setVidaActual(-i);
+			personaje.setExperiencia(i % 1000);
+			personaje.setActivo(i % 2 == 0);
+			personaje.setVersion(i * 1_000_000_000L);
+			personajes.add(personaje);
+		}
+		Personaje sinNombre = new Personaje();
+		sinNombre.setIdPersonaje(Integer.MAX_VALUE);
+		personajes.add(sinNombre);
+		Personaje unicode = new Personaje("Ñandú 勇者", Integer.MIN_VALUE, Integer.MAX_VALUE, 1);
+		unicode.setIdPersonaje(1);
+		personajes.add(unicode);
+
+		byte[] binario = escribir(personajes);
+		List<Personaje> leidos = leer(binario);
+
+		assertEquals(personajes.size(), leidos.size());
+		for (int i = 0; i < personajes.size(); i++) {
+			assertEquals(personajes.get(i).toString(), leidos.get(i).toString());
+			assertEquals(personajes.get(i).getVidaTotal(), leidos.get(i).getVidaTotal());
+		}
+
+		byte[] json = new ObjectMapper().writeValueAsBytes(personajes);
+		assertTrue(binario.length * 4 < json.length, binario.length + " bytes frente a " + json.length);
+	}
+
+	@Test
+	void rechazaEntradasAjenasOTruncadas() throws IOException {
+		Personaje personaje = new Personaje("Truncado", 1, 1, 1);
+		byte[] binario = escribir(List.of(personaje));
+
+		assertThrows(IOException.class, () -> PersonajeBinario.lector(new ByteArrayInputStream("[{}]".getBytes())));
+		PersonajeBinario.Lector lector = PersonajeBinario.lector(
+				new ByteArrayInputStream(Arrays.copyOf(binario, binario.length - 3)));
+		assertThrows(EOFException.class, lector::leer);
+	}
+
+	private static byte[] escribir(List<Personaje> personajes) throws IOException {
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		try (PersonajeBinario.Escritor escritor = PersonajeBinario.escritor(salida)) {
+			for (Personaje personaje : personajes) {
+				escritor.escribir(personaje);
+			}
+		}
+		return salida.toByteArray();
+	}
+
+	private static List<Personaje> leer(byte[] binario) throws IOException {
+		PersonajeBinario.Lector lector = PersonajeBinario.lector(new ByteArrayInputStream(binario));
+		List<Personaje> personajes = new ArrayList<>();
+		for (Personaje personaje = lector.leer(); personaje != null; personaje = lector.leer()) {
+			personajes.add(personaje);
+		}
+		assertNull(lector.leer());
+		return personajes;
+	}
+}
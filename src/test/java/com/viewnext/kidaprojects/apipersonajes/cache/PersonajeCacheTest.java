@@ -0,0 +1,123 @@
+package com.viewnext.kidaprojects.apipersonajes.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.Test;
+
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas de {@code PersonajeCache}. El cargador hace de repositorio y cuenta las lecturas.
+ */
+class PersonajeCacheTest {
+
+	private final AtomicInteger lecturas = new AtomicInteger();
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final IntFunction<Optional<Personaje>> repositorio = id -> {
+		lecturas.incrementAndGet();
+		if (id < 0) {
+			return Optional.empty();
+		}
+		Personaje personaje = new Personaje("Personaje " + id, 10, 10, 100);
+		personaje.setIdPersonaje(id);
+		return Optional.of(personaje);
+	};
+
+	@Test
+	void unAciertoNoConsultaElRepositorio() {
+		PersonajeCache cache = new PersonajeCache(registry, true, 100, Duration.ofMinutes(1));
+
+		Personaje primero = cache.obtener(1, repositorio).orElseThrow();
+		Personaje segundo = cache.obtener(1, repositorio).orElseThrow();
+
+		assertEquals(1, lecturas.get());
+		assertEquals("Personaje 1", segundo.getNombre());
+		assertEquals(1, registry.get("cache.gets").tag("cache", "personajes").tag("result", "hit")
+				.functionCounter().count());
+		assertEquals(1, registry.get("cache.gets").tag("cache", "personajes").tag("result", "miss")
+				.functionCounter().count());
+		assertSame(primero, segundo);
+	}
+
+	@Test
+	void unPersonajeInexistenteNoSeGuarda() {
+		PersonajeCache cache = new PersonajeCache(registry, true, 100, Duration.ofMinutes(1));
+
+		assertTrue(cache.obtener(-1, repositorio).isEmpty());
+		assertTrue(cache.obtener(-1, repositorio).isEmpty());
+
+		assertEquals(2, lecturas.get());
+		assertTrue(cache.consultar(-1).isEmpty());
+	}
+
+	@Test
+	void expiraPasadoElTtl() throws Exception {
+		PersonajeCache cache = new PersonajeCache(registry, true, 100, Duration.ofMillis(50));
+
+		cache.obtener(1, repositorio);
+		Thread.sleep(150);
+
+		assertTrue(cache.consultar(1).isEmpty());
+		cache.obtener(1, repositorio);
+		assertEquals(2, lecturas.get());
+	}
+
+	@Test
+	void expulsaPersonajesAlSuperarElTamanoMaximo() throws Exception {
+		PersonajeCache cache = new PersonajeCache(registry, true, 10, Duration.ofMinutes(1));
+
+		for (int id = 0; id < 200; id++) {
+			cache.obtener(id, repositorio);
+		}
+
+		// Caffeine expulsa en segundo plano
+		long limite = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (tamano() > 10 && System.nanoTime() < limite) {
+			cache.consultar(0);
+			Thread.sleep(10);
+		}
+		assertTrue(tamano() <= 10);
+		assertTrue(registry.get("cache.evictions").tag("cache", "personajes").functionCounter().count() >= 190);
+	}
+
+	@Test
+	void invalidarVuelveALeerDelRepositorio() {
+		PersonajeCache cache = new PersonajeCache(registry, true, 100, Duration.ofMinutes(1));
+		cache.obtener(1, repositorio);
+		cache.obtener(2, repositorio);
+
+		cache.invalidar(1);
+		assertTrue(cache.consultar(1).isEmpty());
+		assertTrue(cache.consultar(2).isPresent());
+
+		cache.invalidarTodo();
+		assertTrue(cache.consultar(2).isEmpty());
+	}
+
+	@Test
+	void desactivadaLeeSiempreDelRepositorio() {
+		PersonajeCache cache = new PersonajeCache(registry, false, 100, Duration.ofMinutes(1));
+
+		Personaje primero = cache.obtener(1, repositorio).orElseThrow();
+		Personaje segundo = cache.obtener(1, repositorio).orElseThrow();
+
+		assertEquals(2, lecturas.get());
+		assertNotSame(primero, segundo);
+		assertTrue(cache.consultar(1).isEmpty());
+	}
+
+	private double tamano() {
+		return registry.get("cache.size").tag("cache", "personajes").gauge().value();
+	}
+}
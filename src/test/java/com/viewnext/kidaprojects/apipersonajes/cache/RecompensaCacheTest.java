@@ -0,0 +1,59 @@
+package com.viewnext.kidaprojects.apipersonajes.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.Test;
+
+import com.viewnext.kidaprojects.apipersonajes.model.OrigenRecompensa;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Pruebas de {@code RecompensaCache}.
+ */
+class RecompensaCacheTest {
+
+	private final AtomicInteger llamadas = new AtomicInteger();
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final IntFunction<Mono<Integer>> servicioLento = id -> Mono.fromCallable(() -> {
+		llamadas.incrementAndGet();
+		return id * 10;
+	}).delayElement(Duration.ofMillis(100));
+
+	private final RecompensaCache cache = new RecompensaCache(
+			Map.of(OrigenRecompensa.MISION, servicioLento, OrigenRecompensa.ENEMIGO, servicioLento),
+			registry, true, 100, Duration.ofMinutes(5));
+
+	@Test
+	void fallosConcurrentesCompartenUnaLlamadaRemota() {
+		List<Integer> recompensas = Flux.range(0, 50)
+				.flatMap(i -> cache.obtener(OrigenRecompensa.ENEMIGO, 7))
+				.collectList()
+				.block();
+
+		assertEquals(50, recompensas.size());
+		recompensas.forEach(r -> assertEquals(70, r));
+		assertEquals(1, llamadas.get());
+		assertEquals(49, registry.get("personaje.recompensa.llamadas.ahorradas").tag("origen", "enemigo")
+				.functionCounter().count());
+	}
+
+	@Test
+	void invalidarVuelveAConsultarElServicio() {
+		cache.obtener(OrigenRecompensa.MISION, 3).block();
+		cache.obtener(OrigenRecompensa.MISION, 3).block();
+		cache.invalidar(OrigenRecompensa.MISION, 3);
+		cache.obtener(OrigenRecompensa.MISION, 3).block();
+
+		assertEquals(2, llamadas.get());
+	}
+}
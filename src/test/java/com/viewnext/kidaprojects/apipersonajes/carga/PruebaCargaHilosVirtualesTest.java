@@ -0,0 +1,251 @@
+package com.viewnext.kidaprojects.apipersonajes.carga;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.viewnext.kidaprojects.apipersonajes.ApiPersonajeApplication;
+import com.viewnext.kidaprojects.apipersonajes.support.InformeCarga;
+import com.viewnext.kidaprojects.apipersonajes.support.ResultadoCarga;
+import com.viewnext.kidaprojects.apipersonajes.support.StubRecompensaServer;
+
+/**
+ * Comparación de hilos de plataforma y de hilos virtuales con muchas reclamaciones de
+ * recompensas concurrentes.
+ *
+ * <p>
+ * Arranca la aplicación dos veces en una JVM aparte, primero con hilos de plataforma y
+ * después con {@code personaje.virtual-threads.enabled=true}, contra H2 y los servidores
+ * de recompensas simulados. En cada arranque lanza a la vez {@code carga.virtuales.reclamaciones}
+ * (10.000) reclamaciones, cada una en su propia conexión y con un ID de recompensa nuevo
+ * para que todas esperen al servidor simulado, y muestra el throughput, las
+ * latencias p50/p99/p999, los errores, el máximo de hilos de plataforma de la aplicación y
+ * los eventos de pinning que informa {@code -Djdk.tracePinnedThreads=short}. La aplicación
+ * va en otra JVM porque 10.000 conexiones abiertas en los dos extremos no caben en el
+ * límite de descriptores de un solo proceso. El informe se guarda también en
+ * {@code target/loadtest-hilos-virtuales.csv}.
+ * </p>
+ *
+ * <p>
+ * Solo se ejecuta en Java 21 con {@code mvn -Pjava21,loadtest test}. Parámetros
+ * (propiedades del sistema): {@code carga.virtuales.reclamaciones},
+ * {@code carga.virtuales.personajes} y {@code carga.latencia-ms}.
+ * </p>
+ */
+@Tag("loadtest")
+class PruebaCargaHilosVirtualesTest {
+
+	private static final int RECLAMACIONES = Integer.getInteger("carga.virtuales.reclamaciones", 10_000);
+	private static final int PERSONAJES = Integer.getInteger("carga.virtuales.personajes", 100);
+	private static final Duration LATENCIA_UPSTREAM = Duration.ofMillis(Long.getLong("carga.latencia-ms", 20));
+	private static final Duration TIMEOUT = Duration.ofMinutes(10);
+	private static final Pattern PICO_HILOS = Pattern.compile("\"value\":([0-9.]+)");
+
+	private static final AtomicInteger SIGUIENTE_RECOMPENSA = new AtomicInteger(1000);
+
+	private static final StubRecompensaServer MISIONES = StubRecompensaServer.arrancar();
+	private static final StubRecompensaServer ENEMIGOS = StubRecompensaServer.arrancar();
+
+	private final HttpClient cliente = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.build();
+
+	@AfterAll
+	static void pararStubs() {
+		MISIONES.close();
+		ENEMIGOS.close();
+	}
+
+	@Test
+	void reclamacionesConcurrentesPlataformaFrenteAVirtuales() throws Exception {
+		assumeTrue(Runtime.version().feature() >= 21, "Los hilos virtuales requieren Java 21");
+		MISIONES.setLatencia(LATENCIA_UPSTREAM);
+		ENEMIGOS.setLatencia(LATENCIA_UPSTREAM);
+
+		Ejecucion plataforma = ejecutar(false);
+		Ejecucion virtuales = ejecutar(true);
+
+		informar(plataforma, virtuales);
+
+		assertEquals(0, plataforma.resultado().getErrores(), "Errores con hilos de plataforma");
+		assertEquals(0, virtuales.resultado().getErrores(), "Errores con hilos virtuales");
+	}
+
+	/**
+	 * Arranca la aplicación, crea los personajes, calienta y lanza todas las reclamaciones a la vez.
+	 */
+	private Ejecucion ejecutar(boolean hilosVirtuales) throws Exception {
+		String modo = hilosVirtuales ? "virtuales" : "plataforma";
+		int puerto = puertoLibre();
+		String base = "http://localhost:" + puerto + "/";
+		Path salida = Path.of("target", "loadtest-hilos-" + modo + ".log");
+		Process aplicacion = arrancarAplicacion(puerto, hilosVirtuales, salida);
+
+		try {
+			esperarArranque(base);
+			for (int i = 0; i < PERSONAJES; i++) {
+				enviar(HttpRequest.newBuilder(URI.create(base + "personaje"))
+						.header("Content-Type", "application/json")
+						.POST(HttpRequest.BodyPublishers.ofString(
+								"{\"nombre\":\"Virtual " + i + "\",\"fuerzaOriginal\":10,\"defensaOriginal\":10,"
+										+ "\"vidaOriginal\":1000}"))
+						.build()).join();
+			}
+
+			lanzar(base, Math.min(1000, RECLAMACIONES), new ResultadoCarga());
+
+			ResultadoCarga resultado = new ResultadoCarga();
+			long inicio = System.nanoTime();
+			lanzar(base, RECLAMACIONES, resultado);
+			resultado.setSegundos((System.nanoTime() - inicio) / 1e9);
+			return new Ejecucion(modo, resultado, picoHilos(base));
+		} finally {
+			aplicacion.destroy();
+			aplicacion.waitFor();
+			resultadoPinning(modo, salida);
+		}
+	}
+
+	/**
+	 * Lanza todas las reclamaciones sin esperar respuesta y espera a que terminen.
+	 */
+	private void lanzar(String base, int reclamaciones, ResultadoCarga resultado) {
+		List<CompletableFuture<Void>> pendientes = new ArrayList<>(reclamaciones);
+
+		for (int i = 0; i < reclamaciones; i++) {
+			// Cada reclamación usa un ID nuevo para que la caché de recompensas no evite la espera al upstream
+			String url = base + "personaje/" + (i % 2 == 0 ? "mision/" : "enemigo/")
+					+ SIGUIENTE_RECOMPENSA.getAndIncrement() + "/"
+					+ ThreadLocalRandom.current().nextInt(1, PERSONAJES + 1);
+			long inicio = System.nanoTime();
+
+			pendientes.add(enviar(HttpRequest.newBuilder(URI.create(url)).PUT(HttpRequest.BodyPublishers.noBody())
+					.build()).handle((respuesta, error) -> {
+						resultado.registrar(System.nanoTime() - inicio, error != null || respuesta.statusCode() >= 400);
+						return null;
+					}));
+		}
+		CompletableFuture.allOf(pendientes.toArray(CompletableFuture[]::new)).join();
+	}
+
+	private CompletableFuture<HttpResponse<Void>> enviar(HttpRequest peticion) {
+		return cliente.sendAsync(HttpRequest.newBuilder(peticion, (nombre, valor) -> true).timeout(TIMEOUT).build(),
+				HttpResponse.BodyHandlers.discarding());
+	}
+
+	/**
+	 * Arranca {@code ApiPersonajeApplication} en otra JVM con el classpath de las pruebas y
+	 * el perfil {@code test}.
+	 */
+	private Process arrancarAplicacion(int puerto, boolean hilosVirtuales, Path salida) throws IOException {
+		String java = ProcessHandle.current().info().command().orElse("java");
+		List<String> comando = new ArrayList<>(List.of(java, "-Djdk.tracePinnedThreads=short",
+				"-cp", System.getProperty("java.class.path"), ApiPersonajeApplication.class.getName(),
+				"--server.port=" + puerto,
+				"--spring.profiles.active=test",
+				"--personaje.virtual-threads.enabled=" + hilosVirtuales,
+				"--personaje.upstream.mision.base-url=" + MISIONES.getBaseUrl(),
+				"--personaje.upstream.enemigo.base-url=" + ENEMIGOS.getBaseUrl(),
+				// Tomcat acepta por defecto 8192 conexiones; la prueba necesita todas abiertas a la vez
+				"--server.tomcat.max-connections=" + (RECLAMACIONES + 1000),
+				"--server.tomcat.accept-count=" + RECLAMACIONES,
+				// Todas las reclamaciones llegan al upstream: esperan conexión y respuesta en lugar de fallar
+				"--personaje.upstream.mision.pending-acquire-max-count=" + RECLAMACIONES,
+				"--personaje.upstream.mision.pending-acquire-timeout=" + TIMEOUT.toMillis() + "ms",
+				"--personaje.upstream.mision.response-timeout=" + TIMEOUT.toMillis() + "ms",
+				"--personaje.upstream.enemigo.pending-acquire-max-count=" + RECLAMACIONES,
+				"--personaje.upstream.enemigo.pending-acquire-timeout=" + TIMEOUT.toMillis() + "ms",
+				"--personaje.upstream.enemigo.response-timeout=" + TIMEOUT.toMillis() + "ms",
+				// Se mide la latencia de cola completa, sin que el timeout asíncrono de MVC la corte a 30 s
+				"--spring.mvc.async.request-timeout=" + TIMEOUT.toMillis(),
+				"--logging.level.root=WARN"));
+
+		Files.createDirectories(salida.getParent());
+		return new ProcessBuilder(comando).redirectErrorStream(true).redirectOutput(salida.toFile()).start();
+	}
+
+	private void esperarArranque(String base) throws InterruptedException {
+		long limite = System.nanoTime() + Duration.ofMinutes(2).toNanos();
+		while (System.nanoTime() < limite) {
+			try {
+				if (cliente.send(HttpRequest.newBuilder(URI.create(base + "actuator/health")).build(),
+						HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+					return;
+				}
+			} catch (ConnectException e) {
+				// Todavía arrancando
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			Thread.sleep(500);
+		}
+		throw new IllegalStateException("La aplicación no ha arrancado en " + base);
+	}
+
+	/**
+	 * Máximo de hilos de plataforma vivos en la aplicación desde su arranque. Los hilos
+	 * virtuales no se cuentan.
+	 */
+	private int picoHilos(String base) throws IOException, InterruptedException {
+		String cuerpo = cliente.send(HttpRequest.newBuilder(URI.create(base + "actuator/metrics/jvm.threads.peak"))
+				.build(), HttpResponse.BodyHandlers.ofString()).body();
+		Matcher valor = PICO_HILOS.matcher(cuerpo);
+		return valor.find() ? (int) Double.parseDouble(valor.group(1)) : -1;
+	}
+
+	private static void resultadoPinning(String modo, Path salida) throws IOException {
+		long eventos = Files.readAllLines(salida).stream().filter(linea -> linea.contains("<== monitors")).count();
+		System.out.printf("Pinning con hilos %s: %d eventos (%s)%n", modo, eventos, salida);
+	}
+
+	private static void informar(Ejecucion... ejecuciones) throws IOException {
+		InformeCarga informe = new InformeCarga(
+				"hilos,reclamaciones,segundos,peticiones_s,p50_ms,p99_ms,p999_ms,max_ms,errores,pico_hilos",
+				"%-12s %13s %9s %11s %9s %9s %9s %9s %8s %10s", "hilos", "reclamaciones", "segundos", "peticion/s",
+				"p50 ms", "p99 ms", "p999 ms", "max ms", "errores", "pico hilos");
+
+		for (Ejecucion ejecucion : ejecuciones) {
+			ResultadoCarga r = ejecucion.resultado();
+			informe.fila("%s,%d,%.1f,%.1f,%.1f,%.1f,%.1f,%.1f,%d,%d", ejecucion.modo(), r.peticiones(),
+					r.getSegundos(), r.throughput(), r.percentil(0.50), r.percentil(0.99), r.percentil(0.999),
+					r.percentil(1), r.getErrores(), ejecucion.picoHilos());
+		}
+
+		informe.escribir(String.format("%d reclamaciones concurrentes, %d personajes, upstream %dms", RECLAMACIONES,
+				PERSONAJES, LATENCIA_UPSTREAM.toMillis()), "loadtest-hilos-virtuales.csv");
+	}
+
+	private static int puertoLibre() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	/**
+	 * Resultado de las reclamaciones medidas en un modo de ejecución.
+	 */
+	private record Ejecucion(String modo, ResultadoCarga resultado, int picoHilos) {
+	}
+}
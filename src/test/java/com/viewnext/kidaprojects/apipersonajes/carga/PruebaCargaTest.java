@@ -0,0 +1,385 @@
+package com.viewnext.kidaprojects.apipersonajes.carga;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.viewnext.kidaprojects.apipersonajes.support.InformeCarga;
+import com.viewnext.kidaprojects.apipersonajes.support.ResultadoCarga;
+import com.viewnext.kidaprojects.apipersonajes.support.StubRecompensaServer;
+
+/**
+ * Prueba de carga de extremo a extremo de {@code PersonajeRestController}.
+ *
+ * <p>
+ * Arranca la aplicación contra H2 y sustituye los servicios de misiones y enemigos por
+ * servidores locales con latencia y tasa de error configurables. Después lanza durante un
+ * tiempo fijo una mezcla de lecturas, daño, recompensas y reinicios desde varios hilos y
+ * muestra, por endpoint, el throughput, las latencias p50/p99/p999 y los errores. El
+ * informe se guarda también en {@code target/loadtest-report.csv}.
+ * </p>
+ *
+ * <p>
+ * Solo se ejecuta con {@code mvn -Ploadtest test}. Parámetros (propiedades del sistema):
+ * {@code carga.hilos}, {@code carga.duracion-s}, {@code carga.calentamiento-s},
+ * {@code carga.personajes}, {@code carga.latencia-ms} y {@code carga.tasa-error}.
+ * </p>
+ *
+ * <p>
+ * {@code recompensasConUpstreamLento} lanza {@code carga.lento.concurrentes} reclamaciones
+ * a la vez, más que hilos tiene Tomcat ({@code carga.tomcat-hilos}), junto con lecturas,
+ * primero con la latencia normal y después con {@code carga.lento.latencia-ms} (500 ms).
+ * Comprueba que el upstream llega a tener en curso más reclamaciones que hilos tiene
+ * Tomcat, que el throughput se mantiene y que las lecturas no esperan detrás de las
+ * reclamaciones.
+ * </p>
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class PruebaCargaTest {
+
+	private static final int HILOS = Integer.getInteger("carga.hilos", 32);
+	private static final Duration DURACION = Duration.ofSeconds(Long.getLong("carga.duracion-s", 30));
+	private static final Duration CALENTAMIENTO = Duration.ofSeconds(Long.getLong("carga.calentamiento-s", 5));
+	private static final int PERSONAJES = Integer.getInteger("carga.personajes", 1000);
+	private static final Duration LATENCIA_UPSTREAM = Duration.ofMillis(Long.getLong("carga.latencia-ms", 20));
+	private static final double TASA_ERROR_UPSTREAM = Double.parseDouble(System.getProperty("carga.tasa-error", "0.01"));
+	private static final int HILOS_TOMCAT = Integer.getInteger("carga.tomcat-hilos", 50);
+	private static final Duration LATENCIA_LENTA = Duration.ofMillis(Long.getLong("carga.lento.latencia-ms", 500));
+	private static final int CONCURRENTES_LENTO = Integer.getInteger("carga.lento.concurrentes", 100);
+	private static final Duration DURACION_LENTO = Duration.ofSeconds(Long.getLong("carga.lento.duracion-s", 15));
+
+	private static final AtomicInteger SIGUIENTE_RECOMPENSA = new AtomicInteger(1000);
+
+	private static final StubRecompensaServer MISIONES = StubRecompensaServer.arrancar();
+	private static final StubRecompensaServer ENEMIGOS = StubRecompensaServer.arrancar();
+
+	@LocalServerPort
+	private int puerto;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final HttpClient cliente = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(Duration.ofSeconds(5))
+			.build();
+
+	private int[] ids;
+
+	/**
+	 * Endpoints de la mezcla de carga con su peso relativo (sobre 1000).
+	 */
+	enum Operacion {
+		LEER_PERSONAJE(450, (base, id) -> HttpRequest.newBuilder(URI.create(base + "personaje/" + id)).GET()),
+		LISTAR_PAGINA(50, (base, id) -> HttpRequest.newBuilder(URI.create(base + "personaje?after=" + id + "&limit=100"))
+				.GET()),
+		DAMAGE(300, (base, id) -> HttpRequest.newBuilder(URI.create(base + "personaje/" + id + "/damage?damage=1"))
+				.PUT(HttpRequest.BodyPublishers.noBody())),
+		DAMAGE_LOTE(50, (base, id) -> HttpRequest.newBuilder(URI.create(base + "personaje/damage/batch"))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(loteGolpes(id)))),
+		RECOMPENSA_MISION(73, (base, id) -> HttpRequest.newBuilder(URI.create(base + "personaje/mision/"
+				+ ThreadLocalRandom.current().nextInt(1, 500) + "/" + id)).PUT(HttpRequest.BodyPublishers.noBody())),
+		RECOMPENSA_ENEMIGO(75, (base, id) -> HttpRequest.newBuilder(URI.create(base + "personaje/enemigo/"
+				+ ThreadLocalRandom.current().nextInt(1, 500) + "/" + id)).PUT(HttpRequest.BodyPublishers.noBody())),
+		REINICIO(2, (base, id) -> HttpRequest.newBuilder(URI.create(base + "personaje/reinicio"))
+				.POST(HttpRequest.BodyPublishers.noBody()));
+
+		private final int peso;
+		private final BiFunction<String, Integer, HttpRequest.Builder> peticion;
+
+		Operacion(int peso, BiFunction<String, Integer, HttpRequest.Builder> peticion) {
+			this.peso = peso;
+			this.peticion = peticion;
+		}
+
+		boolean dependeDeUpstream() {
+			return this == RECOMPENSA_MISION || this == RECOMPENSA_ENEMIGO;
+		}
+
+		private static String loteGolpes(int id) {
+			StringBuilder json = new StringBuilder("[");
+			for (int i = 0; i < 10; i++) {
+				json.append(i == 0 ? "" : ",").append("{\"idPersonaje\":").append(id + i).append(",\"damage\":1}");
+			}
+			return json.append(']').toString();
+		}
+	}
+
+	@DynamicPropertySource
+	static void upstreams(DynamicPropertyRegistry registry) {
+		MISIONES.setLatencia(LATENCIA_UPSTREAM);
+		MISIONES.setTasaError(TASA_ERROR_UPSTREAM);
+		ENEMIGOS.setLatencia(LATENCIA_UPSTREAM);
+		ENEMIGOS.setTasaError(TASA_ERROR_UPSTREAM);
+
+		registry.add("personaje.upstream.mision.base-url", MISIONES::getBaseUrl);
+		registry.add("personaje.upstream.enemigo.base-url", ENEMIGOS::getBaseUrl);
+		registry.add("server.tomcat.threads.max", () -> HILOS_TOMCAT);
+		registry.add("logging.level.root", () -> "WARN");
+	}
+
+	@AfterAll
+	static void pararStubs() {
+		MISIONES.close();
+		ENEMIGOS.close();
+	}
+
+	@Test
+	void mezclaDeCarga() throws Exception {
+		poblar();
+
+		ejecutar(CALENTAMIENTO);
+		Map<Operacion, ResultadoCarga> resultados = ejecutar(DURACION);
+
+		informar(resultados);
+
+		for (Operacion operacion : Operacion.values()) {
+			ResultadoCarga resultado = resultados.get(operacion);
+			assertTrue(resultado.peticiones() > 0, "Sin peticiones para " + operacion);
+			if (!operacion.dependeDeUpstream()) {
+				assertEquals(0, resultado.getErrores(), "Errores en " + operacion);
+			}
+		}
+	}
+
+	@Test
+	void recompensasConUpstreamLento() throws Exception {
+		poblar();
+
+		reclamarConLecturas(LATENCIA_UPSTREAM, CALENTAMIENTO);
+		Escenario rapido = reclamarConLecturas(LATENCIA_UPSTREAM, DURACION_LENTO);
+		Escenario lento = reclamarConLecturas(LATENCIA_LENTA, DURACION_LENTO);
+
+		System.out.printf("%nRecompensas con upstream lento: %d reclamaciones concurrentes, %d hilos de Tomcat%n",
+				CONCURRENTES_LENTO, HILOS_TOMCAT);
+		System.out.printf("%-28s %10s %10s %9s %9s %9s %8s %12s%n", "escenario", "peticiones", "peticion/s", "p50 ms",
+				"p99 ms", "p999 ms", "errores", "max upstream");
+		rapido.informar("RECOMPENSA " + LATENCIA_UPSTREAM.toMillis() + "ms", rapido.recompensas);
+		rapido.informar("LEER_PERSONAJE " + LATENCIA_UPSTREAM.toMillis() + "ms", rapido.lecturas);
+		lento.informar("RECOMPENSA " + LATENCIA_LENTA.toMillis() + "ms", lento.recompensas);
+		lento.informar("LEER_PERSONAJE " + LATENCIA_LENTA.toMillis() + "ms", lento.lecturas);
+
+		assertEquals(0, lento.recompensas.getErrores(), "Errores en las recompensas");
+		assertEquals(0, lento.lecturas.getErrores(), "Errores en las lecturas");
+
+		// Si cada reclamación ocupara un hilo de Tomcat, el upstream nunca vería más
+		// peticiones a la vez que hilos tiene Tomcat
+		assertTrue(lento.maxUpstream > HILOS_TOMCAT,
+				"Máximo de reclamaciones en curso en el upstream: " + lento.maxUpstream);
+
+		// El throughput se mantiene hasta el límite de la ley de Little (concurrencia / latencia)
+		double limiteLatencia = CONCURRENTES_LENTO / (LATENCIA_LENTA.toMillis() / 1000.0);
+		double esperado = Math.min(rapido.throughput(), limiteLatencia);
+		assertTrue(lento.throughput() >= 0.7 * esperado,
+				"Throughput de recompensas " + lento.throughput() + "/s, esperado " + esperado + "/s");
+
+		// Las lecturas no esperan a que quede libre un hilo ocupado por una reclamación
+		double p99Lecturas = lento.lecturas.percentil(0.99);
+		assertTrue(p99Lecturas < rapido.lecturas.percentil(0.99) + LATENCIA_LENTA.toMillis() / 2.0,
+				"p99 de lecturas " + p99Lecturas + " ms");
+	}
+
+	/**
+	 * Lanza {@code CONCURRENTES_LENTO} reclamaciones a la vez en bucle cerrado, con los
+	 * servicios de recompensas respondiendo con la latencia indicada, y cuatro hilos de
+	 * lecturas en paralelo.
+	 */
+	private Escenario reclamarConLecturas(Duration latencia, Duration duracion) throws Exception {
+		MISIONES.setLatencia(latencia);
+		MISIONES.setTasaError(0);
+		ENEMIGOS.setLatencia(latencia);
+		ENEMIGOS.setTasaError(0);
+		MISIONES.reiniciarMaxEnCurso();
+		ENEMIGOS.reiniciarMaxEnCurso();
+
+		Escenario escenario = new Escenario(duracion);
+		String base = "http://localhost:" + puerto + "/";
+		long fin = System.nanoTime() + duracion.toNanos();
+		ExecutorService executor = Executors.newFixedThreadPool(CONCURRENTES_LENTO + 4);
+		List<Future<?>> tareas = new ArrayList<>();
+
+		try {
+			for (int i = 0; i < CONCURRENTES_LENTO; i++) {
+				String origen = i % 2 == 0 ? "mision/" : "enemigo/";
+				tareas.add(executor.submit(() -> {
+					while (System.nanoTime() < fin) {
+						// Cada reclamación usa un ID nuevo para que la caché de recompensas no oculte la latencia
+						String url = base + "personaje/" + origen + SIGUIENTE_RECOMPENSA.getAndIncrement() + "/"
+								+ ids[ThreadLocalRandom.current().nextInt(ids.length)];
+						medir(HttpRequest.newBuilder(URI.create(url)).PUT(HttpRequest.BodyPublishers.noBody()),
+								escenario.recompensas);
+					}
+					return null;
+				}));
+			}
+			for (int i = 0; i < 4; i++) {
+				tareas.add(executor.submit(() -> {
+					while (System.nanoTime() < fin) {
+						int id = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+						medir(HttpRequest.newBuilder(URI.create(base + "personaje/" + id)).GET(), escenario.lecturas);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> tarea : tareas) {
+				tarea.get();
+			}
+		} finally {
+			executor.shutdownNow();
+			MISIONES.setLatencia(LATENCIA_UPSTREAM);
+			MISIONES.setTasaError(TASA_ERROR_UPSTREAM);
+			ENEMIGOS.setLatencia(LATENCIA_UPSTREAM);
+			ENEMIGOS.setTasaError(TASA_ERROR_UPSTREAM);
+		}
+
+		escenario.maxUpstream = MISIONES.reiniciarMaxEnCurso() + ENEMIGOS.reiniciarMaxEnCurso();
+		return escenario;
+	}
+
+	private void medir(HttpRequest.Builder peticion, ResultadoCarga resultado) throws InterruptedException {
+		long inicio = System.nanoTime();
+		boolean error;
+		try {
+			error = cliente.send(peticion.timeout(Duration.ofSeconds(10)).build(), HttpResponse.BodyHandlers.discarding())
+					.statusCode() >= 400;
+		} catch (IOException e) {
+			error = true;
+		}
+		resultado.registrar(System.nanoTime() - inicio, error);
+	}
+
+	private void poblar() {
+		jdbcTemplate.update("INSERT INTO personajes (nombre, fuerza_original, fuerza_actual, defensa_original, "
+				+ "defensa_actual, nivel, vida_original, vida_total, vida_actual, experiencia, activo) "
+				+ "SELECT CONCAT('Carga ', X), 10, 10, 10, 10, 1, 1000000, 1000000, 1000000, 0, TRUE "
+				+ "FROM SYSTEM_RANGE(1, ?)", PERSONAJES);
+		ids = jdbcTemplate.queryForList("SELECT id_personaje FROM personajes", Integer.class).stream()
+				.mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * Lanza la mezcla de carga en bucle cerrado desde {@code HILOS} hilos durante el tiempo indicado.
+	 */
+	private Map<Operacion, ResultadoCarga> ejecutar(Duration duracion) throws Exception {
+		Map<Operacion, ResultadoCarga> resultados = new EnumMap<>(Operacion.class);
+		for (Operacion operacion : Operacion.values()) {
+			resultados.put(operacion, new ResultadoCarga());
+		}
+
+		String base = "http://localhost:" + puerto + "/";
+		long fin = System.nanoTime() + duracion.toNanos();
+		ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+		List<Future<?>> tareas = new ArrayList<>();
+
+		try {
+			for (int i = 0; i < HILOS; i++) {
+				tareas.add(executor.submit(() -> {
+					while (System.nanoTime() < fin) {
+						Operacion operacion = elegirOperacion();
+						int id = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+						HttpRequest peticion = operacion.peticion.apply(base, id).timeout(Duration.ofSeconds(10)).build();
+
+						long inicio = System.nanoTime();
+						boolean error;
+						try {
+							error = cliente.send(peticion, HttpResponse.BodyHandlers.discarding()).statusCode() >= 400;
+						} catch (IOException e) {
+							error = true;
+						}
+						resultados.get(operacion).registrar(System.nanoTime() - inicio, error);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> tarea : tareas) {
+				tarea.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		resultados.values().forEach(r -> r.setSegundos(duracion.toNanos() / 1e9));
+		return resultados;
+	}
+
+	private static Operacion elegirOperacion() {
+		int tirada = ThreadLocalRandom.current().nextInt(1000);
+		for (Operacion operacion : Operacion.values()) {
+			tirada -= operacion.peso;
+			if (tirada < 0) {
+				return operacion;
+			}
+		}
+		return Operacion.LEER_PERSONAJE;
+	}
+
+	private static void informar(Map<Operacion, ResultadoCarga> resultados) throws IOException {
+		InformeCarga informe = new InformeCarga("endpoint,peticiones,peticiones_s,p50_ms,p99_ms,p999_ms,errores",
+				"%-20s %10s %10s %9s %9s %9s %8s", "endpoint", "peticiones", "peticion/s", "p50 ms", "p99 ms",
+				"p999 ms", "errores");
+
+		resultados.forEach((operacion, r) -> informe.fila("%s,%d,%.1f,%.2f,%.2f,%.2f,%d", operacion, r.peticiones(),
+				r.throughput(), r.percentil(0.50), r.percentil(0.99), r.percentil(0.999), r.getErrores()));
+
+		informe.escribir(String.format(Locale.ROOT, "Prueba de carga: %d hilos, %ds, %d personajes, upstream %dms / "
+				+ "%.1f%% errores", HILOS, DURACION.toSeconds(), PERSONAJES, LATENCIA_UPSTREAM.toMillis(),
+				TASA_ERROR_UPSTREAM * 100), "loadtest-report.csv");
+	}
+
+	/**
+	 * Reclamaciones y lecturas de una ejecución de {@code reclamarConLecturas}.
+	 */
+	private static final class Escenario {
+
+		private final ResultadoCarga recompensas = new ResultadoCarga();
+		private final ResultadoCarga lecturas = new ResultadoCarga();
+		private final double segundos;
+		private int maxUpstream;
+
+		Escenario(Duration duracion) {
+			this.segundos = duracion.toNanos() / 1e9;
+		}
+
+		double throughput() {
+			return recompensas.peticiones() / segundos;
+		}
+
+		void informar(String nombre, ResultadoCarga r) {
+			System.out.printf(Locale.ROOT, "%-28s %10d %10.1f %9.2f %9.2f %9.2f %8d %12d%n", nombre, r.peticiones(),
+					r.peticiones() / segundos, r.percentil(0.50), r.percentil(0.99), r.percentil(0.999),
+					r.getErrores(), maxUpstream);
+		}
+	}
+}
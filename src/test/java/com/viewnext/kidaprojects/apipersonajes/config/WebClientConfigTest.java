@@ -0,0 +1,99 @@
+package com.viewnext.kidaprojects.apipersonajes.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.viewnext.kidaprojects.apipersonajes.support.StubRecompensaServer;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+
+/**
+ * Pruebas de los WebClient de {@code WebClientConfig} contra un servidor local que
+ * inyecta latencia y errores.
+ */
+class WebClientConfigTest {
+
+	private StubRecompensaServer stub;
+	private CircuitBreakerRegistry circuitBreakers;
+	private WebClient webClient;
+
+	@BeforeEach
+	void arrancarStub() throws Exception {
+		stub = new StubRecompensaServer();
+		circuitBreakers = CircuitBreakerRegistry.ofDefaults();
+
+		UpstreamProperties.Upstream upstream = new UpstreamProperties.Upstream(stub.getBaseUrl());
+		upstream.setResponseTimeout(Duration.ofMillis(200));
+		upstream.setBackoff(Duration.ofMillis(10));
+		upstream.setReintentos(2);
+		upstream.setVentanaLlamadas(4);
+
+		webClient = WebClientConfig.crearWebClient("enemigo", upstream, WebClient.builder(), circuitBreakers);
+	}
+
+	@AfterEach
+	void pararStub() {
+		stub.close();
+	}
+
+	@Test
+	void reintentaErroresTransitorios() {
+		stub.fallarSiguientes(2);
+
+		assertEquals(70, recompensa(7));
+		assertEquals(3, stub.getPeticiones());
+	}
+
+	@Test
+	void noReintentaRecursosInexistentes() {
+		assertThrows(WebClientResponseException.NotFound.class, () -> webClient.get().uri("enemigo/desconocido")
+				.retrieve().bodyToMono(Integer.class).block());
+		assertEquals(1, stub.getPeticiones());
+	}
+
+	@Test
+	void cortaLasRespuestasLentas() {
+		stub.setLatencia(Duration.ofMillis(500));
+
+		long inicio = System.nanoTime();
+		assertThrows(WebClientRequestException.class, () -> recompensa(1));
+
+		// Tres intentos de 200 ms más las esperas entre ellos, muy por debajo de 3 x 500 ms
+		assertTrue(Duration.ofNanos(System.nanoTime() - inicio).toMillis() < 1200);
+		assertEquals(3, stub.getPeticiones());
+	}
+
+	@Test
+	void abreElCircuitoYFallaRapido() {
+		stub.setTasaError(1.0);
+
+		// Tres intentos de la primera llamada y uno de la segunda llenan la ventana de 4 llamadas
+		assertThrows(WebClientResponseException.ServiceUnavailable.class, () -> recompensa(1));
+		assertThrows(CallNotPermittedException.class, () -> recompensa(1));
+
+		assertEquals(CircuitBreaker.State.OPEN, circuitBreakers.circuitBreaker("enemigo").getState());
+		int peticiones = stub.getPeticiones();
+
+		assertThrows(CallNotPermittedException.class, () -> recompensa(1));
+		assertEquals(peticiones, stub.getPeticiones());
+	}
+
+	private Integer recompensa(int idEnemigo) {
+		return webClient.get().uri("enemigo/recompensa/{idEnemigo}", idEnemigo)
+				.retrieve()
+				.bodyToMono(Integer.class)
+				.block();
+	}
+}
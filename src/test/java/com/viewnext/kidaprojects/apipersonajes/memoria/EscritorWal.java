@@ -0,0 +1,63 @@
+package com.viewnext.kidaprojects.apipersonajes.memoria;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.util.unit.DataSize;
+
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Proceso que escribe sin parar en un {@code PersonajeRepositoryMemoria} con registro de
+ * escrituras hasta que lo matan. Cada escritura confirmada se anuncia por la salida
+ * estándar como {@code ack idPersonaje version}; las pruebas lo lanzan en otra JVM.
+ */
+final class EscritorWal {
+
+	static final int PERSONAJES = 16;
+	static final int VIDA = 1_000_000;
+	private static final int HILOS = 4;
+
+	private EscritorWal() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		PersonajeRepositoryMemoria repositorio = new PersonajeRepositoryMemoria("", args[0],
+				DataSize.ofKilobytes(64), new SimpleMeterRegistry());
+
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < PERSONAJES; i++) {
+			int id = repositorio.save(new Personaje("Superviviente" + i, 10, 10, VIDA)).getIdPersonaje();
+			ids.add(id);
+			anunciar(id, 0);
+		}
+
+		// Cada hilo golpea sus propios personajes, así la versión leída es la de su escritura
+		for (int h = 0; h < HILOS; h++) {
+			List<Integer> propios = new ArrayList<>();
+			for (int i = h; i < ids.size(); i += HILOS) {
+				propios.add(ids.get(i));
+			}
+			new Thread(() -> {
+				while (true) {
+					int id = propios.get(ThreadLocalRandom.current().nextInt(propios.size()));
+					repositorio.aplicarDamage(id, 1);
+					anunciar(id, repositorio.findVersionPersonaje(id).orElseThrow().version());
+				}
+			}).start();
+		}
+
+		while (true) {
+			Thread.sleep(50);
+			repositorio.checkpoint();
+		}
+	}
+
+	private static synchronized void anunciar(int idPersonaje, long version) {
+		System.out.println("ack " + idPersonaje + " " + version);
+		System.out.flush();
+	}
+}
@@ -0,0 +1,142 @@
+package com.viewnext.kidaprojects.apipersonajes.memoria;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.viewnext.kidaprojects.apipersonajes.binario.PersonajeBinario;
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.repository.AlmacenPersonajes;
+import com.viewnext.kidaprojects.apipersonajes.service.PersonajeService;
+
+/**
+ * Pruebas del servicio sobre el motor en memoria (perfil {@code memoria}), sin base de datos.
+ */
+@SpringBootTest
+@ActiveProfiles("memoria")
+class PersonajeRepositoryMemoriaTest {
+
+	private static final int ID_SNAPSHOT = 5000;
+
+	@Autowired
+	private PersonajeService service;
+
+	@Autowired
+	private AlmacenPersonajes personajeRepository;
+
+	@Autowired
+	private ApplicationContext contexto;
+
+	@DynamicPropertySource
+	static void snapshot(DynamicPropertyRegistry propiedades) {
+		propiedades.add("personaje.memoria.snapshot", PersonajeRepositoryMemoriaTest::escribirSnapshot);
+	}
+
+	@Test
+	void arrancaSinBaseDeDatosDesdeElSnapshot() {
+		assertEquals(0, contexto.getBeanNamesForType(DataSource.class).length);
+		assertTrue(personajeRepository instanceof PersonajeRepositoryMemoria);
+
+		Personaje cargado = service.showPersonajeById(ID_SNAPSHOT);
+		assertEquals("Guardado", cargado.getNombre());
+		assertTrue(cargado.getVersion() >= 7);
+
+		int nuevo = service.createPersonaje(new Personaje("Nuevo", 10, 10, 100)).getIdPersonaje();
+		assertTrue(nuevo > ID_SNAPSHOT);
+	}
+
+	@Test
+	void aplicaLasOperacionesDelServicio() {
+		int id = service.createPersonaje(new Personaje("Memoria", 10, 20, 100)).getIdPersonaje();
+
+		service.updateExperiencia(id, 2500);
+		service.subirNivel(id);
+		Personaje muerto = service.updateVida(id, 100);
+
+		assertEquals(4, muerto.getNivel());
+		assertEquals(500, muerto.getExperiencia());
+		assertEquals(40, muerto.getFuerzaActual());
+		assertFalse(muerto.isActivo());
+		assertTrue(service.showActivos(List.of("nombre")).stream().noneMatch(p -> p.get("idPersonaje").equals(id)));
+
+		service.reiniciarPersonajes(1000);
+
+		Personaje reiniciado = service.showPersonajeById(id);
+		assertTrue(reiniciado.isActivo());
+		assertEquals(1, reiniciado.getNivel());
+		assertEquals(reiniciado.getVidaOriginal(), reiniciado.getVidaActual());
+		Map<String, Object> proyectado = service.showActivos(List.of("nivel"), id - 1, 1).get(0);
+		assertEquals(Map.of("idPersonaje", id, "nivel", 1), proyectado);
+	}
+
+	@Test
+	void escriturasConcurrentesYBloqueoOptimista() throws Exception {
+		int id = service.createPersonaje(new Personaje("Disputado", 10, 10, 100_000)).getIdPersonaje();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<?>> tareas = new ArrayList<>();
+
+		try {
+			for (int i = 0; i < 2000; i++) {
+				tareas.add(executor.submit(() -> service.updateVida(id, 1)));
+				if (i % 10 == 0) {
+					tareas.add(executor.submit(() -> service.subirNivel(id)));
+				}
+			}
+			for (Future<?> tarea : tareas) {
+				tarea.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		Personaje personaje = service.showPersonajeById(id);
+		assertEquals(98_000, personaje.getVidaActual());
+		assertEquals(201, personaje.getNivel());
+
+		Personaje obsoleto = new Personaje(personaje);
+		service.updateVida(id, 1);
+		assertThrows(ObjectOptimisticLockingFailureException.class, () -> personajeRepository.save(obsoleto));
+	}
+
+	private static String escribirSnapshot() {
+		try {
+			Path fichero = Files.createTempFile("personajes", ".pjb");
+			Personaje guardado = new Personaje("Guardado", 10, 10, 100);
+			guardado.setIdPersonaje(ID_SNAPSHOT);
+			guardado.setVersion(7);
+
+			try (OutputStream salida = Files.newOutputStream(fichero);
+					PersonajeBinario.Escritor escritor = PersonajeBinario.escritor(salida)) {
+				escritor.escribir(guardado);
+			}
+			fichero.toFile().deleteOnExit();
+			return fichero.toString();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
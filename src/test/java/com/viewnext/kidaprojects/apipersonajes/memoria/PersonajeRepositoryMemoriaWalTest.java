@@ -0,0 +1,152 @@
+package com.viewnext.kidaprojects.apipersonajes.memoria;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Pruebas del registro de escrituras y la recuperación de {@code PersonajeRepositoryMemoria}.
+ */
+class PersonajeRepositoryMemoriaWalTest {
+
+	private static final int ESCRITURAS_ANTES_DE_MATAR = 3000;
+
+	@TempDir
+	Path directorio;
+
+	@Test
+	void recuperaLasEscriturasDelRegistroYDelSnapshot() {
+		PersonajeRepositoryMemoria repositorio = abrir(new SimpleMeterRegistry());
+		int antes = repositorio.save(new Personaje("Guardado", 10, 10, 100)).getIdPersonaje();
+		int borrado = repositorio.save(new Personaje("Borrado", 10, 10, 100)).getIdPersonaje();
+		repositorio.aplicarDamage(antes, 30);
+		repositorio.checkpoint();
+
+		int despues = repositorio.save(new Personaje("Nuevo", 10, 10, 100)).getIdPersonaje();
+		repositorio.aplicarExperiencia(antes, 1500);
+		repositorio.deleteById(borrado);
+		repositorio.cerrar();
+
+		MeterRegistry registry = new SimpleMeterRegistry();
+		PersonajeRepositoryMemoria recuperado = abrir(registry);
+
+		Personaje personaje = recuperado.findById(antes).orElseThrow();
+		assertEquals(70, personaje.getVidaActual());
+		assertEquals(2, personaje.getNivel());
+		assertEquals(2, personaje.getVersion());
+		assertEquals("Nuevo", recuperado.findById(despues).orElseThrow().getNombre());
+		assertFalse(recuperado.existsById(borrado));
+		assertEquals(despues + 1, recuperado.save(new Personaje("Siguiente", 10, 10, 100)).getIdPersonaje());
+		assertEquals(1, registry.timer("personaje.wal.recuperacion").count());
+		recuperado.cerrar();
+	}
+
+	@Test
+	void ignoraUnRegistroAMedioEscribir() throws Exception {
+		PersonajeRepositoryMemoria repositorio = abrir(new SimpleMeterRegistry());
+		int id = repositorio.save(new Personaje("Entero", 10, 10, 100)).getIdPersonaje();
+		repositorio.aplicarDamage(id, 10);
+		repositorio.cerrar();
+
+		// Un registro cortado: longitud y CRC de un contenido que no llegó a escribirse
+		Path segmento = ultimoSegmento();
+		try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+			int fin = finDeDatos(canal);
+			canal.write(ByteBuffer.allocate(9).putInt(60).putInt(12345).put((byte) 1).flip(), fin);
+		}
+
+		PersonajeRepositoryMemoria recuperado = abrir(new SimpleMeterRegistry());
+		assertEquals(90, recuperado.findById(id).orElseThrow().getVidaActual());
+		recuperado.aplicarDamage(id, 10);
+		recuperado.cerrar();
+
+		assertEquals(80, abrir(new SimpleMeterRegistry()).findById(id).orElseThrow().getVidaActual());
+	}
+
+	@Test
+	void noPierdeEscriturasConfirmadasAlMatarElProceso() throws Exception {
+		Process proceso = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+				"-cp", System.getProperty("java.class.path"), EscritorWal.class.getName(), directorio.toString())
+				.redirectError(ProcessBuilder.Redirect.INHERIT)
+				.start();
+
+		Map<Integer, Long> confirmadas = new ConcurrentHashMap<>();
+		int leidas = 0;
+		try (BufferedReader salida = new BufferedReader(
+				new InputStreamReader(proceso.getInputStream(), StandardCharsets.UTF_8))) {
+			for (String linea = salida.readLine(); linea != null; linea = salida.readLine()) {
+				// El resto de la salida es el log del proceso
+				if (!linea.startsWith("ack ")) {
+					continue;
+				}
+				String[] partes = linea.split(" ");
+				confirmadas.merge(Integer.parseInt(partes[1]), Long.parseLong(partes[2]), Math::max);
+
+				// SIGKILL a mitad de las escrituras, sin cerrar la salida: las líneas que queden ya eran confirmaciones
+				if (++leidas == ESCRITURAS_ANTES_DE_MATAR) {
+					proceso.toHandle().destroyForcibly();
+				}
+			}
+		} finally {
+			proceso.destroyForcibly();
+			assertTrue(proceso.waitFor(30, TimeUnit.SECONDS));
+		}
+		assertTrue(leidas >= ESCRITURAS_ANTES_DE_MATAR, "El proceso terminó antes de tiempo");
+
+		PersonajeRepositoryMemoria recuperado = abrir(new SimpleMeterRegistry());
+		assertEquals(EscritorWal.PERSONAJES, recuperado.count());
+
+		for (Map.Entry<Integer, Long> confirmada : confirmadas.entrySet()) {
+			Personaje personaje = recuperado.findById(confirmada.getKey()).orElseThrow();
+
+			assertTrue(personaje.getVersion() >= confirmada.getValue(),
+					"Se ha perdido una escritura confirmada de " + confirmada.getKey());
+			// Cada golpe resta 1 de vida y suma 1 a la versión: ninguna fila queda a medias
+			assertEquals(EscritorWal.VIDA - personaje.getVersion(), personaje.getVidaActual());
+		}
+		recuperado.cerrar();
+	}
+
+	private PersonajeRepositoryMemoria abrir(MeterRegistry registry) {
+		return new PersonajeRepositoryMemoria("", directorio.toString(), DataSize.ofKilobytes(64), registry);
+	}
+
+	private Path ultimoSegmento() throws Exception {
+		try (Stream<Path> ficheros = Files.list(directorio)) {
+			List<Path> segmentos = ficheros.filter(f -> f.getFileName().toString().startsWith("wal-")).sorted()
+					.toList();
+			return segmentos.get(segmentos.size() - 1);
+		}
+	}
+
+	private static int finDeDatos(FileChannel canal) throws Exception {
+		ByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+		for (int longitud = buffer.getInt(); longitud != 0; longitud = buffer.getInt()) {
+			buffer.position(buffer.position() + 4 + longitud);
+		}
+		return buffer.position() - 4;
+	}
+}
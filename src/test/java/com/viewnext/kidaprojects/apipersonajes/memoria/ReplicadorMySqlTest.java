@@ -0,0 +1,125 @@
+package com.viewnext.kidaprojects.apipersonajes.memoria;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.model.ResultadoReconciliacion;
+import com.viewnext.kidaprojects.apipersonajes.service.PersonajeService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Pruebas de la replicación del motor en memoria a una base de datos H2 en modo MySQL.
+ */
+@SpringBootTest(properties = {
+		"personaje.replicacion.datasource.jdbc-url=jdbc:h2:mem:replica;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"personaje.replicacion.datasource.username=sa",
+		"personaje.replicacion.datasource.password=",
+		"personaje.replicacion.intervalo-ms=3600000",
+		"personaje.replicacion.reconciliacion.espera-inicial=PT1H" })
+@ActiveProfiles({ "memoria", "replicacion" })
+class ReplicadorMySqlTest {
+
+	@Autowired
+	private PersonajeService service;
+
+	@Autowired
+	private ReplicadorMySql replicador;
+
+	@Autowired
+	private DataSource replicacionDataSource;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private JdbcTemplate mysql;
+
+	@BeforeEach
+	void esquema() {
+		Flyway.configure().dataSource(replicacionDataSource).load().migrate();
+		mysql = new JdbcTemplate(replicacionDataSource);
+		replicador.replicar();
+	}
+
+	@Test
+	void replicaFusionandoLosCambiosDelMismoPersonaje() {
+		double fusionadosAntes = meterRegistry.counter("personaje.replicacion.fusionados").count();
+		int id = service.createPersonaje(new Personaje("Replicado", 10, 10, 100)).getIdPersonaje();
+		service.updateVida(id, 10);
+		service.updateVida(id, 20);
+		service.updateExperiencia(id, 1200);
+		service.setActividadPersonaje(id, false);
+
+		assertEquals(1, replicador.pendientes());
+		assertEquals(1, replicador.replicar());
+
+		Personaje local = service.showPersonajeById(id);
+		Map<String, Object> remoto = fila(id);
+		assertEquals(70, remoto.get("vida_actual"));
+		assertEquals(2, remoto.get("nivel"));
+		assertEquals(false, remoto.get("activo"));
+		assertEquals(local.getVersion(), remoto.get("version"));
+		assertEquals(4, meterRegistry.counter("personaje.replicacion.fusionados").count() - fusionadosAntes);
+		assertEquals(0, replicador.pendientes());
+	}
+
+	@Test
+	void reintentaLosLotesFallidosSinPerderCambios() {
+		int id = service.createPersonaje(new Personaje("Reintentado", 10, 10, 100)).getIdPersonaje();
+		replicador.replicar();
+		double reintentosAntes = meterRegistry.counter("personaje.replicacion.reintentos").count();
+
+		mysql.execute("ALTER TABLE personajes RENAME TO personajes_fuera");
+		try {
+			service.updateVida(id, 30);
+			assertEquals(0, replicador.replicar());
+			assertEquals(1, replicador.pendientes());
+		} finally {
+			mysql.execute("ALTER TABLE personajes_fuera RENAME TO personajes");
+		}
+		service.updateVida(id, 5);
+
+		assertEquals(1, replicador.replicar());
+		assertEquals(65, fila(id).get("vida_actual"));
+		assertEquals(1, meterRegistry.counter("personaje.replicacion.reintentos").count() - reintentosAntes);
+	}
+
+	@Test
+	void laReconciliacionEncuentraYReparaLasDiferencias() {
+		int borrado = service.createPersonaje(new Personaje("BorradoEnMySql", 10, 10, 100)).getIdPersonaje();
+		int cambiado = service.createPersonaje(new Personaje("CambiadoEnMySql", 10, 10, 100)).getIdPersonaje();
+		replicador.replicar();
+		assertEquals(0, replicador.reconciliar().divergentes());
+
+		mysql.update("DELETE FROM personajes WHERE id_personaje = ?", borrado);
+		mysql.update("UPDATE personajes SET vida_actual = 1, version = version + 5 WHERE id_personaje = ?", cambiado);
+		mysql.update("INSERT INTO personajes (id_personaje, nombre, fuerza_original, fuerza_actual, defensa_original, "
+				+ "defensa_actual, nivel, vida_original, vida_total, vida_actual, experiencia, activo, version) "
+				+ "VALUES (999999, 'Fantasma', 1, 1, 1, 1, 1, 1, 1, 1, 0, true, 0)");
+
+		ResultadoReconciliacion resultado = replicador.reconciliar();
+		assertEquals(new ResultadoReconciliacion(resultado.comparados(), 1, 1, 1), resultado);
+
+		replicador.replicar();
+		assertEquals(0, replicador.reconciliar().divergentes());
+		assertEquals(100, fila(cambiado).get("vida_actual"));
+		assertTrue(mysql.queryForList("SELECT 1 FROM personajes WHERE id_personaje = 999999").isEmpty());
+	}
+
+	private Map<String, Object> fila(int idPersonaje) {
+		return mysql.queryForMap("SELECT * FROM personajes WHERE id_personaje = ?", idPersonaje);
+	}
+}
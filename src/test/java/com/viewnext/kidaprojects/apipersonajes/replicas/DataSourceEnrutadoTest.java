@@ -0,0 +1,189 @@
+package com.viewnext.kidaprojects.apipersonajes.replicas;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.service.PersonajeService;
+import com.viewnext.kidaprojects.apipersonajes.support.StubRecompensaServer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Pruebas del reparto de lecturas y escrituras entre una base de datos principal y una
+ * réplica, ambas H2 en modo MySQL. La réplica se sirve con dos pools para comprobar el
+ * reparto por turnos, y se copia a mano para simular la replicación.
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=" + DataSourceEnrutadoTest.PRIMARIA,
+		"personaje.replicas.datasources[0].url=" + DataSourceEnrutadoTest.REPLICA,
+		"personaje.replicas.datasources[0].username=sa",
+		"personaje.replicas.datasources[0].password=",
+		"personaje.replicas.datasources[1].url=" + DataSourceEnrutadoTest.REPLICA,
+		"personaje.replicas.datasources[1].username=sa",
+		"personaje.replicas.datasources[1].password=",
+		"personaje.replicas.lectura-propia.ventana=1h" })
+@ActiveProfiles({ "test", "replicas" })
+class DataSourceEnrutadoTest {
+
+	static final String PRIMARIA = "jdbc:h2:mem:enrutado-primaria;MODE=MySQL;DB_CLOSE_DELAY=-1";
+	static final String REPLICA = "jdbc:h2:mem:enrutado-replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+	private static final StubRecompensaServer UPSTREAM = StubRecompensaServer.arrancar();
+
+	@Autowired
+	private PersonajeService service;
+
+	@Autowired
+	private TestRestTemplate rest;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private final JdbcTemplate primaria = new JdbcTemplate(new DriverManagerDataSource(PRIMARIA, "sa", ""));
+	private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA, "sa", ""));
+
+	@DynamicPropertySource
+	static void upstreams(DynamicPropertyRegistry propiedades) {
+		propiedades.add("personaje.upstream.mision.base-url", UPSTREAM::getBaseUrl);
+		propiedades.add("personaje.upstream.enemigo.base-url", UPSTREAM::getBaseUrl);
+	}
+
+	@AfterAll
+	static void pararStub() {
+		UPSTREAM.close();
+	}
+
+	@BeforeEach
+	void esquemaDeLaReplica() {
+		Flyway.configure().dataSource(REPLICA, "sa", "").load().migrate();
+	}
+
+	@Test
+	void lasLecturasVanALasReplicasPorTurnos() {
+		double escriturasAntes = ruta("primaria", "escritura");
+		int id = service.createPersonaje(new Personaje("Replicado", 10, 10, 100)).getIdPersonaje();
+
+		assertEquals(1, ruta("primaria", "escritura") - escriturasAntes);
+		assertThrows(EntityNotFoundException.class, () -> service.showPersonajeById(id));
+
+		replicar();
+		assertEquals("Replicado", service.showPersonajeById(id).getNombre());
+
+		double replica0 = ruta("replica-0", "lectura");
+		double replica1 = ruta("replica-1", "lectura");
+		for (int i = 0; i < 4; i++) {
+			service.showAll();
+		}
+		assertEquals(2, ruta("replica-0", "lectura") - replica0);
+		assertEquals(2, ruta("replica-1", "lectura") - replica1);
+
+		// El personaje devuelto tras una escritura se lee en la principal, no en la réplica
+		assertEquals(90, service.updateVida(id, 10).getVidaActual());
+		assertEquals(100, service.showPersonajeById(id).getVidaActual());
+	}
+
+	@Test
+	void cadaClienteLeeSusPropiasEscrituras() {
+		HttpHeaders escritor = cliente("escritor");
+		Personaje creado = rest.exchange("/personaje", HttpMethod.POST,
+				new HttpEntity<>(new Personaje("Propio", 10, 10, 100), escritor), Personaje.class).getBody();
+		String url = "/personaje/" + creado.getIdPersonaje();
+		double propiasAntes = ruta("primaria", "lectura-propia");
+
+		assertEquals(HttpStatus.OK, rest.exchange(url, HttpMethod.GET, new HttpEntity<>(escritor), String.class)
+				.getStatusCode());
+		assertEquals(1, ruta("primaria", "lectura-propia") - propiasAntes);
+		assertEquals(HttpStatus.NOT_FOUND, rest.exchange(url, HttpMethod.GET, new HttpEntity<>(cliente("otro")),
+				String.class).getStatusCode());
+		assertEquals(HttpStatus.NOT_FOUND, rest.getForEntity(url, String.class).getStatusCode());
+	}
+
+	/**
+	 * La experiencia de una recompensa se aplica en el planificador de JPA, fuera del hilo
+	 * de la petición, y aun así abre la ventana de lecturas propias del cliente.
+	 */
+	@Test
+	void unaRecompensaAbreLaVentanaDelCliente() {
+		int id = service.createPersonaje(new Personaje("Recompensado", 10, 10, 100)).getIdPersonaje();
+		replicar();
+		HttpHeaders recompensado = cliente("recompensado");
+		String url = "/personaje/" + id;
+
+		assertEquals(HttpStatus.OK, rest.exchange("/personaje/mision/7/" + id, HttpMethod.PUT,
+				new HttpEntity<>(recompensado), String.class).getStatusCode());
+		double propiasAntes = ruta("primaria", "lectura-propia");
+
+		assertEquals(70, rest.exchange(url, HttpMethod.GET, new HttpEntity<>(recompensado), Personaje.class)
+				.getBody().getExperiencia());
+		assertEquals(1, ruta("primaria", "lectura-propia") - propiasAntes);
+		assertEquals(0, rest.exchange(url, HttpMethod.GET, new HttpEntity<>(cliente("otro")), Personaje.class)
+				.getBody().getExperiencia());
+	}
+
+	/**
+	 * Otro cliente deja en la caché el personaje leído de la réplica atrasada, pero quien lo
+	 * acaba de modificar sigue leyendo su escritura de la principal.
+	 */
+	@Test
+	void laCacheNoOcultaLasEscriturasPropias() {
+		int id = service.createPersonaje(new Personaje("Cacheado", 10, 10, 100)).getIdPersonaje();
+		replicar();
+		HttpHeaders golpeador = cliente("golpeador");
+		String url = "/personaje/" + id;
+
+		assertEquals(HttpStatus.OK, rest.exchange(url + "/damage?damage=10", HttpMethod.PUT,
+				new HttpEntity<>(golpeador), String.class).getStatusCode());
+
+		assertEquals(100, rest.getForObject(url, Personaje.class).getVidaActual());
+		assertEquals(90, rest.exchange(url, HttpMethod.GET, new HttpEntity<>(golpeador), Personaje.class).getBody()
+				.getVidaActual());
+	}
+
+	/**
+	 * Copia todos los personajes de la principal a la réplica.
+	 */
+	private void replicar() {
+		replica.update("DELETE FROM personajes");
+		primaria.query("SELECT * FROM personajes", fila -> {
+			replica.update("INSERT INTO personajes (id_personaje, nombre, fuerza_original, fuerza_actual, "
+					+ "defensa_original, defensa_actual, nivel, vida_original, vida_total, vida_actual, experiencia, "
+					+ "activo, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+					fila.getInt("id_personaje"), fila.getString("nombre"), fila.getInt("fuerza_original"),
+					fila.getInt("fuerza_actual"), fila.getInt("defensa_original"), fila.getInt("defensa_actual"),
+					fila.getInt("nivel"), fila.getInt("vida_original"), fila.getInt("vida_total"),
+					fila.getInt("vida_actual"), fila.getInt("experiencia"), fila.getBoolean("activo"),
+					fila.getLong("version"));
+		});
+	}
+
+	private double ruta(String destino, String motivo) {
+		return meterRegistry.counter("personaje.datasource.ruta", "destino", destino, "motivo", motivo).count();
+	}
+
+	private static HttpHeaders cliente(String idCliente) {
+		HttpHeaders cabeceras = new HttpHeaders();
+		cabeceras.set("X-Cliente", idCliente);
+		return cabeceras;
+	}
+}
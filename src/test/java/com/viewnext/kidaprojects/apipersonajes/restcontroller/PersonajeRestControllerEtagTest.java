@@ -0,0 +1,132 @@
+package com.viewnext.kidaprojects.apipersonajes.restcontroller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Pruebas de las peticiones condicionales con ETag de {@code PersonajeRestController}.
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class PersonajeRestControllerEtagTest {
+
+	@Autowired
+	private TestRestTemplate rest;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Test
+	void personajeSinCambiosDevuelve304() {
+		int id = rest.postForObject("/personaje", new Personaje("Consultado", 10, 10, 100), Personaje.class)
+				.getIdPersonaje();
+
+		ResponseEntity<String> primera = get("/personaje/" + id, null);
+		String etag = primera.getHeaders().getETag();
+		assertEquals(HttpStatus.OK, primera.getStatusCode());
+		assertEquals(1, primera.getHeaders().get(HttpHeaders.ETAG).size());
+
+		ResponseEntity<String> condicional = get("/personaje/" + id, etag);
+		assertEquals(HttpStatus.NOT_MODIFIED, condicional.getStatusCode());
+		assertNull(condicional.getBody());
+
+		rest.put("/personaje/" + id + "/damage?damage=5", null);
+
+		ResponseEntity<String> modificada = get("/personaje/" + id, etag);
+		assertEquals(HttpStatus.OK, modificada.getStatusCode());
+		assertNotEquals(etag, modificada.getHeaders().getETag());
+		assertEquals(1, modificada.getHeaders().get(HttpHeaders.ETAG).size());
+		assertEquals(HttpStatus.NOT_MODIFIED, get("/personaje/" + id, modificada.getHeaders().getETag()).getStatusCode());
+	}
+
+	@Test
+	void listaDeActivosSinCambiosDevuelve304() {
+		rest.postForObject("/personaje", new Personaje("Listado", 10, 10, 100), Personaje.class);
+
+		String etag = get("/personaje/activo", null).getHeaders().getETag();
+		String etagProyeccion = get("/personaje/activo?fields=nombre", null).getHeaders().getETag();
+		assertNotNull(etag);
+		assertNotEquals(etag, etagProyeccion);
+		assertEquals(HttpStatus.NOT_MODIFIED, get("/personaje/activo", etag).getStatusCode());
+		assertEquals(HttpStatus.NOT_MODIFIED, get("/personaje/activo?fields=nombre", etagProyeccion).getStatusCode());
+
+		rest.postForObject("/personaje", new Personaje("Nuevo", 10, 10, 100), Personaje.class);
+
+		ResponseEntity<String> modificada = get("/personaje/activo", etag);
+		assertEquals(HttpStatus.OK, modificada.getStatusCode());
+		assertNotEquals(etag, modificada.getHeaders().getETag());
+		assertEquals(1, modificada.getHeaders().get(HttpHeaders.ETAG).size());
+	}
+
+	@Test
+	void listaSinIfNoneMatchNoCalculaLaHuella() {
+		rest.postForObject("/personaje", new Personaje("Sin huella", 10, 10, 100), Personaje.class);
+		double huellasAntes = huellas();
+
+		ResponseEntity<String> primera = get("/personaje", null);
+		String etag = primera.getHeaders().getETag();
+		assertEquals(HttpStatus.OK, primera.getStatusCode());
+		assertNotNull(etag);
+		assertEquals(huellasAntes, huellas());
+
+		// El ETag calculado sobre la lista cargada coincide con la huella de la tabla
+		assertEquals(HttpStatus.NOT_MODIFIED, get("/personaje", etag).getStatusCode());
+		assertEquals(huellasAntes + 1, huellas());
+		assertEquals(HttpStatus.NOT_MODIFIED,
+				get("/personaje/activo", get("/personaje/activo", null).getHeaders().getETag()).getStatusCode());
+	}
+
+	@Test
+	void proyeccionSinIfNoneMatchNoCalculaLaHuella() {
+		rest.postForObject("/personaje", new Personaje("Proyectado", 10, 10, 100), Personaje.class);
+		double huellasAntes = huellas();
+
+		ResponseEntity<String> primera = get("/personaje/activo?fields=nombre", null);
+		String etag = primera.getHeaders().getETag();
+		assertEquals(HttpStatus.OK, primera.getStatusCode());
+		assertNotNull(etag);
+		assertFalse(primera.getBody().contains("version"));
+		assertEquals(huellasAntes, huellas());
+
+		// Un campo desconocido se rechaza antes de recorrer la tabla
+		assertEquals(HttpStatus.BAD_REQUEST, get("/personaje/activo?fields=noExiste", etag).getStatusCode());
+		assertEquals(huellasAntes, huellas());
+
+		// El ETag calculado sobre la proyección coincide con la huella de la tabla
+		assertEquals(HttpStatus.NOT_MODIFIED, get("/personaje/activo?fields=nombre", etag).getStatusCode());
+		assertEquals(huellasAntes + 1, huellas());
+	}
+
+	private double huellas() {
+		Timer timer = registry.find("spring.data.repository.invocations").tag("method", "huella").timer();
+		return timer == null ? 0 : timer.count();
+	}
+
+	private ResponseEntity<String> get(String url, String ifNoneMatch) {
+		HttpHeaders cabeceras = new HttpHeaders();
+		if (ifNoneMatch != null) {
+			cabeceras.setIfNoneMatch(ifNoneMatch);
+		}
+		return rest.exchange(url, HttpMethod.GET, new HttpEntity<>(cabeceras), String.class);
+	}
+}
@@ -0,0 +1,153 @@
+package com.viewnext.kidaprojects.apipersonajes.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.h2.api.Trigger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.repository.AlmacenPersonajes;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Pruebas del modo write-behind de la aplicación de daño.
+ */
+@SpringBootTest(properties = { "personaje.damage.write-behind.enabled=true",
+		"personaje.damage.write-behind.intervalo-ms=3600000", "personaje.damage.write-behind.umbral=500" })
+@ActiveProfiles("test")
+class DamageWriteBehindBufferTest {
+
+	@Autowired
+	private PersonajeService service;
+
+	@Autowired
+	private AlmacenPersonajes personajeRepository;
+
+	@Autowired
+	private DamageWriteBehindBuffer damageBuffer;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void leeSusPropiasEscriturasAntesDelVolcado() {
+		int id = service.createPersonaje(new Personaje("Objetivo", 10, 10, 1000)).getIdPersonaje();
+
+		service.updateVida(id, 30);
+		Personaje respuesta = service.updateVida(id, 20);
+
+		assertEquals(950, respuesta.getVidaActual());
+		assertEquals(950, service.showPersonajeById(id).getVidaActual());
+		assertEquals(1000, personajeRepository.findById(id).orElseThrow().getVidaActual());
+
+		damageBuffer.drenar();
+
+		assertEquals(950, personajeRepository.findById(id).orElseThrow().getVidaActual());
+	}
+
+	@Test
+	void golpesConcurrentesSeVuelcanSinPerderse() throws Exception {
+		int id = service.createPersonaje(new Personaje("Jefe", 10, 10, 100_000)).getIdPersonaje();
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		List<Future<?>> tareas = new ArrayList<>();
+
+		try {
+			for (int i = 0; i < 2000; i++) {
+				tareas.add(executor.submit(() -> service.updateVida(id, 1)));
+			}
+			for (Future<?> tarea : tareas) {
+				tarea.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		assertEquals(98_000, service.showPersonajeById(id).getVidaActual());
+
+		damageBuffer.drenar();
+
+		assertEquals(98_000, personajeRepository.findById(id).orElseThrow().getVidaActual());
+	}
+
+	@Test
+	void unVolcadoFallidoNoFallaElGolpe() {
+		int id = service.createPersonaje(new Personaje("Aguantado", 10, 10, 1000)).getIdPersonaje();
+		// El personaje queda en la caché, así que el golpe se acumula sin leer la tabla
+		service.showPersonajeById(id);
+		double fallidosAntes = meterRegistry.counter("personaje.damage.volcado.fallidos").count();
+
+		jdbcTemplate.execute("ALTER TABLE personajes RENAME TO personajes_fuera");
+		Personaje respuesta;
+		try {
+			respuesta = service.updateVida(id, 600);
+		} finally {
+			jdbcTemplate.execute("ALTER TABLE personajes_fuera RENAME TO personajes");
+		}
+
+		assertEquals(400, respuesta.getVidaActual());
+		assertEquals(600, damageBuffer.pendiente(id));
+		assertEquals(1, meterRegistry.counter("personaje.damage.volcado.fallidos").count() - fallidosAntes);
+
+		damageBuffer.drenar();
+
+		assertEquals(400, personajeRepository.findById(id).orElseThrow().getVidaActual());
+	}
+
+	@Test
+	void elDrenadoVuelcaLosDemasSiUnoFalla() {
+		int fallido = service.createPersonaje(new Personaje("Bloqueado", 10, 10, 1000)).getIdPersonaje();
+		int otro = service.createPersonaje(new Personaje("Libre", 10, 10, 1000)).getIdPersonaje();
+		int ultimo = service.createPersonaje(new Personaje("Libre2", 10, 10, 1000)).getIdPersonaje();
+		service.updateVida(fallido, 10);
+		service.updateVida(otro, 20);
+		service.updateVida(ultimo, 30);
+
+		FallarUpdate.idPersonaje = fallido;
+		jdbcTemplate.execute("CREATE TRIGGER fallar_update BEFORE UPDATE ON personajes FOR EACH ROW CALL \""
+				+ FallarUpdate.class.getName() + "\"");
+		try {
+			damageBuffer.drenar();
+		} finally {
+			jdbcTemplate.execute("DROP TRIGGER fallar_update");
+		}
+
+		assertEquals(10, damageBuffer.pendiente(fallido));
+		assertEquals(980, personajeRepository.findById(otro).orElseThrow().getVidaActual());
+		assertEquals(970, personajeRepository.findById(ultimo).orElseThrow().getVidaActual());
+
+		damageBuffer.drenar();
+
+		assertEquals(990, personajeRepository.findById(fallido).orElseThrow().getVidaActual());
+	}
+
+	/**
+	 * Disparador de H2 que hace fallar cualquier actualización de un personaje.
+	 */
+	public static class FallarUpdate implements Trigger {
+
+		static volatile int idPersonaje;
+
+		@Override
+		public void fire(Connection conexion, Object[] antes, Object[] despues) throws SQLException {
+			if (((Number) antes[0]).intValue() == idPersonaje) {
+				throw new SQLException("Actualización rechazada para el personaje " + idPersonaje);
+			}
+		}
+	}
+}
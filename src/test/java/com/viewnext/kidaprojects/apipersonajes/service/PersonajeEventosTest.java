@@ -0,0 +1,92 @@
+package com.viewnext.kidaprojects.apipersonajes.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+
+import com.viewnext.kidaprojects.apipersonajes.model.EventoPersonaje;
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.model.TipoEventoPersonaje;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+
+/**
+ * Pruebas de {@code PersonajeEventos} sin contexto de Spring.
+ */
+class PersonajeEventosTest {
+
+	@Test
+	void suscriptorLentoPierdeLosEventosMasAntiguos() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		PersonajeEventos eventos = new PersonajeEventos(registry, 100, 2);
+		List<Long> recibidos = new CopyOnWriteArrayList<>();
+		BaseSubscriber<EventoPersonaje> lento = new BaseSubscriber<>() {
+			@Override
+			protected void hookOnSubscribe(Subscription subscription) {
+				// No pide nada hasta que se le indique
+			}
+
+			@Override
+			protected void hookOnNext(EventoPersonaje evento) {
+				recibidos.add(evento.id());
+			}
+		};
+
+		eventos.suscribir(null, Set.of()).subscribe(lento);
+		for (int i = 0; i < 10; i++) {
+			eventos.publicar(TipoEventoPersonaje.DAMAGE, personaje(1));
+		}
+		lento.requestUnbounded();
+		lento.dispose();
+
+		assertEquals(List.of(9L, 10L), recibidos);
+		assertEquals(8, registry.counter("personaje.eventos.descartados").count());
+	}
+
+	@Test
+	void reanudaDesdeElHistorialOPideResincronizar() {
+		PersonajeEventos eventos = new PersonajeEventos(new SimpleMeterRegistry(), 5, 100);
+		for (int i = 1; i <= 10; i++) {
+			eventos.publicar(TipoEventoPersonaje.DAMAGE, personaje(i % 2 + 1));
+		}
+
+		List<EventoPersonaje> reanudados = eventos.suscribir(7L, Set.of(1)).take(2).collectList()
+				.block(Duration.ofSeconds(5));
+		List<EventoPersonaje> perdidos = eventos.suscribir(2L, Set.of()).take(1).collectList()
+				.block(Duration.ofSeconds(5));
+
+		assertEquals(List.of(8L, 10L), reanudados.stream().map(EventoPersonaje::id).toList());
+		assertEquals(TipoEventoPersonaje.RESINCRONIZAR, perdidos.get(0).tipo());
+	}
+
+	@Test
+	void unIdDeAntesDeReiniciarPideResincronizar() {
+		PersonajeEventos eventos = new PersonajeEventos(new SimpleMeterRegistry(), 5, 100);
+		for (int i = 1; i <= 3; i++) {
+			eventos.publicar(TipoEventoPersonaje.DAMAGE, personaje(i));
+		}
+
+		List<EventoPersonaje> recibidos = new CopyOnWriteArrayList<>();
+		Disposable suscripcion = eventos.suscribir(500L, Set.of()).subscribe(recibidos::add);
+		eventos.publicar(TipoEventoPersonaje.DAMAGE, personaje(1));
+		suscripcion.dispose();
+
+		assertEquals(List.of(TipoEventoPersonaje.RESINCRONIZAR, TipoEventoPersonaje.DAMAGE),
+				recibidos.stream().map(EventoPersonaje::tipo).toList());
+		assertEquals(List.of(3L, 4L), recibidos.stream().map(EventoPersonaje::id).toList());
+	}
+
+	private static Personaje personaje(int id) {
+		Personaje personaje = new Personaje("Evento", 10, 10, 100);
+		personaje.setIdPersonaje(id);
+		return personaje;
+	}
+}
@@ -0,0 +1,169 @@
+package com.viewnext.kidaprojects.apipersonajes.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.viewnext.kidaprojects.apipersonajes.cache.PersonajeCache;
+import com.viewnext.kidaprojects.apipersonajes.model.Golpe;
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+
+/**
+ * Pruebas de la invalidación de {@code PersonajeCache} desde el servicio: cada método que
+ * modifica personajes invalida sus entradas después de confirmar la transacción, y una
+ * escritura que se deshace no las toca.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PersonajeServiceImplCacheTest {
+
+	@Autowired
+	private PersonajeService service;
+
+	@SpyBean
+	private PersonajeCache personajeCache;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private final AtomicInteger invalidacionesEnTransaccion = new AtomicInteger();
+
+	@BeforeEach
+	void vigilarInvalidaciones() {
+		doAnswer(invocacion -> {
+			registrarTransaccion();
+			return invocacion.callRealMethod();
+		}).when(personajeCache).invalidar(anyInt());
+		doAnswer(invocacion -> {
+			registrarTransaccion();
+			return invocacion.callRealMethod();
+		}).when(personajeCache).invalidarTodo();
+	}
+
+	@Test
+	void unAciertoNoLeeLaBaseDeDatos() {
+		int id = crearEnCache("Leido");
+
+		jdbcTemplate.update("UPDATE personajes SET nombre = 'Cambiado' WHERE id_personaje = ?", id);
+
+		assertEquals("Leido", service.showPersonajeById(id).getNombre());
+	}
+
+	@Test
+	void elDamageInvalida() {
+		comprobarInvalidacion(id -> service.updateVida(id, 10), 90);
+	}
+
+	@Test
+	void elDamageEnLoteInvalida() {
+		comprobarInvalidacion(id -> service.updateVidaLote(List.of(new Golpe(id, 5), new Golpe(id, 5))), 90);
+	}
+
+	@Test
+	void laExperienciaInvalida() {
+		int id = crearEnCache("Experiencia");
+
+		service.updateExperiencia(id, 50);
+
+		assertTrue(personajeCache.consultar(id).isEmpty());
+		assertEquals(50, service.showPersonajeById(id).getExperiencia());
+		assertEquals(0, invalidacionesEnTransaccion.get());
+	}
+
+	@Test
+	void laSubidaDeNivelInvalida() {
+		int id = crearEnCache("Nivel");
+
+		service.subirNivel(id);
+
+		assertTrue(personajeCache.consultar(id).isEmpty());
+		assertEquals(2, service.showPersonajeById(id).getNivel());
+		assertEquals(0, invalidacionesEnTransaccion.get());
+	}
+
+	@Test
+	void laActividadInvalida() {
+		int id = crearEnCache("Actividad");
+
+		service.setActividadPersonaje(id, false);
+
+		assertTrue(personajeCache.consultar(id).isEmpty());
+		assertFalse(service.showPersonajeById(id).isActivo());
+		assertEquals(0, invalidacionesEnTransaccion.get());
+	}
+
+	@Test
+	void elReinicioInvalidaTodo() {
+		int id = crearEnCache("Reinicio");
+		int otro = crearEnCache("Reinicio por bloques");
+
+		service.reiniciarPersonajes();
+		assertTrue(personajeCache.consultar(id).isEmpty());
+
+		service.showPersonajeById(otro);
+		service.reiniciarPersonajes(100);
+		assertTrue(personajeCache.consultar(otro).isEmpty());
+		assertEquals(0, invalidacionesEnTransaccion.get());
+	}
+
+	@Test
+	void unaEscrituraDeshechaNoInvalida() {
+		int id = crearEnCache("Deshecho");
+
+		jdbcTemplate.execute("ALTER TABLE personajes RENAME TO personajes_fuera");
+		try {
+			assertThrows(RuntimeException.class, () -> service.updateVida(id, 10));
+		} finally {
+			jdbcTemplate.execute("ALTER TABLE personajes_fuera RENAME TO personajes");
+		}
+
+		assertEquals(100, personajeCache.consultar(id).orElseThrow().getVidaActual());
+		assertEquals(100, service.showPersonajeById(id).getVidaActual());
+	}
+
+	/**
+	 * Aplica daño a un personaje guardado en la caché y comprueba que la siguiente lectura
+	 * devuelve la vida nueva.
+	 */
+	private void comprobarInvalidacion(Consumer<Integer> golpe, int vidaEsperada) {
+		int id = crearEnCache("Golpeado");
+
+		golpe.accept(id);
+
+		assertTrue(personajeCache.consultar(id).isEmpty());
+		assertEquals(vidaEsperada, service.showPersonajeById(id).getVidaActual());
+		assertEquals(0, invalidacionesEnTransaccion.get());
+	}
+
+	/**
+	 * Crea un personaje y lo lee para que quede en la caché.
+	 */
+	private int crearEnCache(String nombre) {
+		int id = service.createPersonaje(new Personaje(nombre, 10, 10, 100)).getIdPersonaje();
+		service.showPersonajeById(id);
+		assertTrue(personajeCache.consultar(id).isPresent());
+		return id;
+	}
+
+	private void registrarTransaccion() {
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			invalidacionesEnTransaccion.incrementAndGet();
+		}
+	}
+}
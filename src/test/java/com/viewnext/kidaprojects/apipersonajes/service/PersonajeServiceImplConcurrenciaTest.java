@@ -0,0 +1,139 @@
+package com.viewnext.kidaprojects.apipersonajes.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.repository.AlmacenPersonajes;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Pruebas de concurrencia sobre la aplicación de daño de {@code PersonajeServiceImpl}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class PersonajeServiceImplConcurrenciaTest {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PersonajeServiceImplConcurrenciaTest.class);
+
+	private static final int VIDA_JEFE = 1_000_000;
+	private static final int GOLPES = 4000;
+	private static final int HILOS = 32;
+
+	@Autowired
+	private PersonajeService service;
+
+	@Autowired
+	private AlmacenPersonajes personajeRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * Solo comprueba que no se pierde ningún golpe; la latencia frente a {@code findById} y
+	 * {@code save} se mide en {@code UpdateBenchmark} (perfil {@code jmh}).
+	 */
+	@Test
+	void updateVidaNoPierdeGolpesConcurrentes() throws Exception {
+		int idJefe = service.createPersonaje(new Personaje("Jefe", 50, 50, VIDA_JEFE)).getIdPersonaje();
+
+		lanzarGolpes(id -> service.updateVida(id, 1), idJefe);
+
+		Personaje jefe = service.showPersonajeById(idJefe);
+		assertEquals(VIDA_JEFE - GOLPES, jefe.getVidaActual());
+		assertTrue(jefe.isActivo());
+	}
+
+	@Test
+	void subirNivelConcurrenteConDamageNoPierdeEscrituras() throws Exception {
+		int id = service.createPersonaje(new Personaje("Disputado", 50, 50, VIDA_JEFE)).getIdPersonaje();
+		LongAdder subidas = new LongAdder();
+		LongAdder agotadas = new LongAdder();
+		double reintentosAntes = meterRegistry.counter("personaje.optimistic.reintentos").count();
+
+		long inicio = System.nanoTime();
+		lanzarGolpes(idPersonaje -> {
+			if (ThreadLocalRandom.current().nextBoolean()) {
+				service.updateVida(idPersonaje, 1);
+				return;
+			}
+			try {
+				service.subirNivel(idPersonaje);
+				subidas.increment();
+			} catch (OptimisticLockingFailureException e) {
+				agotadas.increment();
+			}
+		}, id);
+		double segundos = (System.nanoTime() - inicio) / 1e9;
+
+		Personaje personaje = personajeRepository.findById(id).orElseThrow();
+		long golpes = GOLPES - subidas.sum() - agotadas.sum();
+
+		// Ninguna subida de nivel confirmada se pierde ni pisa el daño aplicado a la vez
+		assertEquals(1 + subidas.sum(), personaje.getNivel());
+		assertEquals(50 + 10 * subidas.sum(), personaje.getFuerzaActual());
+		assertEquals(VIDA_JEFE - golpes, personaje.getVidaActual());
+		assertTrue(subidas.sum() > 0);
+
+		LOGGER.info("subirNivel + updateVida: {} ops/s, {} subidas, {} reintentos, {} agotadas",
+				Math.round(GOLPES / segundos), subidas.sum(),
+				Math.round(meterRegistry.counter("personaje.optimistic.reintentos").count() - reintentosAntes),
+				agotadas.sum());
+	}
+
+	@Test
+	void updateVidaDesactivaAlLlegarACero() {
+		int id = service.createPersonaje(new Personaje("Esbirro", 10, 10, 30)).getIdPersonaje();
+
+		service.updateVida(id, 20);
+		Personaje personaje = service.updateVida(id, 10);
+
+		assertEquals(0, personaje.getVidaActual());
+		assertFalse(personaje.isActivo());
+	}
+
+	/**
+	 * Lanza {@code GOLPES} golpes de 1 punto repartidos entre {@code HILOS} hilos.
+	 */
+	private void lanzarGolpes(IntConsumer golpe, int idPersonaje) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+		CountDownLatch salida = new CountDownLatch(1);
+		List<Future<?>> tareas = new ArrayList<>();
+
+		try {
+			for (int i = 0; i < GOLPES; i++) {
+				tareas.add(executor.submit(() -> {
+					salida.await();
+					golpe.accept(idPersonaje);
+					return null;
+				}));
+			}
+			salida.countDown();
+			for (Future<?> tarea : tareas) {
+				tarea.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
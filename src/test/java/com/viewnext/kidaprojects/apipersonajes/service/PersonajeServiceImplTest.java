@@ -0,0 +1,223 @@
+package com.viewnext.kidaprojects.apipersonajes.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.viewnext.kidaprojects.apipersonajes.model.EventoPersonaje;
+import com.viewnext.kidaprojects.apipersonajes.model.Golpe;
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.model.ResultadoImportacion;
+import com.viewnext.kidaprojects.apipersonajes.model.ResultadoReinicio;
+import com.viewnext.kidaprojects.apipersonajes.model.TipoEventoPersonaje;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+
+/**
+ * Pruebas de {@code PersonajeServiceImpl} contra una base de datos H2.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class PersonajeServiceImplTest {
+
+	@Autowired
+	private PersonajeService service;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void updateVidaLoteSumaGolpesRepetidosEIgnoraInexistentes() {
+		int idA = service.createPersonaje(new Personaje("A", 10, 10, 100)).getIdPersonaje();
+		int idB = service.createPersonaje(new Personaje("B", 10, 10, 50)).getIdPersonaje();
+
+		List<Personaje> actualizados = service.updateVidaLote(List.of(new Golpe(idA, 10), new Golpe(idB, 30),
+				new Golpe(idA, 15), new Golpe(idB, 20), new Golpe(Integer.MAX_VALUE, 5)));
+
+		assertEquals(2, actualizados.size());
+		assertEquals(75, service.showPersonajeById(idA).getVidaActual());
+		Personaje b = service.showPersonajeById(idB);
+		assertEquals(0, b.getVidaActual());
+		assertFalse(b.isActivo());
+	}
+
+	@Test
+	void reiniciarPersonajesPorBloques() {
+		int id = service.createPersonaje(new Personaje("Veterano", 10, 10, 100)).getIdPersonaje();
+		service.updateVida(id, 150);
+		service.updateExperiencia(id, 500);
+
+		ResultadoReinicio resultado = service.reiniciarPersonajes(2);
+
+		assertTrue(resultado.reiniciados() >= 1);
+		assertTrue(resultado.bloques() >= (id + 1) / 2);
+		Personaje personaje = service.showPersonajeById(id);
+		assertEquals(100, personaje.getVidaActual());
+		assertEquals(0, personaje.getExperiencia());
+		assertEquals(1, personaje.getNivel());
+		assertTrue(personaje.isActivo());
+	}
+
+	@Test
+	void paginacionPorCursorYRecorridoCoinciden() {
+		for (int i = 0; i < 7; i++) {
+			service.createPersonaje(new Personaje("Pagina" + i, 10, 10, 100));
+		}
+
+		List<Integer> paginados = new ArrayList<>();
+		List<Personaje> pagina = service.showAll(0, 3);
+		while (!pagina.isEmpty()) {
+			assertTrue(pagina.size() <= 3);
+			pagina.forEach(p -> paginados.add(p.getIdPersonaje()));
+			pagina = service.showAll(paginados.get(paginados.size() - 1), 3);
+		}
+
+		List<Integer> recorridos = new ArrayList<>();
+		service.recorrerPersonajes(false, p -> recorridos.add(p.getIdPersonaje()));
+
+		assertEquals(recorridos, paginados);
+		assertEquals(service.showAll().size(), recorridos.size());
+	}
+
+	@Test
+	void updateExperienciaAplicaVariasSubidasDeNivel() {
+		int id = service.createPersonaje(new Personaje("Aprendiz", 10, 20, 100)).getIdPersonaje();
+		service.updateExperiencia(id, 700);
+
+		Personaje personaje = service.updateExperiencia(id, 2600);
+
+		assertEquals(4, personaje.getNivel());
+		assertEquals(300, personaje.getExperiencia());
+		assertEquals(40, personaje.getFuerzaActual());
+		assertEquals(50, personaje.getDefensaActual());
+		assertEquals(400, personaje.getVidaTotal());
+		assertEquals(100, personaje.getVidaActual());
+	}
+
+	@Test
+	void updateExperienciaEscribeUnaVezYLeeUnaVez() {
+		int id = service.createPersonaje(new Personaje("Contado", 10, 10, 100)).getIdPersonaje();
+		Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		estadisticas.clear();
+
+		service.updateExperiencia(id, 1500);
+
+		assertEquals(2, estadisticas.getPrepareStatementCount());
+		assertThrows(EntityNotFoundException.class, () -> service.updateExperiencia(Integer.MAX_VALUE, 10));
+	}
+
+	@Test
+	void showActivosProyectaSoloLosCamposPedidos() {
+		int activo = service.createPersonaje(new Personaje("Proyectado", 10, 10, 100)).getIdPersonaje();
+		int inactivo = service.createPersonaje(new Personaje("Oculto", 10, 10, 100)).getIdPersonaje();
+		service.setActividadPersonaje(inactivo, false);
+
+		List<Map<String, Object>> pagina = service.showActivos(List.of("nivel", "nombre"), activo - 1, 1000);
+
+		assertEquals(List.of("idPersonaje", "nivel", "nombre"), List.copyOf(pagina.get(0).keySet()));
+		assertEquals(activo, pagina.get(0).get("idPersonaje"));
+		assertEquals("Proyectado", pagina.get(0).get("nombre"));
+		assertTrue(pagina.stream().noneMatch(p -> p.get("idPersonaje").equals(inactivo)));
+		assertThrows(IllegalArgumentException.class, () -> service.showActivos(List.of("nombre FROM Personaje p --")));
+	}
+
+	@Test
+	void importarPersonajesDesdeArrayJsonYNdjson() throws Exception {
+		long antes = service.showAll().size();
+		String array = "[{\"nombre\":\"Importado1\",\"vidaOriginal\":100,\"vidaActual\":100,\"nivel\":1,\"activo\":true},"
+				+ "{\"nombre\":\"Roto\",\"nivel\":\"alto\",\"vidaOriginal\":100},"
+				+ "{\"vidaOriginal\":100},"
+				+ "{\"nombre\":\"Importado2\",\"vidaOriginal\":50,\"activo\":true}]";
+		String ndjson = "{\"nombre\":\"Linea1\",\"vidaOriginal\":10}\n{\"nombre\":\"Linea2\",\"vidaOriginal\":20}\n";
+
+		ResultadoImportacion desdeArray = service.importarPersonajes(entrada(array));
+		ResultadoImportacion desdeNdjson = service.importarPersonajes(entrada(ndjson));
+
+		assertEquals(2, desdeArray.insertados());
+		assertEquals(2, desdeArray.rechazados());
+		assertTrue(desdeArray.completa());
+		assertEquals(2, desdeNdjson.insertados());
+		assertEquals(antes + 4, service.showAll().size());
+	}
+
+	@Test
+	void importarPersonajesSeDetieneConUnErrorDeSintaxis() throws Exception {
+		ResultadoImportacion resultado = service.importarPersonajes(
+				entrada("{\"nombre\":\"Valido\",\"vidaOriginal\":10}\n{\"nombre\": ]"));
+
+		assertEquals(1, resultado.insertados());
+		assertEquals(1, resultado.rechazados());
+		assertFalse(resultado.completa());
+	}
+
+	@Test
+	void publicaLosCambiosDelPersonajeSuscrito() throws Exception {
+		int id = service.createPersonaje(new Personaje("Observado", 10, 10, 100)).getIdPersonaje();
+		int otro = service.createPersonaje(new Personaje("Ignorado", 10, 10, 100)).getIdPersonaje();
+		CompletableFuture<List<EventoPersonaje>> eventos = service.eventos(null, Set.of(id)).take(3).collectList()
+				.toFuture();
+
+		service.updateVida(otro, 10);
+		service.updateVida(id, 40);
+		service.updateVida(id, 60);
+		service.subirNivel(id);
+
+		List<EventoPersonaje> recibidos = eventos.get(5, TimeUnit.SECONDS);
+		assertEquals(List.of(TipoEventoPersonaje.DAMAGE, TipoEventoPersonaje.MUERTE, TipoEventoPersonaje.NIVEL),
+				recibidos.stream().map(EventoPersonaje::tipo).toList());
+		assertEquals(2, recibidos.get(2).personaje().getNivel());
+
+		List<EventoPersonaje> reanudados = service.eventos(recibidos.get(0).id(), Set.of(id)).take(2).collectList()
+				.block();
+		assertEquals(recibidos.subList(1, 3), reanudados);
+	}
+
+	@Test
+	void laExperienciaQueSubeDeNivelPublicaTambienElNivel() throws Exception {
+		int id = service.createPersonaje(new Personaje("Recompensado", 10, 10, 100)).getIdPersonaje();
+		CompletableFuture<List<EventoPersonaje>> eventos = service.eventos(null, Set.of(id)).take(5).collectList()
+				.toFuture();
+
+		service.updateExperiencia(id, 1500);
+		service.updateExperiencia(id, 100);
+		service.updateExperiencia(id, 400);
+
+		List<EventoPersonaje> recibidos = eventos.get(5, TimeUnit.SECONDS);
+		assertEquals(List.of(TipoEventoPersonaje.EXPERIENCIA, TipoEventoPersonaje.NIVEL,
+				TipoEventoPersonaje.EXPERIENCIA, TipoEventoPersonaje.EXPERIENCIA, TipoEventoPersonaje.NIVEL),
+				recibidos.stream().map(EventoPersonaje::tipo).toList());
+		assertEquals(2, recibidos.get(1).personaje().getNivel());
+		assertEquals(600, recibidos.get(2).personaje().getExperiencia());
+		assertEquals(3, recibidos.get(4).personaje().getNivel());
+	}
+
+	@Test
+	void updateVidaLoteSinPersonajesExistentes() {
+		List<Golpe> golpes = List.of(new Golpe(Integer.MAX_VALUE, 5));
+
+		assertThrows(EntityNotFoundException.class, () -> service.updateVidaLote(golpes));
+	}
+
+	private static InputStream entrada(String json) {
+		return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,194 @@
+package com.viewnext.kidaprojects.apipersonajes.shards;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.api.Trigger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.viewnext.kidaprojects.apipersonajes.model.Golpe;
+import com.viewnext.kidaprojects.apipersonajes.model.HuellaPersonajes;
+import com.viewnext.kidaprojects.apipersonajes.model.Personaje;
+import com.viewnext.kidaprojects.apipersonajes.model.ResultadoImportacion;
+import com.viewnext.kidaprojects.apipersonajes.service.PersonajeService;
+
+/**
+ * Pruebas del servicio con los personajes repartidos entre tres bases de datos H2 en modo
+ * MySQL (perfil {@code shards}).
+ */
+@SpringBootTest(properties = {
+		"personaje.shards.datasources[0].url=" + PersonajeRepositoryShardsTest.URL + "0;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"personaje.shards.datasources[0].username=sa",
+		"personaje.shards.datasources[0].password=",
+		"personaje.shards.datasources[1].url=" + PersonajeRepositoryShardsTest.URL + "1;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"personaje.shards.datasources[1].username=sa",
+		"personaje.shards.datasources[1].password=",
+		"personaje.shards.datasources[2].url=" + PersonajeRepositoryShardsTest.URL + "2;MODE=MySQL;DB_CLOSE_DELAY=-1",
+		"personaje.shards.datasources[2].username=sa",
+		"personaje.shards.datasources[2].password=",
+		"personaje.shards.tamano-bloque-ids=4" })
+@ActiveProfiles("shards")
+class PersonajeRepositoryShardsTest {
+
+	static final String URL = "jdbc:h2:mem:shard";
+	private static final int SHARDS = 3;
+
+	@Autowired
+	private PersonajeService service;
+
+	@Autowired
+	private PersonajeRepositoryShards personajeRepository;
+
+	@Test
+	void guardaCadaPersonajeEnSuShard() {
+		List<Integer> ids = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			ids.add(service.createPersonaje(new Personaje("Repartido" + i, 10, 10, 100)).getIdPersonaje());
+		}
+
+		assertEquals(ids.size(), ids.stream().distinct().count());
+		assertEquals(SHARDS, ids.stream().map(id -> id % SHARDS).distinct().count());
+		for (int id : ids) {
+			for (int shard = 0; shard < SHARDS; shard++) {
+				int filas = shard(shard).queryForObject("SELECT COUNT(*) FROM personajes WHERE id_personaje = ?",
+						Integer.class, id);
+				assertEquals(shard == id % SHARDS ? 1 : 0, filas);
+			}
+		}
+	}
+
+	@Test
+	void aplicaLasOperacionesDeUnPersonajeEnSuShard() {
+		int id = service.createPersonaje(new Personaje("Shard", 10, 20, 100)).getIdPersonaje();
+
+		service.updateExperiencia(id, 2500);
+		service.subirNivel(id);
+		Personaje muerto = service.updateVida(id, 100);
+
+		assertEquals(4, muerto.getNivel());
+		assertEquals(40, muerto.getFuerzaActual());
+		assertFalse(muerto.isActivo());
+		assertEquals(muerto.getVersion(), service.showVersionPersonaje(id).version());
+		assertEquals(0, shard(id % SHARDS).queryForObject(
+				"SELECT vida_actual FROM personajes WHERE id_personaje = ?", Integer.class, id));
+
+		Personaje obsoleto = new Personaje(muerto);
+		service.setActividadPersonaje(id, true);
+		assertThrows(ObjectOptimisticLockingFailureException.class, () -> personajeRepository.save(obsoleto));
+	}
+
+	@Test
+	void mezclaEnOrdenLasConsultasDeTodosLosShards() throws Exception {
+		String ndjson = "{\"nombre\":\"Lote1\",\"vidaOriginal\":10}\n{\"nombre\":\"Lote2\",\"vidaOriginal\":20}\n"
+				+ "{\"nombre\":\"Lote3\",\"vidaOriginal\":30}\n{\"nombre\":\"Lote4\",\"vidaOriginal\":40}\n";
+		ResultadoImportacion importacion = service.importarPersonajes(
+				new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+		assertEquals(4, importacion.insertados());
+
+		List<Personaje> todos = service.showAll();
+		assertEquals(personajeRepository.count(), todos.size());
+		for (int i = 1; i < todos.size(); i++) {
+			assertTrue(todos.get(i - 1).getIdPersonaje() < todos.get(i).getIdPersonaje());
+		}
+
+		List<Personaje> paginados = new ArrayList<>();
+		for (List<Personaje> pagina = service.showAll(0, 3); !pagina.isEmpty();
+				pagina = service.showAll(pagina.get(pagina.size() - 1).getIdPersonaje(), 3)) {
+			paginados.addAll(pagina);
+		}
+		List<Integer> recorridos = new ArrayList<>();
+		service.recorrerPersonajes(false, p -> recorridos.add(p.getIdPersonaje()));
+
+		List<Integer> idsTodos = todos.stream().map(Personaje::getIdPersonaje).toList();
+		assertEquals(idsTodos, paginados.stream().map(Personaje::getIdPersonaje).toList());
+		assertEquals(idsTodos, recorridos);
+
+		int a = todos.get(0).getIdPersonaje();
+		int b = todos.get(1).getIdPersonaje();
+		List<Personaje> golpeados = service.updateVidaLote(List.of(new Golpe(b, 5), new Golpe(a, 500)));
+		assertEquals(List.of(a, b), golpeados.stream().map(Personaje::getIdPersonaje).toList());
+		assertTrue(service.showActivos().stream().noneMatch(p -> p.getIdPersonaje() == a));
+
+		long huella = service.huellaPersonajes(false);
+		assertEquals(HuellaPersonajes.de(service.showAll()), huella);
+		assertEquals(HuellaPersonajes.de(service.showActivos()), service.huellaPersonajes(true));
+		assertEquals(todos.size(), service.reiniciarPersonajes().reiniciados());
+		assertTrue(service.showActivos().stream().anyMatch(p -> p.getIdPersonaje() == a));
+		assertEquals(service.showAll().size(), service.showActivos().size());
+		assertTrue(huella != service.huellaPersonajes(false));
+	}
+
+	/**
+	 * Cada consulta de un shard espera en un disparador de H2 a que estén en marcha las de
+	 * todas las peticiones, lo que solo ocurre si el pool no las pone en cola.
+	 */
+	@Test
+	void variasPeticionesConsultanTodosLosShardsALaVez() throws Exception {
+		int peticiones = 4;
+		ConsultasALaVez.esperadas = new CountDownLatch(SHARDS * peticiones);
+		for (int i = 0; i < SHARDS; i++) {
+			shard(i).execute("CREATE TRIGGER consultas_a_la_vez BEFORE SELECT ON personajes CALL \""
+					+ ConsultasALaVez.class.getName() + "\"");
+		}
+
+		ExecutorService clientes = Executors.newFixedThreadPool(peticiones);
+		try {
+			List<Future<Long>> cuentas = new ArrayList<>();
+			for (int i = 0; i < peticiones; i++) {
+				cuentas.add(clientes.submit(personajeRepository::count));
+			}
+
+			assertTrue(ConsultasALaVez.esperadas.await(5, TimeUnit.SECONDS));
+			for (Future<Long> cuenta : cuentas) {
+				assertEquals(cuentas.get(0).get(10, TimeUnit.SECONDS), cuenta.get(10, TimeUnit.SECONDS));
+			}
+		} finally {
+			clientes.shutdownNow();
+			for (int i = 0; i < SHARDS; i++) {
+				shard(i).execute("DROP TRIGGER consultas_a_la_vez");
+			}
+		}
+	}
+
+	private static JdbcTemplate shard(int indice) {
+		return new JdbcTemplate(new DriverManagerDataSource(URL + indice + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+	}
+
+	/**
+	 * Disparador de H2 que retiene cada consulta hasta que han llegado todas las esperadas.
+	 */
+	public static class ConsultasALaVez implements Trigger {
+
+		static volatile CountDownLatch esperadas;
+
+		@Override
+		public void fire(Connection conexion, Object[] antes, Object[] despues) {
+			esperadas.countDown();
+			try {
+				esperadas.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
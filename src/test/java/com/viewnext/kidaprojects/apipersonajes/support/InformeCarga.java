@@ -0,0 +1,62 @@
+package com.viewnext.kidaprojects.apipersonajes.support;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Informe de una prueba de carga: una tabla en la salida estándar y el mismo contenido en
+ * un CSV bajo {@code target}.
+ *
+ * <p>
+ * Cada fila se da con un formato CSV; la tabla alinea sus columnas con el formato de
+ * tabla, que debe tener un {@code %s} por columna.
+ * </p>
+ */
+public final class InformeCarga {
+
+	private final String cabecera;
+	private final String formatoTabla;
+	private final Object[] titulos;
+	private final List<String> filas = new ArrayList<>();
+
+	/**
+	 * @param cabecera     Cabecera del CSV.
+	 * @param formatoTabla Formato de cada línea de la tabla, sin el salto de línea.
+	 * @param titulos      Títulos de las columnas de la tabla.
+	 */
+	public InformeCarga(String cabecera, String formatoTabla, String... titulos) {
+		this.cabecera = cabecera;
+		this.formatoTabla = formatoTabla + "%n";
+		this.titulos = titulos;
+	}
+
+	/**
+	 * Añade una fila con los valores separados por comas según {@code formato}.
+	 */
+	public void fila(String formato, Object... valores) {
+		filas.add(String.format(Locale.ROOT, formato, valores));
+	}
+
+	/**
+	 * Muestra el título y la tabla, y guarda el CSV en {@code target/<archivo>}.
+	 */
+	public void escribir(String titulo, String archivo) throws IOException {
+		System.out.printf("%n%s%n", titulo);
+		System.out.printf(formatoTabla, titulos);
+		for (String fila : filas) {
+			System.out.printf(formatoTabla, (Object[]) fila.split(","));
+		}
+
+		Path informe = Path.of("target", archivo);
+		Files.createDirectories(informe.getParent());
+		try (PrintWriter salida = new PrintWriter(Files.newBufferedWriter(informe))) {
+			salida.println(cabecera);
+			filas.forEach(salida::println);
+		}
+	}
+}
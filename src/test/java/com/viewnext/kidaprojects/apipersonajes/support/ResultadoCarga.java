@@ -0,0 +1,68 @@
+package com.viewnext.kidaprojects.apipersonajes.support;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencias y errores de las peticiones de una prueba de carga, registrados desde varios
+ * hilos a la vez.
+ */
+public final class ResultadoCarga {
+
+	private long[] latencias = new long[1024];
+	private int tamano;
+	private final LongAdder errores = new LongAdder();
+	private double segundos;
+
+	/**
+	 * Registra una petición terminada.
+	 *
+	 * @param nanos Latencia de la petición en nanosegundos.
+	 * @param error Si la petición ha fallado.
+	 */
+	public synchronized void registrar(long nanos, boolean error) {
+		if (tamano == latencias.length) {
+			latencias = Arrays.copyOf(latencias, tamano * 2);
+		}
+		latencias[tamano++] = nanos;
+		if (error) {
+			errores.increment();
+		}
+	}
+
+	public synchronized int peticiones() {
+		return tamano;
+	}
+
+	/**
+	 * Devuelve el percentil indicado (entre 0 y 1) de las latencias en milisegundos.
+	 */
+	public synchronized double percentil(double percentil) {
+		if (tamano == 0) {
+			return 0;
+		}
+		long[] ordenadas = Arrays.copyOf(latencias, tamano);
+		Arrays.sort(ordenadas);
+		int indice = (int) Math.ceil(percentil * tamano) - 1;
+		return ordenadas[Math.max(0, indice)] / 1e6;
+	}
+
+	public long getErrores() {
+		return errores.sum();
+	}
+
+	public double getSegundos() {
+		return segundos;
+	}
+
+	/**
+	 * Fija la duración de la medición, con la que se calcula el throughput.
+	 */
+	public void setSegundos(double segundos) {
+		this.segundos = segundos;
+	}
+
+	public double throughput() {
+		return peticiones() / segundos;
+	}
+}
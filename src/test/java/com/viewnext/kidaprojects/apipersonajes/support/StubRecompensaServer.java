@@ -0,0 +1,130 @@
+package com.viewnext.kidaprojects.apipersonajes.support;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Servidor HTTP local que sustituye a los servicios de misiones y enemigos en las pruebas.
+ * Responde a {@code GET /mision/recompensa/{id}} y {@code GET /enemigo/recompensa/{id}} con
+ * una recompensa de {@code id * 10} de experiencia, y permite inyectar latencia y errores.
+ */
+public class StubRecompensaServer implements AutoCloseable {
+
+	private final HttpServer server;
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final AtomicInteger peticiones = new AtomicInteger();
+	private final AtomicInteger fallosPendientes = new AtomicInteger();
+	private final AtomicInteger enCurso = new AtomicInteger();
+	private final AtomicInteger maxEnCurso = new AtomicInteger();
+
+	private volatile Duration latencia = Duration.ZERO;
+	private volatile double tasaError;
+
+	/**
+	 * Arranca el servidor en un puerto libre.
+	 */
+	public StubRecompensaServer() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+		server.createContext("/", this::responder);
+		server.setExecutor(executor);
+		server.start();
+	}
+
+	/**
+	 * Arranca el servidor en un puerto libre, para inicializar campos estáticos de las pruebas.
+	 *
+	 * @throws UncheckedIOException Si no se puede abrir el puerto.
+	 */
+	public static StubRecompensaServer arrancar() {
+		try {
+			return new StubRecompensaServer();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public String getBaseUrl() {
+		return "http://localhost:" + server.getAddress().getPort();
+	}
+
+	public int getPeticiones() {
+		return peticiones.get();
+	}
+
+	/**
+	 * Devuelve el mayor número de peticiones atendidas a la vez desde el arranque o desde
+	 * la última llamada, y vuelve a empezar la cuenta.
+	 */
+	public int reiniciarMaxEnCurso() {
+		return maxEnCurso.getAndSet(enCurso.get());
+	}
+
+	/**
+	 * Añade una latencia fija a cada respuesta.
+	 */
+	public void setLatencia(Duration latencia) {
+		this.latencia = latencia;
+	}
+
+	/**
+	 * Hace que una fracción aleatoria de las respuestas sea un error 503.
+	 */
+	public void setTasaError(double tasaError) {
+		this.tasaError = tasaError;
+	}
+
+	/**
+	 * Hace que las próximas {@code fallos} respuestas sean un error 503.
+	 */
+	public void fallarSiguientes(int fallos) {
+		fallosPendientes.set(fallos);
+	}
+
+	private void responder(HttpExchange exchange) throws IOException {
+		peticiones.incrementAndGet();
+		maxEnCurso.accumulateAndGet(enCurso.incrementAndGet(), Math::max);
+
+		try {
+			Thread.sleep(latencia.toMillis());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			enCurso.decrementAndGet();
+		}
+
+		String[] partes = exchange.getRequestURI().getPath().split("/");
+		boolean fallar = fallosPendientes.getAndUpdate(f -> Math.max(0, f - 1)) > 0
+				|| ThreadLocalRandom.current().nextDouble() < tasaError;
+
+		if (fallar) {
+			exchange.sendResponseHeaders(503, -1);
+		} else if (partes.length == 4 && partes[2].equals("recompensa")) {
+			byte[] cuerpo = String.valueOf(Integer.parseInt(partes[3]) * 10).getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, cuerpo.length);
+			try (OutputStream salida = exchange.getResponseBody()) {
+				salida.write(cuerpo);
+			}
+		} else {
+			exchange.sendResponseHeaders(404, -1);
+		}
+		exchange.close();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+}